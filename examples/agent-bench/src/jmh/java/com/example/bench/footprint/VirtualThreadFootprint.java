@@ -0,0 +1,127 @@
+package com.example.bench.footprint;
+
+import java.lang.management.ManagementFactory;
+import java.util.AbstractCollection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.janusguard.core.context.ProbeGuard;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventType;
+import com.janusguard.transport.queue.LaneScheduler;
+import com.janusguard.transport.queue.PerThreadEventBuffers;
+
+/**
+ * 虚拟线程内存占用基准测试（需JDK 21）
+ * 先启动N个只挂起等待的虚拟线程作为对照，再启动N个先执行一次探针逻辑
+ * （重入保护、创建事件、写入事件缓冲区）后挂起的虚拟线程，
+ * 分别测量全部线程存活时相对启动前的堆增长，两者之差除以N即为每个虚拟线程的额外开销，应接近于0
+ *
+ * 用法：VirtualThreadFootprint [线程数]
+ */
+public class VirtualThreadFootprint {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        ExecutorService executor;
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Virtual threads are not supported on Java " + System.getProperty("java.version"));
+            System.exit(1);
+            return;
+        }
+
+        PerThreadEventBuffers buffers = new PerThreadEventBuffers(1024, 1000,
+                new LaneScheduler(LaneScheduler.DrainPolicy.WEIGHTED, null));
+
+        // 预热，使共享缓冲区和类加载的开销不计入测量
+        run(executor, buffers, 1000, true);
+
+        long control = run(executor, buffers, threads, false);
+        long probed = run(executor, buffers, threads, true);
+        // 再测一次对照组，两次对照的差异反映测量噪声
+        long controlAgain = run(executor, buffers, threads, false);
+        control = (control + controlAgain) / 2;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.printf("threads=%d controlBytesPerThread=%.1f probedBytesPerThread=%.1f "
+                        + "overheadBytesPerThread=%.1f noiseBytesPerThread=%.1f producerBuffers=%d%n",
+                threads, control / (double) threads, probed / (double) threads,
+                (probed - control) / (double) threads, Math.abs(controlAgain - control) * 2 / (double) threads,
+                buffers.getProducerCount());
+    }
+
+    /**
+     * 启动一批虚拟线程，返回全部存活时相对启动前的堆增长
+     */
+    private static long run(ExecutorService executor, PerThreadEventBuffers buffers, int threads, boolean probe)
+            throws InterruptedException {
+        long before = usedHeapAfterGc();
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                if (probe && ProbeGuard.enter()) {
+                    try {
+                        buffers.offer(new SecurityEvent(SecurityEventType.FILE_OPERATION,
+                                "java.io.FileInputStream", "<init>"), 0, TimeUnit.MILLISECONDS);
+                    } finally {
+                        ProbeGuard.exit();
+                    }
+                }
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            });
+            // 及时消费事件，避免事件本身计入测量
+            if (probe && (i & 255) == 0) {
+                buffers.drainTo(DISCARD, Integer.MAX_VALUE);
+            }
+        }
+        started.await();
+        buffers.drainTo(DISCARD, Integer.MAX_VALUE);
+
+        long used = usedHeapAfterGc();
+        release.countDown();
+        finished.await();
+        return used - before;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // 丢弃消费到的事件
+    private static final AbstractCollection<Object> DISCARD = new AbstractCollection<Object>() {
+        @Override
+        public boolean add(Object element) {
+            return true;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    };
+}
@@ -0,0 +1,114 @@
+package com.example.bench.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.event.EventProcessor;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventType;
+import com.janusguard.transport.queue.EventQueue;
+import com.janusguard.transport.reporter.DataReporter;
+
+/**
+ * 事件流水线拓扑基准测试
+ * 分别以融合（处理线程评估后直接写出）和分级（经已处理队列交给上报线程）两种拓扑运行EventProcessor，
+ * 每次调用提交一批事件并等待其全部写入文件输出端，结果为每个事件从提交到写出的平均耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class EventPipelineBenchmark {
+
+    private static final int EVENTS = 1000;
+
+    // 文件、反射和命令执行事件的比例；命令执行事件为高危，默认的快速通道只对CRITICAL生效，不会单独刷新
+    private static final SecurityEventType[] TYPES = {
+            SecurityEventType.FILE_OPERATION, SecurityEventType.FILE_OPERATION, SecurityEventType.FILE_OPERATION,
+            SecurityEventType.FILE_OPERATION, SecurityEventType.REFLECTION, SecurityEventType.REFLECTION,
+            SecurityEventType.REFLECTION, SecurityEventType.FILE_OPERATION, SecurityEventType.REFLECTION,
+            SecurityEventType.COMMAND_EXECUTION
+    };
+
+    private static final LongAdder EVENTS_REPORTED = AgentMetrics.counter("pipeline.events-reported");
+
+    @Param({"fused", "staged"})
+    public String pipeline;
+
+    @Param({"2"})
+    public int processorThreads;
+
+    private Path eventLog;
+    private EventQueue eventQueue;
+    private DataReporter dataReporter;
+    private EventProcessor eventProcessor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        eventLog = Files.createTempFile("janusguard-bench-events", ".log");
+        AgentConfig config = new AgentConfig();
+        config.initialize("event-processing.pipeline=" + pipeline
+                + ",event-processing.processor-threads=" + processorThreads
+                + ",reporting.mode=file,reporting.file.path=" + eventLog
+                // 去重和告警窗口会扣留事件，等待写出的计数永远达不到
+                + ",reporting.dedup.enabled=false,reporting.alert-window.enabled=false"
+                // 关联前的重排序缓冲把相关事件固定扣留reorder-ms，会掩盖两种拓扑的差别
+                + ",rules.correlation.reorder-ms=0");
+
+        // 与AgentManager的启动顺序一致：队列、上报器、处理器
+        eventQueue = new EventQueue(config.getInt("event-processing.queue-size", 10000));
+        eventQueue.initialize();
+        dataReporter = new DataReporter(config, eventQueue);
+        dataReporter.start();
+        eventProcessor = new EventProcessor(config, eventQueue,
+                DataReporter.isFusedPipeline(config) ? dataReporter : null);
+        eventProcessor.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        eventProcessor.stop();
+        dataReporter.stop();
+        eventQueue.shutdown();
+        Files.deleteIfExists(eventLog);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long submitAndWrite() {
+        long target = EVENTS_REPORTED.sum() + EVENTS;
+        for (int i = 0; i < EVENTS; i++) {
+            eventProcessor.processEvent(new SecurityEvent(TYPES[i % TYPES.length], "com.example.Bench", "run"));
+        }
+
+        // 不足一批的尾部事件不等定时刷新，由基准线程主动写出
+        long reported;
+        while ((reported = EVENTS_REPORTED.sum()) < target) {
+            dataReporter.flush();
+            Thread.yield();
+        }
+        return reported;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bench.jmh;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.janusguard.common.logging.LogUtils;
+import com.janusguard.common.platform.EventIds;
+import com.janusguard.transport.queue.SpscRingBuffer;
+
+/**
+ * 多版本实现基准测试
+ * 覆盖栈帧采集、事件ID生成和环形缓冲区三处按JDK版本替换的热点，
+ * 用不同JDK分别运行（-PjmhJava=&lt;JDK目录&gt;）即可对比基线实现与版本化实现
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PlatformBenchmark {
+
+    // 采集栈帧前额外压入的调用深度，模拟应用中探针所在的调用栈
+    @Param({"10", "100"})
+    public int stackDepth;
+
+    private final SpscRingBuffer<Object> ring = new SpscRingBuffer<>(1024);
+
+    private final Object element = new Object();
+
+    @Benchmark
+    public Object captureStackTrace() {
+        return deep(stackDepth, true);
+    }
+
+    @Benchmark
+    public Object fullStackTrace() {
+        return deep(stackDepth, false);
+    }
+
+    @Benchmark
+    public String eventId() {
+        return EventIds.next();
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public Object ringOfferPoll() {
+        ring.offer(element);
+        return ring.poll();
+    }
+
+    private static Object deep(int depth, boolean bounded) {
+        if (depth > 0) {
+            return deep(depth - 1, bounded);
+        }
+        return bounded ? LogUtils.captureStackTrace(0, 10) : Thread.currentThread().getStackTrace();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bench.jmh;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.janusguard.bootstrap.ProbeDispatcher;
+
+/**
+ * 探针开关开销基准测试
+ * 按植入后的调用形态（参数数组、原始方法的Callable）经过分发器调用，对比无探针、
+ * 进入拦截器后检查volatile标志，以及分发器调用点链接到拦截器或直接执行原始方法三种情况。
+ * 关闭的探针调用点直接执行原始方法，参数数组和Callable可由逃逸分析消除，应与无探针基本一致
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ProbeSwitchBenchmark {
+
+    private static final Method ORIGIN;
+
+    static {
+        try {
+            ORIGIN = ProbeSwitchBenchmark.class.getDeclaredMethod("target", int.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static volatile boolean volatileFlag = true;
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private int value = 42;
+
+    @Setup(Level.Trial)
+    public void setup() throws ReflectiveOperationException {
+        volatileFlag = enabled;
+        if (enabled) {
+            ProbeDispatcher.install(ProbeDispatcher.REFLECTION, MethodHandles.lookup()
+                    .findStatic(ProbeSwitchBenchmark.class, "probe", ProbeDispatcher.PROBE_TYPE));
+        } else {
+            ProbeDispatcher.uninstall(ProbeDispatcher.REFLECTION);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ProbeDispatcher.uninstall(ProbeDispatcher.REFLECTION);
+    }
+
+    @Benchmark
+    public int noProbe() {
+        return target(value);
+    }
+
+    @Benchmark
+    public int volatileFlag() throws Exception {
+        int x = value;
+        Object[] args = {x};
+        Callable<Integer> superCall = () -> target(x);
+        if (volatileFlag) {
+            return (Integer) probe(this, ORIGIN, args, superCall);
+        }
+        return superCall.call();
+    }
+
+    @Benchmark
+    public int dispatcherSwitch() throws Exception {
+        int x = value;
+        return (Integer) ProbeDispatcher.reflection(this, ORIGIN, new Object[] {x}, () -> target(x));
+    }
+
+    // 模拟探针逻辑：记录少量数据后调用原始方法
+    private static Object probe(Object self, Method origin, Object[] args, Callable<?> superCall) throws Exception {
+        long start = System.nanoTime();
+        Object result = superCall.call();
+        return (Integer) result + (int) (System.nanoTime() - start & 1);
+    }
+
+    private static int target(int x) {
+        return x * 31 + 7;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 启动基准测试启动器
+ * 以不同的Agent配置（不加载、全部监控、同步启动、每个监控单独开启）多次启动{@link SyntheticApp}，
+ * 汇总各项指标的中位数、最小值和最大值，写入JSON文件便于不同版本之间对比
+ *
+ * 用法：StartupBenchmark --agent &lt;agent.jar&gt; [--out dir] [--iterations n] [--scenarios a,b]
+ */
+public class StartupBenchmark {
+
+    // 各监控的开关配置项
+    private static final Map<String, String> MONITORS = new LinkedHashMap<>();
+
+    static {
+        MONITORS.put("command-execution", "monitors.command-execution.enabled");
+        MONITORS.put("file-operations", "monitors.file-operations.enabled");
+        MONITORS.put("reflection", "monitors.reflection.enabled");
+        MONITORS.put("class-loading", "monitors.memory-trojan.class-loading.enabled");
+        MONITORS.put("unsafe", "monitors.memory-trojan.unsafe.enabled");
+        MONITORS.put("dynamic-proxy", "monitors.memory-trojan.dynamic-proxy.enabled");
+        MONITORS.put("jni", "monitors.memory-trojan.jni.enabled");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String agentJar = options.get("agent");
+        if (agentJar == null || !new File(agentJar).isFile()) {
+            System.err.println("Agent jar not found, use --agent <path>: " + agentJar);
+            System.exit(1);
+        }
+
+        File outDir = new File(options.getOrDefault("out", "build/bench"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        outDir.mkdirs();
+
+        Map<String, String> scenarios = buildScenarios(outDir);
+        if (options.containsKey("scenarios")) {
+            Set<String> selected = new LinkedHashSet<>(Arrays.asList(options.get("scenarios").split(",")));
+            scenarios.keySet().retainAll(selected);
+        }
+
+        Map<String, Map<String, double[]>> summary = new LinkedHashMap<>();
+        for (Map.Entry<String, String> scenario : scenarios.entrySet()) {
+            List<Map<String, Double>> runs = new ArrayList<>();
+            for (int i = 0; i < iterations; i++) {
+                Map<String, Double> run = runOnce(agentJar, scenario.getValue());
+                if (run != null) {
+                    runs.add(run);
+                }
+            }
+            summary.put(scenario.getKey(), summarize(runs));
+            System.out.printf("%-24s premain=%sms wall=%sms classLoad=%sms metaspace+=%sKB firstEvent=%sms%n",
+                    scenario.getKey(),
+                    median(summary, scenario.getKey(), "premainMs"),
+                    median(summary, scenario.getKey(), "wallMs"),
+                    median(summary, scenario.getKey(), "classLoadMs"),
+                    median(summary, scenario.getKey(), "metaspaceGrowthKb"),
+                    median(summary, scenario.getKey(), "firstEventUptimeMs"));
+        }
+
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File result = new File(outDir, "startup-" + timestamp + ".json");
+        writeJson(result, agentJar, iterations, summary);
+        System.out.println("Results written to " + result.getAbsolutePath());
+    }
+
+    /**
+     * 构建场景：名称到Agent参数，参数为null表示不加载Agent
+     */
+    private static Map<String, String> buildScenarios(File outDir) {
+        Map<String, String> scenarios = new LinkedHashMap<>();
+        scenarios.put("baseline", null);
+        scenarios.put("agent-all", eventsPath(outDir, "agent-all"));
+        scenarios.put("agent-all-sync", eventsPath(outDir, "agent-all-sync") + ",agent.bootstrap=sync");
+
+        for (String monitor : MONITORS.keySet()) {
+            StringBuilder agentArgs = new StringBuilder(eventsPath(outDir, "only-" + monitor));
+            for (Map.Entry<String, String> other : MONITORS.entrySet()) {
+                agentArgs.append(',').append(other.getValue()).append('=').append(other.getKey().equals(monitor));
+            }
+            scenarios.put("only-" + monitor, agentArgs.toString());
+        }
+        return scenarios;
+    }
+
+    private static String eventsPath(File outDir, String scenario) {
+        return "reporting.file.path=" + new File(outDir, "events-" + scenario + ".log").getAbsolutePath();
+    }
+
+    /**
+     * 启动一次被测应用并解析其输出
+     */
+    private static Map<String, Double> runOnce(String agentJar, String agentArgs) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        if (agentArgs != null) {
+            command.add("-javaagent:" + agentJar + (agentArgs.isEmpty() ? "" : "=" + agentArgs));
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SyntheticApp.class.getName());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        Map<String, Double> result = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SyntheticApp.RESULT_PREFIX)) {
+                    result = parseResult(line.substring(SyntheticApp.RESULT_PREFIX.length()));
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (result == null || exitCode != 0) {
+            System.err.println("Benchmark run failed with exit code " + exitCode + ": " + command);
+            return null;
+        }
+        result.put("wallMs", (System.nanoTime() - start) / 1e6);
+        return result;
+    }
+
+    private static Map<String, Double> parseResult(String line) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String pair : line.trim().split(" ")) {
+            String[] keyValue = pair.split("=", 2);
+            if (keyValue.length == 2) {
+                try {
+                    result.put(keyValue[0], Double.parseDouble(keyValue[1]));
+                } catch (NumberFormatException e) {
+                    // 忽略非数值项
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 汇总多次运行：每项指标的中位数、最小值、最大值
+     */
+    private static Map<String, double[]> summarize(List<Map<String, Double>> runs) {
+        Map<String, List<Double>> values = new LinkedHashMap<>();
+        for (Map<String, Double> run : runs) {
+            for (Map.Entry<String, Double> entry : run.entrySet()) {
+                values.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+
+        Map<String, double[]> summary = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Double>> entry : values.entrySet()) {
+            List<Double> sorted = entry.getValue();
+            Collections.sort(sorted);
+            int n = sorted.size();
+            double median = n % 2 == 1 ? sorted.get(n / 2) : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2;
+            summary.put(entry.getKey(), new double[] {median, sorted.get(0), sorted.get(n - 1), n});
+        }
+        return summary;
+    }
+
+    private static String median(Map<String, Map<String, double[]>> summary, String scenario, String metric) {
+        double[] stats = summary.get(scenario).get(metric);
+        return stats == null ? "-" : String.format("%.1f", stats[0]);
+    }
+
+    private static void writeJson(File file, String agentJar, int iterations,
+                                  Map<String, Map<String, double[]>> summary) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            out.write("{\n");
+            out.write("  \"timestamp\": \"" + new Date() + "\",\n");
+            out.write("  \"javaVersion\": \"" + System.getProperty("java.version") + "\",\n");
+            out.write("  \"agentJar\": \"" + agentJar.replace("\\", "\\\\") + "\",\n");
+            out.write("  \"iterations\": " + iterations + ",\n");
+            out.write("  \"scenarios\": {");
+            String scenarioSeparator = "\n";
+            for (Map.Entry<String, Map<String, double[]>> scenario : summary.entrySet()) {
+                out.write(scenarioSeparator + "    \"" + scenario.getKey() + "\": {");
+                String metricSeparator = "\n";
+                for (Map.Entry<String, double[]> metric : scenario.getValue().entrySet()) {
+                    double[] stats = metric.getValue();
+                    out.write(String.format("%s      \"%s\": {\"median\": %s, \"min\": %s, \"max\": %s, \"runs\": %d}",
+                            metricSeparator, metric.getKey(), stats[0], stats[1], stats[2], (int) stats[3]));
+                    metricSeparator = ",\n";
+                }
+                out.write("\n    }");
+                scenarioSeparator = ",\n";
+            }
+            out.write("\n  }\n}\n");
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].startsWith("--")) {
+                options.put(args[i].substring(2), args[i + 1]);
+            }
+        }
+        return options;
+    }
+}
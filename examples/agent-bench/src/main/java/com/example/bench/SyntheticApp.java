@@ -0,0 +1,191 @@
+package com.example.bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+import com.example.bench.synthetic.SyntheticIndex;
+
+/**
+ * 启动基准测试的被测应用
+ * 进入main后立即触发所有探针对应的操作，再加载全部合成类，
+ * 最后以一行 BENCH_RESULT key=value ... 的形式输出测量结果
+ */
+public class SyntheticApp {
+
+    static final String RESULT_PREFIX = "BENCH_RESULT ";
+
+    private static final String METRICS_CLASS = "com.janusguard.common.metrics.AgentMetrics";
+
+    // 等待第一个事件上报的最长时间
+    private static final long FIRST_EVENT_TIMEOUT_MS = 15000;
+
+    private static volatile long firstEventUptimeMs = -1;
+
+    public static void main(String[] args) throws Exception {
+        long mainEntryUptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        Method snapshot = findMetricsSnapshot();
+
+        // 后台观察Agent第一次上报事件的时间点
+        Thread watcher = null;
+        if (snapshot != null) {
+            watcher = new Thread(() -> watchFirstEvent(snapshot), "bench-first-event-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+
+        triggerProbes();
+
+        // 加载全部合成类
+        long metaspaceBefore = metaspaceUsed();
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < SyntheticIndex.COUNT; i++) {
+            Class<?> type = Class.forName(String.format("com.example.bench.synthetic.Synthetic%05d", i));
+            checksum += ((IntSupplier) type.newInstance()).getAsInt();
+        }
+        long classLoadNs = System.nanoTime() - start;
+        long metaspaceAfter = metaspaceUsed();
+
+        if (watcher != null) {
+            watcher.join(FIRST_EVENT_TIMEOUT_MS);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mainEntryUptimeMs", mainEntryUptimeMs);
+        result.put("classes", SyntheticIndex.COUNT);
+        result.put("classLoadMs", classLoadNs / 1e6);
+        result.put("classLoadUsPerClass", classLoadNs / 1e3 / SyntheticIndex.COUNT);
+        result.put("metaspaceBeforeKb", metaspaceBefore / 1024);
+        result.put("metaspaceAfterKb", metaspaceAfter / 1024);
+        result.put("metaspaceGrowthKb", (metaspaceAfter - metaspaceBefore) / 1024);
+        // 没有事件或没有对应指标时不输出该项，避免-1被当作测量值计入中位数
+        if (firstEventUptimeMs >= 0) {
+            result.put("firstEventUptimeMs", firstEventUptimeMs);
+            result.put("firstEventAfterMainMs", firstEventUptimeMs - mainEntryUptimeMs);
+        }
+        result.put("checksum", checksum);
+
+        if (snapshot != null) {
+            Map<?, ?> metrics = (Map<?, ?>) snapshot.invoke(null);
+            result.put("premainMs", toMillis(metrics.get("bootstrap.premain-time-ns")));
+            result.put("backgroundInitMs", toMillis(metrics.get("bootstrap.background-time-ns")));
+            result.put("transformTimeMs", toMillis(metrics.get("transformer.transform-time-ns-total")));
+            result.put("filterTimeMs", toMillis(metrics.get("transformer.filter.time-ns-total")));
+            result.put("classesTransformed", metrics.get("transformer.classes-transformed"));
+            result.put("eventsReported", metrics.get("pipeline.events-reported"));
+        }
+
+        StringBuilder line = new StringBuilder(RESULT_PREFIX);
+        for (Map.Entry<String, Object> entry : result.entrySet()) {
+            if (entry.getValue() != null) {
+                line.append(entry.getKey()).append('=').append(entry.getValue()).append(' ');
+            }
+        }
+        System.out.println(line.toString().trim());
+    }
+
+    /**
+     * 触发每类探针各一次，保证任意单一监控开启时都有事件产生
+     */
+    private static void triggerProbes() {
+        // 命令执行
+        try {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            new ProcessBuilder(java, "-version").redirectErrorStream(true).start().getInputStream().close();
+        } catch (IOException e) {
+            System.err.println("Command trigger failed: " + e);
+        }
+
+        // 文件操作
+        try (FileInputStream in = new FileInputStream(new File(System.getProperty("java.home"), "release"))) {
+            in.read();
+        } catch (IOException e) {
+            // release文件不存在时忽略，探针仍然会记录构造调用
+        }
+
+        // 反射
+        try {
+            Method method = Integer.class.getMethod("valueOf", int.class);
+            method.invoke(null, 42);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Reflection trigger failed: " + e);
+        }
+
+        // 动态代理
+        Runnable proxy = (Runnable) Proxy.newProxyInstance(SyntheticApp.class.getClassLoader(),
+                new Class<?>[] {Runnable.class}, (p, m, a) -> null);
+        proxy.run();
+
+        // JNI：加载不存在的库，调用本身会被记录
+        try {
+            System.loadLibrary("janusguard-bench-missing");
+        } catch (UnsatisfiedLinkError e) {
+            // 预期内
+        }
+
+        // Unsafe
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            Method allocate = unsafe.getClass().getMethod("allocateMemory", long.class);
+            Method free = unsafe.getClass().getMethod("freeMemory", long.class);
+            free.invoke(unsafe, allocate.invoke(unsafe, 16L));
+        } catch (Exception e) {
+            System.err.println("Unsafe trigger failed: " + e);
+        }
+    }
+
+    private static void watchFirstEvent(Method snapshot) {
+        long deadline = System.currentTimeMillis() + FIRST_EVENT_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Map<?, ?> metrics = (Map<?, ?>) snapshot.invoke(null);
+                Object reported = metrics.get("pipeline.events-reported");
+                if (reported instanceof Number && ((Number) reported).longValue() > 0) {
+                    firstEventUptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+                    return;
+                }
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                System.err.println("Failed to read agent metrics: " + e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 通过反射获取Agent指标快照方法，未加载Agent时返回null
+     */
+    private static Method findMetricsSnapshot() {
+        try {
+            return Class.forName(METRICS_CLASS).getMethod("snapshot");
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static long metaspaceUsed() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if ("Metaspace".equals(pool.getName())) {
+                return pool.getUsage().getUsed();
+            }
+        }
+        return -1;
+    }
+
+    private static Double toMillis(Object nanos) {
+        return nanos instanceof Number ? ((Number) nanos).longValue() / 1e6 : null;
+    }
+}
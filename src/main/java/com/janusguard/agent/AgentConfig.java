@@ -4,7 +4,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -55,6 +58,20 @@ public class AgentConfig {
         }
     }
     
+    /**
+     * 仅根据启动参数初始化配置，不读取任何配置文件
+     * 用于异步启动时在premain中快速确定关键探针的配置，完整配置稍后由新的实例通过{@link #initialize(String)}加载
+     * 
+     * @param agentArgs Agent启动参数
+     */
+    public void initializeFromArgs(String agentArgs) {
+        configMap = new HashMap<>();
+        if (agentArgs != null && !agentArgs.trim().isEmpty()) {
+            parseAgentArgs(agentArgs);
+        }
+        initialized = true;
+    }
+    
     /**
      * 加载默认配置
      */
@@ -307,6 +324,37 @@ public class AgentConfig {
         }
     }
     
+    /**
+     * 获取字符串列表配置项
+     * 支持YAML列表以及逗号分隔的字符串（命令行参数）两种形式
+     * 
+     * @param path 配置路径，点分隔
+     * @param defaultValue 默认值
+     * @return 配置值，元素已去除首尾空白且不包含空元素
+     */
+    public List<String> getStringList(String path, List<String> defaultValue) {
+        Object value = getNestedValue(path);
+        if (value == null) {
+            return defaultValue;
+        }
+        
+        List<String> result = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                if (item != null && !item.toString().trim().isEmpty()) {
+                    result.add(item.toString().trim());
+                }
+            }
+        } else {
+            for (String item : value.toString().split(",")) {
+                if (!item.trim().isEmpty()) {
+                    result.add(item.trim());
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
      * 获取嵌套配置值
      * 
@@ -1,14 +1,28 @@
 package com.janusguard.agent;
 
 import java.lang.instrument.Instrumentation;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.janusguard.agent.management.AgentManagement;
+import com.janusguard.agent.management.PrometheusEndpoint;
+import com.janusguard.core.context.ProbeGuard;
+import com.janusguard.core.event.EventDispatcher;
 import com.janusguard.core.event.EventProcessor;
+import com.janusguard.core.event.SecurityEventType;
+import com.janusguard.core.event.TelemetrySummarizer;
+import com.janusguard.core.rule.ClassDefineBaseline;
+import com.janusguard.transformer.BootstrapBridge;
 import com.janusguard.transformer.ClassTransformer;
+import com.janusguard.transport.queue.EventBuffer;
+import com.janusguard.transport.queue.EventLane;
 import com.janusguard.transport.queue.EventQueue;
+import com.janusguard.transport.queue.LaneScheduler;
+import com.janusguard.transport.queue.PerThreadEventBuffers;
 import com.janusguard.transport.reporter.DataReporter;
 
 /**
@@ -22,9 +36,16 @@ public class AgentManager {
     private final AgentConfig config;
     private final Instrumentation instrumentation;
     private ClassTransformer classTransformer;
+    
+    // 异步启动第一阶段安装的关键探针转换器，完整转换器就绪后移除
+    private ClassTransformer bootstrapTransformer;
+    private ClassDefineBaseline classDefineBaseline;
     private EventProcessor eventProcessor;
+    private TelemetrySummarizer telemetry;
     private EventQueue eventQueue;
     private DataReporter dataReporter;
+    private AgentManagement management;
+    private PrometheusEndpoint metricsEndpoint;
     
     private final AtomicBoolean running = new AtomicBoolean(false);
     
@@ -35,8 +56,20 @@ public class AgentManager {
      * @param instrumentation Instrumentation实例
      */
     public AgentManager(AgentConfig config, Instrumentation instrumentation) {
+        this(config, instrumentation, null);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param config Agent配置
+     * @param instrumentation Instrumentation实例
+     * @param bootstrapTransformer 异步启动时已安装的关键探针转换器，同步启动时为null
+     */
+    public AgentManager(AgentConfig config, Instrumentation instrumentation, ClassTransformer bootstrapTransformer) {
         this.config = config;
         this.instrumentation = instrumentation;
+        this.bootstrapTransformer = bootstrapTransformer;
     }
     
     /**
@@ -48,33 +81,44 @@ public class AgentManager {
             return;
         }
         
+        // 启动过程中Agent自身的文件和反射操作不应产生事件
+        boolean guarded = ProbeGuard.enter();
         try {
             logger.info("Starting Agent manager");
             
             // 检查Agent是否启用
             if (!config.getBoolean("agent.enabled", true)) {
                 logger.info("Agent is disabled in configuration, skipping start");
+                removeBootstrapTransformer(true);
                 return;
             }
             
             // 初始化事件队列
             initEventQueue();
             
+            // 初始化数据上报器（融合流水线下处理器直接向其上报，需先启动）
+            initDataReporter();
+            
             // 初始化事件处理器
             initEventProcessor();
             
-            // 初始化数据上报器
-            initDataReporter();
-            
             // 初始化并注册类转换器
             initClassTransformer();
             
+            // 注册JMX管理接口
+            initManagement();
+            
             running.set(true);
             logger.info("Agent manager started successfully");
         } catch (Exception e) {
             logger.error("Failed to start Agent manager", e);
+            removeBootstrapTransformer(true);
             stop(); // 出错时尝试优雅关闭已启动的组件
             throw new RuntimeException("Agent manager start failed", e);
+        } finally {
+            if (guarded) {
+                ProbeGuard.exit();
+            }
         }
     }
     
@@ -89,11 +133,14 @@ public class AgentManager {
         
         logger.info("Stopping Agent manager");
         
+        // 关闭过程中的最后一次刷新同样不应产生事件
+        boolean guarded = ProbeGuard.enter();
         try {
             // 停止组件（按照与启动相反的顺序）
+            stopManagement();
             stopClassTransformer();
-            stopDataReporter();
             stopEventProcessor();
+            stopDataReporter();
             stopEventQueue();
             
             running.set(false);
@@ -101,6 +148,10 @@ public class AgentManager {
         } catch (Exception e) {
             logger.error("Error occurred while stopping Agent manager", e);
             throw new RuntimeException("Agent manager stop failed", e);
+        } finally {
+            if (guarded) {
+                ProbeGuard.exit();
+            }
         }
     }
     
@@ -110,7 +161,50 @@ public class AgentManager {
     private void initEventQueue() {
         logger.info("Initializing event queue");
         int queueSize = config.getInt("event-processing.queue-size", 10000);
-        eventQueue = new EventQueue(queueSize);
+        LaneScheduler.DrainPolicy drainPolicy = LaneScheduler.DrainPolicy.fromString(
+                config.getString("event-processing.lanes.drain-policy", "weighted"),
+                LaneScheduler.DrainPolicy.WEIGHTED);
+        
+        List<String> weights = config.getStringList("event-processing.lanes.weights",
+                Collections.<String>emptyList());
+        int[] laneWeights = new int[weights.size()];
+        for (int i = 0; i < laneWeights.length; i++) {
+            try {
+                laneWeights[i] = Integer.parseInt(weights.get(i));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid lane weight: {}", weights.get(i));
+                laneWeights[i] = 1;
+            }
+        }
+        
+        LaneScheduler scheduler = new LaneScheduler(drainPolicy, laneWeights.length > 0 ? laneWeights : null);
+        
+        // 原始队列：每个生产者线程独立的环形缓冲区，或所有线程共享的队列
+        EventBuffer rawBuffer = null;
+        String rawQueueMode = config.getString("event-processing.raw-queue.mode", "per-thread");
+        if ("per-thread".equals(rawQueueMode)) {
+            rawBuffer = new PerThreadEventBuffers(
+                    config.getInt("event-processing.raw-queue.ring-size", 1024),
+                    config.getInt("event-processing.raw-queue.max-park-us", 1000),
+                    scheduler);
+        } else if (!"shared".equals(rawQueueMode)) {
+            logger.warn("Unknown raw queue mode: {}, falling back to shared", rawQueueMode);
+        }
+        
+        eventQueue = new EventQueue(queueSize, scheduler, rawBuffer);
+        
+        // 按事件类型提升通道，格式为 TYPE:LANE
+        for (String entry : config.getStringList("event-processing.lanes.type-promotions",
+                Collections.<String>emptyList())) {
+            String[] parts = entry.split(":", 2);
+            try {
+                eventQueue.promote(SecurityEventType.valueOf(parts[0].trim()),
+                        EventLane.valueOf(parts[1].trim()));
+            } catch (RuntimeException e) {
+                logger.warn("Invalid lane promotion entry: {}", entry);
+            }
+        }
+        
         eventQueue.initialize();
         logger.info("Event queue initialized with size {}", queueSize);
     }
@@ -120,8 +214,16 @@ public class AgentManager {
      */
     private void initEventProcessor() {
         logger.info("Initializing event processor");
-        eventProcessor = new EventProcessor(config, eventQueue);
+        if (config.getBoolean("analytics.enabled", false)) {
+            telemetry = new TelemetrySummarizer(config, dataReporter);
+            telemetry.start();
+        }
+        eventProcessor = new EventProcessor(config, eventQueue,
+                DataReporter.isFusedPipeline(config) ? dataReporter : null, telemetry);
         eventProcessor.start();
+        
+        // 挂接到探针的事件分发器，补交启动前缓冲的事件
+        EventDispatcher.attach(eventProcessor);
         logger.info("Event processor started");
     }
     
@@ -139,10 +241,72 @@ public class AgentManager {
      * 初始化并注册类转换器
      */
     private void initClassTransformer() {
+        // defineClass基线先于完整探针生效，学习期从这里开始计时
+        if (config.getBoolean("rules.class-define-baseline.enabled", false)) {
+            classDefineBaseline = new ClassDefineBaseline(config);
+            classDefineBaseline.start();
+        }
+        
         logger.info("Initializing class transformer");
-        classTransformer = new ClassTransformer(config, eventProcessor, instrumentation);
+        classTransformer = new ClassTransformer(config, instrumentation);
         instrumentation.addTransformer(classTransformer, true);
         logger.info("Class transformer registered with instrumentation");
+        
+        // 完整转换器已注册，移除关键探针转换器；下面的重新转换会以完整规则替换其植入的探针
+        removeBootstrapTransformer(false);
+        
+        // 启动前已加载的目标类型需要重新转换才能植入探针
+        classTransformer.retransformLoadedTargets();
+    }
+    
+    /**
+     * 移除异步启动第一阶段安装的关键探针转换器
+     * 
+     * @param restore 是否重新转换其目标类型以恢复原始字节码
+     */
+    private void removeBootstrapTransformer(boolean restore) {
+        if (bootstrapTransformer == null) {
+            return;
+        }
+        try {
+            instrumentation.removeTransformer(bootstrapTransformer);
+            if (restore) {
+                bootstrapTransformer.retransformLoadedTargets();
+            }
+            logger.info("Bootstrap transformer removed");
+        } catch (Exception e) {
+            logger.error("Error removing bootstrap transformer", e);
+        } finally {
+            bootstrapTransformer = null;
+        }
+    }
+    
+    /**
+     * 注册JMX管理接口，按配置启动Prometheus指标端点
+     */
+    private void initManagement() {
+        if (config.getBoolean("management.jmx.enabled", true)) {
+            management = new AgentManagement(eventQueue, dataReporter, classTransformer);
+            management.register();
+        }
+        if (config.getBoolean("management.prometheus.enabled", false)) {
+            metricsEndpoint = new PrometheusEndpoint(config);
+            metricsEndpoint.start();
+        }
+    }
+    
+    /**
+     * 注销JMX管理接口并停止指标端点
+     */
+    private void stopManagement() {
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+            metricsEndpoint = null;
+        }
+        if (management != null) {
+            management.unregister();
+            management = null;
+        }
     }
     
     /**
@@ -154,10 +318,17 @@ public class AgentManager {
                 logger.info("Removing class transformer");
                 instrumentation.removeTransformer(classTransformer);
                 logger.info("Class transformer removed");
+                
+                // 已植入的探针不再转发给拦截器，直接执行原始方法
+                BootstrapBridge.uninstall();
             } catch (Exception e) {
                 logger.error("Error removing class transformer", e);
             }
         }
+        if (classDefineBaseline != null) {
+            classDefineBaseline.stop();
+            classDefineBaseline = null;
+        }
     }
     
     /**
@@ -182,7 +353,14 @@ public class AgentManager {
         if (eventProcessor != null) {
             try {
                 logger.info("Stopping event processor");
+                EventDispatcher.detach();
                 eventProcessor.stop();
+                
+                // 处理线程已停止，写出最后一个周期的遥测汇总
+                if (telemetry != null) {
+                    telemetry.stop();
+                    telemetry = null;
+                }
                 logger.info("Event processor stopped");
             } catch (Exception e) {
                 logger.error("Error stopping event processor", e);
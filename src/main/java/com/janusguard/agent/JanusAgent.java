@@ -5,14 +5,25 @@ import java.lang.instrument.Instrumentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.context.AgentThread;
+import com.janusguard.core.context.ProbeGuard;
+import com.janusguard.core.event.EventDispatcher;
+import com.janusguard.transformer.BootstrapBridge;
+import com.janusguard.transformer.ClassTransformer;
+
 /**
  * JanusGuard Agent主入口类
  * 负责Agent的初始化和生命周期管理
+ * 默认异步启动：premain只根据启动参数安装关键探针后立即返回，
+ * 配置文件加载、事件流水线和其余探针在后台线程中初始化
  */
 public class JanusAgent {
     
     private static final Logger logger = LoggerFactory.getLogger(JanusAgent.class);
     private static AgentManager agentManager;
+    private static boolean initialized = false;
+    private static boolean shutdownRequested = false;
     
     /**
      * JVM启动时加载Agent的入口点
@@ -21,9 +32,11 @@ public class JanusAgent {
      * @param inst Instrumentation实例
      */
     public static void premain(String agentArgs, Instrumentation inst) {
+        long start = System.nanoTime();
         logger.info("JanusGuard Agent starting in premain mode");
         try {
             initialize(agentArgs, inst);
+            AgentMetrics.counter("bootstrap.premain-time-ns").add(System.nanoTime() - start);
             logger.info("JanusGuard Agent started successfully in premain mode");
         } catch (Exception e) {
             logger.error("Failed to start JanusGuard Agent in premain mode", e);
@@ -37,9 +50,11 @@ public class JanusAgent {
      * @param inst Instrumentation实例
      */
     public static void agentmain(String agentArgs, Instrumentation inst) {
+        long start = System.nanoTime();
         logger.info("JanusGuard Agent starting in agentmain mode");
         try {
             initialize(agentArgs, inst);
+            AgentMetrics.counter("bootstrap.premain-time-ns").add(System.nanoTime() - start);
             logger.info("JanusGuard Agent started successfully in agentmain mode");
         } catch (Exception e) {
             logger.error("Failed to start JanusGuard Agent in agentmain mode", e);
@@ -53,30 +68,101 @@ public class JanusAgent {
      * @param inst Instrumentation实例
      */
     private static synchronized void initialize(String agentArgs, Instrumentation inst) {
-        if (agentManager != null) {
+        if (initialized) {
             logger.warn("JanusGuard Agent is already initialized");
             return;
         }
+        initialized = true;
         
-        // 初始化配置
-        AgentConfig config = new AgentConfig();
-        config.initialize(agentArgs);
+        // 启动方式只能通过启动参数指定，此时尚未加载配置文件
+        AgentConfig bootConfig = new AgentConfig();
+        bootConfig.initializeFromArgs(agentArgs);
+        
+        // 探针分发器必须在任何转换器注册之前放入引导类加载器
+        BootstrapBridge.install(inst);
         
-        // 创建并启动Agent管理器
-        agentManager = new AgentManager(config, inst);
-        agentManager.start();
+        if ("sync".equalsIgnoreCase(bootConfig.getString("agent.bootstrap", "async").trim())) {
+            startAgent(agentArgs, inst, null);
+        } else {
+            ClassTransformer bootstrapTransformer = installCriticalProbes(bootConfig, inst);
+            new AgentThread(() -> {
+                long start = System.nanoTime();
+                try {
+                    startAgent(agentArgs, inst, bootstrapTransformer);
+                    AgentMetrics.counter("bootstrap.background-time-ns").add(System.nanoTime() - start);
+                    logger.info("JanusGuard Agent background initialization completed");
+                } catch (Exception e) {
+                    logger.error("JanusGuard Agent background initialization failed", e);
+                }
+            }, "janusguard-bootstrap").start();
+        }
         
         // 添加关闭钩子
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        Runtime.getRuntime().addShutdownHook(new AgentThread(() -> {
             logger.info("JVM is shutting down, stopping JanusGuard Agent");
             shutdown();
-        }));
+        }, "janusguard-shutdown"));
+    }
+    
+    /**
+     * 异步启动第一阶段：安装关键探针（命令执行、类加载）
+     * 在事件处理器就绪前，探针产生的事件暂存在{@link EventDispatcher}的启动前缓冲区中
+     *
+     * @param bootConfig 仅包含启动参数的配置
+     * @param inst Instrumentation实例
+     * @return 关键探针转换器，安装失败时返回null
+     */
+    private static ClassTransformer installCriticalProbes(AgentConfig bootConfig, Instrumentation inst) {
+        boolean guarded = ProbeGuard.enter();
+        try {
+            EventDispatcher.setPreStartCapacity(bootConfig.getInt("agent.bootstrap-buffer-size", 256));
+            ClassTransformer transformer = new ClassTransformer(bootConfig, inst, true);
+            inst.addTransformer(transformer, true);
+            transformer.retransformLoadedTargets();
+            logger.info("Critical probes installed, continuing initialization in background");
+            return transformer;
+        } catch (Exception e) {
+            logger.error("Failed to install critical probes", e);
+            return null;
+        } finally {
+            if (guarded) {
+                ProbeGuard.exit();
+            }
+        }
+    }
+    
+    /**
+     * 加载完整配置并启动Agent管理器
+     *
+     * @param agentArgs 命令行参数
+     * @param inst Instrumentation实例
+     * @param bootstrapTransformer 异步启动时已安装的关键探针转换器，同步启动时为null
+     */
+    private static void startAgent(String agentArgs, Instrumentation inst, ClassTransformer bootstrapTransformer) {
+        // 初始化配置
+        AgentConfig config = new AgentConfig();
+        config.initialize(agentArgs);
+        
+        synchronized (JanusAgent.class) {
+            if (shutdownRequested) {
+                logger.info("JVM is shutting down, skipping JanusGuard Agent start");
+                if (bootstrapTransformer != null) {
+                    inst.removeTransformer(bootstrapTransformer);
+                }
+                return;
+            }
+            
+            // 创建并启动Agent管理器
+            agentManager = new AgentManager(config, inst, bootstrapTransformer);
+            agentManager.start();
+        }
     }
     
     /**
      * 关闭Agent
      */
     public static synchronized void shutdown() {
+        shutdownRequested = true;
         if (agentManager != null) {
             try {
                 agentManager.stop();
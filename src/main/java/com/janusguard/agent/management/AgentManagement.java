@@ -0,0 +1,89 @@
+package com.janusguard.agent.management;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.transformer.ClassTransformer;
+import com.janusguard.transport.queue.EventQueue;
+import com.janusguard.transport.reporter.DataReporter;
+
+/**
+ * Agent管理接口注册
+ * 将管理接口注册到平台MBeanServer，Agent停止时注销：
+ * 探针开关（ProbeControl）、流水线指标（PipelineMetrics）、类转换指标（TransformerMetrics）
+ * 以及全部指标的只读视图（Metrics）
+ */
+public class AgentManagement {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AgentManagement.class);
+    
+    public static final String DOMAIN = "com.janusguard";
+    
+    private final EventQueue eventQueue;
+    private final DataReporter dataReporter;
+    private final ClassTransformer classTransformer;
+    
+    private final List<ObjectName> registered = new ArrayList<>();
+    
+    /**
+     * 构造函数
+     * 
+     * @param eventQueue 事件队列
+     * @param dataReporter 数据上报器
+     * @param classTransformer 类转换器
+     */
+    public AgentManagement(EventQueue eventQueue, DataReporter dataReporter, ClassTransformer classTransformer) {
+        this.eventQueue = eventQueue;
+        this.dataReporter = dataReporter;
+        this.classTransformer = classTransformer;
+    }
+    
+    /**
+     * 注册所有管理接口
+     */
+    public synchronized void register() {
+        register("ProbeControl", new ProbeControl());
+        register("PipelineMetrics", new PipelineMetrics(eventQueue, dataReporter));
+        register("TransformerMetrics", new TransformerMetrics(classTransformer));
+        register("Metrics", new MetricsRegistry());
+    }
+    
+    /**
+     * 注销已注册的管理接口
+     */
+    public synchronized void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to unregister MBean {}", name, e);
+            }
+        }
+        registered.clear();
+    }
+    
+    private void register(String type, Object mbean) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=" + type);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+            registered.add(name);
+            logger.info("Registered MBean {}", name);
+        } catch (Exception e) {
+            logger.warn("Failed to register MBean {}", type, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.janusguard.agent.management;
+
+import java.util.Map;
+
+import com.janusguard.common.metrics.AgentMetrics;
+
+/**
+ * 指标视图实现，委托给{@link AgentMetrics}
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+    
+    @Override
+    public Map<String, Long> getMetrics() {
+        return AgentMetrics.snapshot();
+    }
+    
+    @Override
+    public long getMetric(String name) {
+        return AgentMetrics.value(name);
+    }
+}
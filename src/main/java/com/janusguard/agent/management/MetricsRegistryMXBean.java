@@ -0,0 +1,24 @@
+package com.janusguard.agent.management;
+
+import java.util.Map;
+
+/**
+ * Agent全部自监控指标的只读视图
+ */
+public interface MetricsRegistryMXBean {
+    
+    /**
+     * 获取所有计数器和仪表的当前值
+     * 
+     * @return 指标名到值的有序映射
+     */
+    Map<String, Long> getMetrics();
+    
+    /**
+     * 获取单个指标的当前值
+     * 
+     * @param name 指标名，如pipeline.events-reported
+     * @return 当前值，不存在时为0
+     */
+    long getMetric(String name);
+}
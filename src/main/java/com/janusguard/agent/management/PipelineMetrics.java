@@ -0,0 +1,188 @@
+package com.janusguard.agent.management;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.transport.queue.EventLane;
+import com.janusguard.transport.queue.EventQueue;
+import com.janusguard.transport.reporter.DataReporter;
+
+/**
+ * 事件流水线监控实现
+ * 队列深度直接读取{@link EventQueue}，其余指标读取{@link AgentMetrics}中的计数器
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+    
+    // 速率的最小采样间隔
+    private static final long RATE_INTERVAL_NANOS = 1_000_000_000L;
+    
+    private final EventQueue eventQueue;
+    private final DataReporter dataReporter;
+    
+    private final Rate rawEnqueueRate = new Rate("pipeline.raw.enqueued");
+    private final Rate rawDequeueRate = new Rate("pipeline.raw.dequeued");
+    
+    /**
+     * 构造函数
+     * 
+     * @param eventQueue 事件队列
+     * @param dataReporter 数据上报器
+     */
+    public PipelineMetrics(EventQueue eventQueue, DataReporter dataReporter) {
+        this.eventQueue = eventQueue;
+        this.dataReporter = dataReporter;
+    }
+    
+    @Override
+    public int getRawQueueSize() {
+        return eventQueue.getRawQueueSize();
+    }
+    
+    @Override
+    public int getProcessedQueueSize() {
+        return eventQueue.getProcessedQueueSize();
+    }
+    
+    @Override
+    public Map<String, Integer> getRawQueueSizeByLane() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        for (EventLane lane : EventLane.values()) {
+            sizes.put(lane.name(), eventQueue.getRawQueueSize(lane));
+        }
+        return sizes;
+    }
+    
+    @Override
+    public Map<String, Integer> getProcessedQueueSizeByLane() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        for (EventLane lane : EventLane.values()) {
+            sizes.put(lane.name(), eventQueue.getProcessedQueueSize(lane));
+        }
+        return sizes;
+    }
+    
+    @Override
+    public long getRawEnqueued() {
+        return AgentMetrics.value("pipeline.raw.enqueued");
+    }
+    
+    @Override
+    public long getRawDequeued() {
+        return AgentMetrics.value("pipeline.raw.dequeued");
+    }
+    
+    @Override
+    public long getProcessedEnqueued() {
+        return AgentMetrics.value("pipeline.processed.enqueued");
+    }
+    
+    @Override
+    public long getProcessedDequeued() {
+        return AgentMetrics.value("pipeline.processed.dequeued");
+    }
+    
+    @Override
+    public double getRawEnqueueRate() {
+        return rawEnqueueRate.sample();
+    }
+    
+    @Override
+    public double getRawDequeueRate() {
+        return rawDequeueRate.sample();
+    }
+    
+    @Override
+    public Map<String, Long> getDroppedByReason() {
+        Map<String, Long> dropped = new LinkedHashMap<>();
+        for (EventLane lane : EventLane.values()) {
+            dropped.put("queue-full." + lane.name().toLowerCase(), eventQueue.getDroppedCount(lane));
+        }
+        dropped.put("pre-start-buffer-full", AgentMetrics.value("bootstrap.pre-start-dropped"));
+        dropped.put("processor-stopped", AgentMetrics.value("pipeline.dropped.processor-stopped"));
+        dropped.put("sink-error", AgentMetrics.value("pipeline.dropped.sink-error"));
+        return dropped;
+    }
+    
+    @Override
+    public long getEventsReported() {
+        return AgentMetrics.value("pipeline.events-reported");
+    }
+    
+    @Override
+    public long getBatchesFlushed() {
+        return AgentMetrics.value("pipeline.batches-flushed");
+    }
+    
+    @Override
+    public long getBatchesFailed() {
+        return AgentMetrics.value("pipeline.batches-failed");
+    }
+    
+    @Override
+    public double getAverageBatchSize() {
+        return ratio(getEventsReported(), getBatchesFlushed());
+    }
+    
+    @Override
+    public long getMaxBatchSize() {
+        return AgentMetrics.value("pipeline.batch-size-max");
+    }
+    
+    @Override
+    public double getAverageSinkWriteMillis() {
+        long batches = getBatchesFlushed() + getBatchesFailed();
+        return ratio(AgentMetrics.value("pipeline.sink.write-time-ns-total"), batches) / 1e6;
+    }
+    
+    @Override
+    public double getMaxSinkWriteMillis() {
+        return AgentMetrics.value("pipeline.sink.write-time-ns-max") / 1e6;
+    }
+    
+    @Override
+    public double getAverageReportLatencyMillis() {
+        return ratio(AgentMetrics.value("pipeline.report-latency-ms-total"), getEventsReported());
+    }
+    
+    @Override
+    public long getBytesWritten() {
+        return AgentMetrics.value("pipeline.sink.bytes-written");
+    }
+    
+    @Override
+    public void flush() {
+        dataReporter.flush();
+    }
+    
+    private static double ratio(long total, long count) {
+        return count > 0 ? (double) total / count : 0;
+    }
+    
+    /**
+     * 由计数器增量计算的速率
+     */
+    private static final class Rate {
+        private final String metric;
+        private long lastNanos = System.nanoTime();
+        private long lastValue;
+        private double rate;
+        
+        Rate(String metric) {
+            this.metric = metric;
+            this.lastValue = AgentMetrics.value(metric);
+        }
+        
+        synchronized double sample() {
+            long now = System.nanoTime();
+            long elapsed = now - lastNanos;
+            if (elapsed >= RATE_INTERVAL_NANOS) {
+                long value = AgentMetrics.value(metric);
+                rate = (value - lastValue) * 1e9 / elapsed;
+                lastValue = value;
+                lastNanos = now;
+            }
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.janusguard.agent.management;
+
+import java.util.Map;
+
+/**
+ * 事件流水线监控接口
+ * 提供从探针到输出端各阶段的队列深度、吞吐、丢弃和写出指标
+ */
+public interface PipelineMetricsMXBean {
+    
+    /**
+     * 获取原始队列中的事件数
+     * 
+     * @return 事件数
+     */
+    int getRawQueueSize();
+    
+    /**
+     * 获取已处理队列中的事件数
+     * 
+     * @return 事件数
+     */
+    int getProcessedQueueSize();
+    
+    /**
+     * 获取原始队列各通道的事件数
+     * 
+     * @return 通道名到事件数的映射
+     */
+    Map<String, Integer> getRawQueueSizeByLane();
+    
+    /**
+     * 获取已处理队列各通道的事件数
+     * 
+     * @return 通道名到事件数的映射
+     */
+    Map<String, Integer> getProcessedQueueSizeByLane();
+    
+    /**
+     * 获取累计进入原始队列的事件数
+     * 
+     * @return 事件数
+     */
+    long getRawEnqueued();
+    
+    /**
+     * 获取累计从原始队列取出的事件数
+     * 
+     * @return 事件数
+     */
+    long getRawDequeued();
+    
+    /**
+     * 获取累计进入已处理队列的事件数
+     * 
+     * @return 事件数
+     */
+    long getProcessedEnqueued();
+    
+    /**
+     * 获取累计从已处理队列取出的事件数
+     * 
+     * @return 事件数
+     */
+    long getProcessedDequeued();
+    
+    /**
+     * 获取原始队列的入队速率，按相邻两次读取（间隔至少1秒）之间的增量计算
+     * 
+     * @return 每秒事件数
+     */
+    double getRawEnqueueRate();
+    
+    /**
+     * 获取原始队列的出队速率，按相邻两次读取（间隔至少1秒）之间的增量计算
+     * 
+     * @return 每秒事件数
+     */
+    double getRawDequeueRate();
+    
+    /**
+     * 获取按原因分类的累计丢弃事件数
+     * 
+     * @return 丢弃原因到事件数的映射
+     */
+    Map<String, Long> getDroppedByReason();
+    
+    /**
+     * 获取累计上报的事件数
+     * 
+     * @return 事件数
+     */
+    long getEventsReported();
+    
+    /**
+     * 获取累计写出的批次数
+     * 
+     * @return 批次数
+     */
+    long getBatchesFlushed();
+    
+    /**
+     * 获取写出失败的批次数
+     * 
+     * @return 批次数
+     */
+    long getBatchesFailed();
+    
+    /**
+     * 获取平均批次大小
+     * 
+     * @return 每批事件数
+     */
+    double getAverageBatchSize();
+    
+    /**
+     * 获取最大批次大小
+     * 
+     * @return 事件数
+     */
+    long getMaxBatchSize();
+    
+    /**
+     * 获取输出端单批平均写出耗时
+     * 
+     * @return 毫秒
+     */
+    double getAverageSinkWriteMillis();
+    
+    /**
+     * 获取输出端单批最大写出耗时
+     * 
+     * @return 毫秒
+     */
+    double getMaxSinkWriteMillis();
+    
+    /**
+     * 获取事件从产生到写出的平均耗时
+     * 
+     * @return 毫秒
+     */
+    double getAverageReportLatencyMillis();
+    
+    /**
+     * 获取输出端累计写出的字节数
+     * 
+     * @return 字节数
+     */
+    long getBytesWritten();
+    
+    /**
+     * 立即写出上报器缓冲区中的事件
+     */
+    void flush();
+}
@@ -0,0 +1,68 @@
+package com.janusguard.agent.management;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.monitor.MonitorType;
+import com.janusguard.core.monitor.ProbeSwitches;
+
+/**
+ * 探针开关管理实现，委托给{@link ProbeSwitches}
+ */
+public class ProbeControl implements ProbeControlMXBean {
+    
+    @Override
+    public Map<String, Boolean> getProbeStates() {
+        Map<String, Boolean> states = new LinkedHashMap<>();
+        for (MonitorType type : MonitorType.values()) {
+            states.put(type.getId(), ProbeSwitches.isEnabled(type));
+        }
+        return states;
+    }
+    
+    @Override
+    public boolean isProbeEnabled(String monitor) {
+        return ProbeSwitches.isEnabled(resolve(monitor));
+    }
+    
+    @Override
+    public void setProbeEnabled(String monitor, boolean enabled) {
+        ProbeSwitches.setEnabled(resolve(monitor), enabled);
+    }
+    
+    @Override
+    public Map<String, Long> getProbeCalls() {
+        Map<String, Long> calls = new LinkedHashMap<>();
+        for (MonitorType type : MonitorType.values()) {
+            calls.put(type.getId(), AgentMetrics.value(type.getCallsMetric()));
+        }
+        return calls;
+    }
+    
+    @Override
+    public Map<String, Long> getProbeOverheadPercentile(double percentile) {
+        Map<String, Long> overhead = new LinkedHashMap<>();
+        for (MonitorType type : MonitorType.values()) {
+            overhead.put(type.getId(), AgentMetrics.histogram(type.getOverheadMetric()).getValueAtPercentile(percentile));
+        }
+        return overhead;
+    }
+    
+    @Override
+    public Map<String, Long> getProbeOperationPercentile(double percentile) {
+        Map<String, Long> operation = new LinkedHashMap<>();
+        for (MonitorType type : MonitorType.values()) {
+            operation.put(type.getId(), AgentMetrics.histogram(type.getOperationMetric()).getValueAtPercentile(percentile));
+        }
+        return operation;
+    }
+    
+    private static MonitorType resolve(String monitor) {
+        MonitorType type = MonitorType.fromString(monitor);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown monitor: " + monitor);
+        }
+        return type;
+    }
+}
@@ -0,0 +1,56 @@
+package com.janusguard.agent.management;
+
+import java.util.Map;
+
+/**
+ * 探针开关管理接口
+ * 通过JMX在运行时开启或关闭已植入的探针，无需修改配置或重启
+ */
+public interface ProbeControlMXBean {
+    
+    /**
+     * 获取所有监控的探针开关状态
+     * 
+     * @return 监控标识到是否开启的映射
+     */
+    Map<String, Boolean> getProbeStates();
+    
+    /**
+     * 查询指定监控的探针是否开启
+     * 
+     * @param monitor 监控标识，如command-execution
+     * @return 是否开启
+     */
+    boolean isProbeEnabled(String monitor);
+    
+    /**
+     * 开启或关闭指定监控的探针
+     * 
+     * @param monitor 监控标识，如command-execution
+     * @param enabled 是否开启
+     */
+    void setProbeEnabled(String monitor, boolean enabled);
+    
+    /**
+     * 获取各监控探针的累计调用次数（开关关闭或重入时的调用不计入）
+     * 
+     * @return 监控标识到调用次数的映射
+     */
+    Map<String, Long> getProbeCalls();
+    
+    /**
+     * 获取各监控探针自身开销的分位值（探针从进入到返回的耗时减去原始方法的耗时）
+     * 
+     * @param percentile 百分位，如99
+     * @return 监控标识到分位开销的映射，单位纳秒
+     */
+    Map<String, Long> getProbeOverheadPercentile(double percentile);
+    
+    /**
+     * 获取各监控探针所拦截的原始方法耗时的分位值
+     * 
+     * @param percentile 百分位，如99
+     * @return 监控标识到分位耗时的映射，单位纳秒
+     */
+    Map<String, Long> getProbeOperationPercentile(double percentile);
+}
@@ -0,0 +1,105 @@
+package com.janusguard.agent.management;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.core.context.AgentExecutors;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Prometheus指标端点
+ * 基于JDK自带的{@code com.sun.net.httpserver}，只绑定本机回环地址，在/metrics路径上提供Agent自监控指标。
+ * 请求由单个Agent线程处理，抓取本身的I/O不会触发探针
+ */
+public class PrometheusEndpoint {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusEndpoint.class);
+    
+    private static final String PATH = "/metrics";
+    
+    private final int port;
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    /**
+     * 构造函数
+     *
+     * @param config Agent配置
+     */
+    public PrometheusEndpoint(AgentConfig config) {
+        this.port = config.getInt("management.prometheus.port", 9464);
+    }
+    
+    /**
+     * 启动端点，端口被占用等错误只记录日志，不影响Agent启动
+     */
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        try {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            server = HttpServer.create(address, 0);
+            server.createContext(PATH, this::handle);
+            executor = AgentExecutors.newSingleThreadExecutor("janusguard-metrics-http");
+            server.setExecutor(executor);
+            server.start();
+            logger.info("Prometheus metrics endpoint listening on http://{}:{}{}",
+                    address.getHostString(), server.getAddress().getPort(), PATH);
+        } catch (IOException e) {
+            logger.warn("Failed to start Prometheus metrics endpoint on port {}", port, e);
+            stop();
+        }
+    }
+    
+    /**
+     * 停止端点
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            
+            byte[] body = PrometheusTextFormat.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusTextFormat.CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to render Prometheus metrics", e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.janusguard.agent.management;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.common.metrics.LatencyHistogram;
+
+/**
+ * Prometheus文本格式（0.0.4）渲染
+ * 每次抓取时直接读取{@link AgentMetrics}中的分段计数器、仪表和直方图，不对流水线加锁。
+ * 指标名统一加janusguard_前缀，点和连字符替换为下划线；
+ * probe.&lt;监控&gt;.xxx形式的探针指标合并为一个指标族，以probe标签区分监控。
+ * 另外附带JVM垃圾回收统计以及Agent自有线程的CPU时间和分配字节数，用于评估Agent对GC的影响
+ */
+final class PrometheusTextFormat {
+    
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private static final String PREFIX = "janusguard_";
+    
+    private static final String PROBE_PREFIX = "probe.";
+    
+    // Agent自有线程的线程名前缀
+    private static final String AGENT_THREAD_PREFIX = "janusguard-";
+    
+    // 直方图的桶上界：2^10到2^34纳秒（约1微秒到17秒），每档4倍
+    private static final long[] BUCKET_BOUNDS_NS = new long[13];
+    
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_NS.length; i++) {
+            BUCKET_BOUNDS_NS[i] = 1L << (10 + 2 * i);
+        }
+    }
+    
+    // 禁止实例化
+    private PrometheusTextFormat() {
+    }
+    
+    /**
+     * 渲染当前全部指标
+     *
+     * @return Prometheus文本格式的指标
+     */
+    static String render() {
+        Map<String, Family> families = new TreeMap<>();
+        
+        for (Map.Entry<String, Long> entry : AgentMetrics.counters().entrySet()) {
+            Sample sample = sample(entry.getKey());
+            String name = sample.name.endsWith("_total") ? sample.name : sample.name + "_total";
+            family(families, name, "counter").add(name, sample.labels, Long.toString(entry.getValue()));
+        }
+        for (Map.Entry<String, Long> entry : AgentMetrics.gauges().entrySet()) {
+            Sample sample = sample(entry.getKey());
+            family(families, sample.name, "gauge").add(sample.name, sample.labels, Long.toString(entry.getValue()));
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : AgentMetrics.histograms().entrySet()) {
+            String metric = entry.getKey();
+            Sample sample = sample(metric.endsWith("-ns") ? metric.substring(0, metric.length() - 3) : metric);
+            String name = sample.name + "_seconds";
+            addHistogram(family(families, name, "histogram"), name, sample.labels, entry.getValue());
+        }
+        addGarbageCollection(families);
+        addAgentThreads(families);
+        
+        StringBuilder out = new StringBuilder(8192);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            out.append("# TYPE ").append(entry.getKey()).append(' ').append(entry.getValue().type).append('\n');
+            for (String line : entry.getValue().lines) {
+                out.append(line).append('\n');
+            }
+        }
+        return out.toString();
+    }
+    
+    private static void addHistogram(Family family, String name, String labels, LatencyHistogram histogram) {
+        // 先读总数，各桶在其后读取，保证累计值不超过+Inf桶
+        long count = histogram.getCount();
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        for (long bound : BUCKET_BOUNDS_NS) {
+            family.add(name + "_bucket", separator + "le=\"" + seconds(bound) + "\"",
+                    Long.toString(Math.min(count, histogram.countAtOrBelow(bound))));
+        }
+        family.add(name + "_bucket", separator + "le=\"+Inf\"", Long.toString(count));
+        family.add(name + "_sum", labels, seconds(histogram.getSum()));
+        family.add(name + "_count", labels, Long.toString(count));
+    }
+    
+    private static void addGarbageCollection(Map<String, Family> families) {
+        Family collections = family(families, PREFIX + "jvm_gc_collections_total", "counter");
+        Family time = family(families, PREFIX + "jvm_gc_collection_seconds_total", "counter");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc.getCollectionCount() < 0) {
+                continue;
+            }
+            String labels = "gc=\"" + escape(gc.getName()) + "\"";
+            collections.add(collections.name, labels, Long.toString(gc.getCollectionCount()));
+            time.add(time.name, labels, seconds(gc.getCollectionTime() * 1_000_000L));
+        }
+    }
+    
+    /**
+     * Agent线程的资源占用，按线程名前缀识别，只统计仍存活的线程
+     */
+    private static void addAgentThreads(Map<String, Family> families) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpu = threads.isThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+        com.sun.management.ThreadMXBean hotspot = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        boolean allocation = hotspot != null && hotspot.isThreadAllocatedMemorySupported()
+                && hotspot.isThreadAllocatedMemoryEnabled();
+        
+        List<Long> ids = new ArrayList<>();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith(AGENT_THREAD_PREFIX)) {
+                ids.add(info.getThreadId());
+            }
+        }
+        
+        long cpuNanos = 0;
+        long allocatedBytes = 0;
+        for (long id : ids) {
+            if (cpu) {
+                cpuNanos += Math.max(0, threads.getThreadCpuTime(id));
+            }
+            if (allocation) {
+                allocatedBytes += Math.max(0, hotspot.getThreadAllocatedBytes(id));
+            }
+        }
+        
+        String name = PREFIX + "agent_threads";
+        family(families, name, "gauge").add(name, "", Integer.toString(ids.size()));
+        if (cpu) {
+            name = PREFIX + "agent_threads_cpu_seconds";
+            family(families, name, "gauge").add(name, "", seconds(cpuNanos));
+        }
+        if (allocation) {
+            name = PREFIX + "agent_threads_allocated_bytes";
+            family(families, name, "gauge").add(name, "", Long.toString(allocatedBytes));
+        }
+    }
+    
+    private static Family family(Map<String, Family> families, String name, String type) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = new Family(name, type);
+            families.put(name, family);
+        }
+        return family;
+    }
+    
+    /**
+     * 把点分隔的指标名转换为Prometheus指标名和标签
+     */
+    private static Sample sample(String metric) {
+        String labels = "";
+        if (metric.startsWith(PROBE_PREFIX)) {
+            int end = metric.indexOf('.', PROBE_PREFIX.length());
+            if (end > 0) {
+                labels = "probe=\"" + escape(metric.substring(PROBE_PREFIX.length(), end)) + "\"";
+                metric = "probe" + metric.substring(end);
+            }
+        }
+        StringBuilder name = new StringBuilder(PREFIX.length() + metric.length()).append(PREFIX);
+        for (int i = 0; i < metric.length(); i++) {
+            char c = metric.charAt(i);
+            name.append(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' ? c : '_');
+        }
+        return new Sample(name.toString(), labels);
+    }
+    
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    private static final class Sample {
+        final String name;
+        final String labels;
+        
+        Sample(String name, String labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+    }
+    
+    /**
+     * 同名指标族：Prometheus要求同一指标的所有样本连续出现且只有一行TYPE
+     */
+    private static final class Family {
+        final String name;
+        final String type;
+        final List<String> lines = new ArrayList<>();
+        
+        Family(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+        
+        void add(String sampleName, String labels, String value) {
+            lines.add(labels.isEmpty() ? sampleName + " " + value : sampleName + "{" + labels + "} " + value);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.janusguard.agent.management;
+
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.transformer.ClassTransformer;
+
+/**
+ * 类转换监控实现
+ */
+public class TransformerMetrics implements TransformerMetricsMXBean {
+    
+    private final ClassTransformer classTransformer;
+    
+    /**
+     * 构造函数
+     * 
+     * @param classTransformer 类转换器
+     */
+    public TransformerMetrics(ClassTransformer classTransformer) {
+        this.classTransformer = classTransformer;
+    }
+    
+    @Override
+    public long getClassesTransformed() {
+        return AgentMetrics.value("transformer.classes-transformed");
+    }
+    
+    @Override
+    public long getTransformErrors() {
+        return AgentMetrics.value("transformer.errors");
+    }
+    
+    @Override
+    public double getAverageTransformMillis() {
+        long classes = AgentMetrics.value("transformer.classes-discovered");
+        return classes > 0 ? AgentMetrics.value("transformer.transform-time-ns-total") / 1e6 / classes : 0;
+    }
+    
+    @Override
+    public double getMaxTransformMillis() {
+        return AgentMetrics.value("transformer.transform-time-ns-max") / 1e6;
+    }
+    
+    @Override
+    public int getTypePoolCacheSize() {
+        return classTransformer.getTypePoolCacheSize();
+    }
+    
+    @Override
+    public double getTypePoolCacheHitRatio() {
+        long hits = AgentMetrics.value("transformer.type-pool.hits");
+        long total = hits + AgentMetrics.value("transformer.type-pool.misses");
+        return total > 0 ? (double) hits / total : 0;
+    }
+    
+    @Override
+    public long getRetransformPending() {
+        return AgentMetrics.value("transformer.retransform.pending");
+    }
+    
+    @Override
+    public void clearTypePoolCache() {
+        classTransformer.clearTypePoolCache();
+    }
+}
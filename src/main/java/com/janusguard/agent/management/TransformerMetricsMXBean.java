@@ -0,0 +1,61 @@
+package com.janusguard.agent.management;
+
+/**
+ * 类转换监控接口
+ */
+public interface TransformerMetricsMXBean {
+    
+    /**
+     * 获取已植入探针的类数量
+     * 
+     * @return 类数量
+     */
+    long getClassesTransformed();
+    
+    /**
+     * 获取转换失败次数
+     * 
+     * @return 失败次数
+     */
+    long getTransformErrors();
+    
+    /**
+     * 获取单个类的平均处理耗时
+     * 
+     * @return 毫秒
+     */
+    double getAverageTransformMillis();
+    
+    /**
+     * 获取单个类的最大处理耗时
+     * 
+     * @return 毫秒
+     */
+    double getMaxTransformMillis();
+    
+    /**
+     * 获取类型描述缓存的条目数
+     * 
+     * @return 条目数，缓存禁用时为0
+     */
+    int getTypePoolCacheSize();
+    
+    /**
+     * 获取类型描述缓存命中率
+     * 
+     * @return 0到1之间的命中率
+     */
+    double getTypePoolCacheHitRatio();
+    
+    /**
+     * 获取等待重新转换的类数量
+     * 
+     * @return 类数量
+     */
+    long getRetransformPending();
+    
+    /**
+     * 清空类型描述缓存
+     */
+    void clearTypePoolCache();
+}
@@ -0,0 +1,155 @@
+package com.janusguard.bootstrap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.Callable;
+
+import net.bytebuddy.implementation.bind.annotation.AllArguments;
+import net.bytebuddy.implementation.bind.annotation.Origin;
+import net.bytebuddy.implementation.bind.annotation.RuntimeType;
+import net.bytebuddy.implementation.bind.annotation.SuperCall;
+import net.bytebuddy.implementation.bind.annotation.This;
+
+/**
+ * 探针分发器
+ * 本类由Agent在启动时放入引导类加载器的搜索路径，被植入探针的java.*类型直接调用这里的静态方法，
+ * 不再需要从引导类加载器解析Agent类加载器中的拦截器。
+ * 每种探针对应一个{@link MutableCallSite}，Agent通过{@link #install(int, MethodHandle)}把拦截器链接进来；
+ * 调用点的句柄保存在static final字段中，JIT可以把到拦截器的调用内联为直接调用。
+ * 未链接或已卸载的探针直接执行原始方法。
+ * 
+ * 注意：本类只能依赖JDK类型（注解只在植入时由ByteBuddy读取，运行时不需要加载），
+ * 也不能在放入引导类加载器之前被Agent类加载器加载
+ */
+public final class ProbeDispatcher {
+    
+    // 探针编号，与拦截器一一对应
+    public static final int COMMAND_EXECUTION = 0;
+    public static final int FILE_OPERATIONS = 1;
+    public static final int REFLECTION = 2;
+    public static final int CLASS_LOADING = 3;
+    public static final int UNSAFE = 4;
+    public static final int DYNAMIC_PROXY = 5;
+    public static final int JNI = 6;
+    
+    private static final int PROBE_COUNT = 7;
+    
+    /**
+     * 拦截器句柄的类型：(目标对象, 被拦截的方法, 参数, 原始方法调用) -> 返回值
+     */
+    public static final MethodType PROBE_TYPE = MethodType.methodType(
+            Object.class, Object.class, Method.class, Object[].class, Callable.class);
+    
+    private static final MethodHandle PASS_THROUGH;
+    
+    private static final MutableCallSite[] SITES = new MutableCallSite[PROBE_COUNT];
+    
+    static {
+        try {
+            PASS_THROUGH = MethodHandles.lookup().findStatic(ProbeDispatcher.class, "passThrough", PROBE_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        for (int i = 0; i < PROBE_COUNT; i++) {
+            SITES[i] = new MutableCallSite(PASS_THROUGH);
+        }
+    }
+    
+    private static final MethodHandle COMMAND_EXECUTION_PROBE = SITES[COMMAND_EXECUTION].dynamicInvoker();
+    private static final MethodHandle FILE_OPERATIONS_PROBE = SITES[FILE_OPERATIONS].dynamicInvoker();
+    private static final MethodHandle REFLECTION_PROBE = SITES[REFLECTION].dynamicInvoker();
+    private static final MethodHandle CLASS_LOADING_PROBE = SITES[CLASS_LOADING].dynamicInvoker();
+    private static final MethodHandle UNSAFE_PROBE = SITES[UNSAFE].dynamicInvoker();
+    private static final MethodHandle DYNAMIC_PROXY_PROBE = SITES[DYNAMIC_PROXY].dynamicInvoker();
+    private static final MethodHandle JNI_PROBE = SITES[JNI].dynamicInvoker();
+    
+    // 禁止实例化
+    private ProbeDispatcher() {
+    }
+    
+    /**
+     * 把拦截器链接到指定探针
+     * 
+     * @param probe 探针编号
+     * @param interceptor 类型为{@link #PROBE_TYPE}的拦截器句柄
+     */
+    public static void install(int probe, MethodHandle interceptor) {
+        relink(probe, interceptor.asType(PROBE_TYPE));
+    }
+    
+    /**
+     * 断开指定探针，之后被植入的方法直接执行原始逻辑
+     * 
+     * @param probe 探针编号
+     */
+    public static void uninstall(int probe) {
+        relink(probe, PASS_THROUGH);
+    }
+    
+    private static synchronized void relink(int probe, MethodHandle target) {
+        MutableCallSite site = SITES[probe];
+        site.setTarget(target);
+        MutableCallSite.syncAll(new MutableCallSite[] {site});
+    }
+    
+    @RuntimeType
+    public static Object commandExecution(@This(optional = true) Object self, @Origin Method origin,
+                                          @AllArguments Object[] args, @SuperCall Callable<?> superCall) throws Exception {
+        return dispatch(COMMAND_EXECUTION_PROBE, self, origin, args, superCall);
+    }
+    
+    @RuntimeType
+    public static Object fileOperations(@This(optional = true) Object self, @Origin Method origin,
+                                        @AllArguments Object[] args, @SuperCall Callable<?> superCall) throws Exception {
+        return dispatch(FILE_OPERATIONS_PROBE, self, origin, args, superCall);
+    }
+    
+    @RuntimeType
+    public static Object reflection(@This(optional = true) Object self, @Origin Method origin,
+                                    @AllArguments Object[] args, @SuperCall Callable<?> superCall) throws Exception {
+        return dispatch(REFLECTION_PROBE, self, origin, args, superCall);
+    }
+    
+    @RuntimeType
+    public static Object classLoading(@This(optional = true) Object self, @Origin Method origin,
+                                      @AllArguments Object[] args, @SuperCall Callable<?> superCall) throws Exception {
+        return dispatch(CLASS_LOADING_PROBE, self, origin, args, superCall);
+    }
+    
+    @RuntimeType
+    public static Object unsafe(@This(optional = true) Object self, @Origin Method origin,
+                                @AllArguments Object[] args, @SuperCall Callable<?> superCall) throws Exception {
+        return dispatch(UNSAFE_PROBE, self, origin, args, superCall);
+    }
+    
+    @RuntimeType
+    public static Object dynamicProxy(@This(optional = true) Object self, @Origin Method origin,
+                                      @AllArguments Object[] args, @SuperCall Callable<?> superCall) throws Exception {
+        return dispatch(DYNAMIC_PROXY_PROBE, self, origin, args, superCall);
+    }
+    
+    @RuntimeType
+    public static Object jni(@This(optional = true) Object self, @Origin Method origin,
+                             @AllArguments Object[] args, @SuperCall Callable<?> superCall) throws Exception {
+        return dispatch(JNI_PROBE, self, origin, args, superCall);
+    }
+    
+    private static Object dispatch(MethodHandle probe, Object self, Method origin,
+                                   Object[] args, Callable<?> superCall) throws Exception {
+        try {
+            return (Object) probe.invokeExact(self, origin, args, superCall);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+    
+    private static Object passThrough(Object self, Method origin, Object[] args, Callable<?> superCall) throws Exception {
+        return superCall.call();
+    }
+}
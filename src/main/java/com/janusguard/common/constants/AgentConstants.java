@@ -72,6 +72,31 @@ public final class AgentConstants {
         public static final String THREAD_NAME = "thread_name";
         public static final String THREAD_ID = "thread_id";
         
+        // 探针耗时字段，单位纳秒
+        public static final String EXECUTION_TIME_NS = "execution_time_ns";
+        public static final String PROBE_OVERHEAD_NS = "probe_overhead_ns";
+        
+        // 告警窗口字段，值为打开窗口的触发事件ID
+        public static final String ALERT_WINDOW = "alert_window";
+        
+        // 攻击链关联字段，值为模式名称和链上第一个事件的ID
+        public static final String CORRELATION_PATTERN = "correlation_pattern";
+        public static final String CORRELATION_START_EVENT = "correlation_start_event";
+        
+        // 去重汇总字段，值为窗口内被抑制的次数和窗口内第一个事件的ID
+        public static final String REPEAT_COUNT = "repeat_count";
+        public static final String REPEAT_OF = "repeat_of";
+        
+        // 遥测汇总字段：统计周期、记录次数、不同值个数估计和高频值列表
+        public static final String SUMMARY_START = "summary_start";
+        public static final String SUMMARY_END = "summary_end";
+        public static final String SUMMARY_TOTAL = "summary_total";
+        public static final String SUMMARY_DISTINCT = "summary_distinct";
+        public static final String SUMMARY_TOP = "summary_top";
+        
+        // defineClass基线执行期内未命中基线的类加载事件
+        public static final String BASELINE_DEVIATION = "baseline_deviation";
+        
         // 命令执行字段
         public static final String COMMAND = "command";
         public static final String COMMAND_ARGS = "command_args";
@@ -111,11 +136,17 @@ public final class AgentConstants {
         // Agent配置
         public static final String AGENT_ENABLED = "agent.enabled";
         public static final String AGENT_LOG_LEVEL = "agent.log-level";
+        public static final String AGENT_BOOTSTRAP = "agent.bootstrap";
+        public static final String AGENT_BOOTSTRAP_BUFFER_SIZE = "agent.bootstrap-buffer-size";
         
         // 转换器配置
-        public static final String TRANSFORMER_CACHE_SIZE = "transformer.cache-size";
-        public static final String TRANSFORMER_EXCLUDED_PACKAGES = "transformer.excluded-packages";
-        public static final String TRANSFORMER_INCLUDED_PACKAGES = "transformer.included-packages";
+        public static final String TRANSFORMER_TYPE_POOL_CACHE_ENABLED = "transformer.type-pool-cache.enabled";
+        public static final String TRANSFORMER_TYPE_POOL_CACHE_MAX_SIZE = "transformer.type-pool-cache.max-size";
+        public static final String TRANSFORMER_DESCRIPTION_STRATEGY = "transformer.description-strategy";
+        public static final String TRANSFORMER_RETRANSFORM_MODE = "transformer.retransform.mode";
+        public static final String TRANSFORMER_RETRANSFORM_BATCH_SIZE = "transformer.retransform.batch-size";
+        public static final String TRANSFORMER_RETRANSFORM_INTERVAL_MS = "transformer.retransform.interval-ms";
+        public static final String TRANSFORMER_RETRANSFORM_MAX_PAUSE_MS = "transformer.retransform.max-pause-ms";
         
         // 监控点配置
         public static final String MONITOR_COMMAND_EXECUTION_ENABLED = "monitors.command-execution.enabled";
@@ -133,11 +164,56 @@ public final class AgentConstants {
         public static final String EVENT_QUEUE_SIZE = "event-processing.queue-size";
         public static final String EVENT_BATCH_SIZE = "event-processing.batch-size";
         public static final String EVENT_FLUSH_INTERVAL = "event-processing.flush-interval-ms";
+        public static final String EVENT_PIPELINE = "event-processing.pipeline";
+        public static final String EVENT_LANES_DRAIN_POLICY = "event-processing.lanes.drain-policy";
+        public static final String EVENT_LANES_WEIGHTS = "event-processing.lanes.weights";
+        public static final String EVENT_LANES_TYPE_PROMOTIONS = "event-processing.lanes.type-promotions";
+        public static final String EVENT_RAW_QUEUE_MODE = "event-processing.raw-queue.mode";
+        public static final String EVENT_RAW_QUEUE_RING_SIZE = "event-processing.raw-queue.ring-size";
+        public static final String EVENT_RAW_QUEUE_MAX_PARK_US = "event-processing.raw-queue.max-park-us";
+        public static final String EVENT_EXPRESS_FLUSH_ENABLED = "event-processing.express-flush.enabled";
+        public static final String EVENT_EXPRESS_FLUSH_MIN_SEVERITY = "event-processing.express-flush.min-severity";
+        
+        // 攻击链关联配置
+        public static final String RULES_CORRELATION_ENABLED = "rules.correlation.enabled";
+        public static final String RULES_CORRELATION_WINDOW_MS = "rules.correlation.window-ms";
+        public static final String RULES_CORRELATION_MAX_THREADS = "rules.correlation.max-threads";
+        public static final String RULES_CORRELATION_SEVERITY = "rules.correlation.severity";
+        public static final String RULES_CORRELATION_PATTERNS = "rules.correlation.patterns";
+        
+        // defineClass基线配置
+        public static final String RULES_CLASS_DEFINE_BASELINE_ENABLED = "rules.class-define-baseline.enabled";
+        public static final String RULES_CLASS_DEFINE_BASELINE_LEARNING_SEC = "rules.class-define-baseline.learning-sec";
+        public static final String RULES_CLASS_DEFINE_BASELINE_PATH = "rules.class-define-baseline.path";
+        public static final String RULES_CLASS_DEFINE_BASELINE_MAX_ENTRIES = "rules.class-define-baseline.max-entries";
         
         // 上报配置
         public static final String REPORTING_ENABLED = "reporting.enabled";
         public static final String REPORTING_MODE = "reporting.mode";
         public static final String REPORTING_FILE_PATH = "reporting.file.path";
+        public static final String REPORTING_EXECUTOR = "reporting.executor";
+        public static final String REPORTING_MAX_IN_FLIGHT_BATCHES = "reporting.max-in-flight-batches";
+        public static final String REPORTING_ALERT_WINDOW_ENABLED = "reporting.alert-window.enabled";
+        public static final String REPORTING_ALERT_WINDOW_BUFFERED_TYPES = "reporting.alert-window.buffered-types";
+        public static final String REPORTING_ALERT_WINDOW_TRIGGER_TYPES = "reporting.alert-window.trigger-types";
+        public static final String REPORTING_ALERT_WINDOW_TRIGGER_SEVERITY = "reporting.alert-window.trigger-severity";
+        public static final String REPORTING_ALERT_WINDOW_BEFORE_MS = "reporting.alert-window.before-ms";
+        public static final String REPORTING_ALERT_WINDOW_AFTER_MS = "reporting.alert-window.after-ms";
+        public static final String REPORTING_ALERT_WINDOW_MAX_KB = "reporting.alert-window.max-kb";
+        public static final String REPORTING_DEDUP_ENABLED = "reporting.dedup.enabled";
+        public static final String REPORTING_DEDUP_WINDOW_MS = "reporting.dedup.window-ms";
+        public static final String REPORTING_DEDUP_MAX_KEYS = "reporting.dedup.max-keys";
+        
+        // 遥测汇总配置
+        public static final String ANALYTICS_ENABLED = "analytics.enabled";
+        public static final String ANALYTICS_INTERVAL_SEC = "analytics.interval-sec";
+        public static final String ANALYTICS_TOP_K = "analytics.top-k";
+        public static final String ANALYTICS_FIELDS = "analytics.fields";
+        
+        // 管理接口配置
+        public static final String MANAGEMENT_JMX_ENABLED = "management.jmx.enabled";
+        public static final String MANAGEMENT_PROMETHEUS_ENABLED = "management.prometheus.enabled";
+        public static final String MANAGEMENT_PROMETHEUS_PORT = "management.prometheus.port";
     }
     
     /**
@@ -2,6 +2,8 @@ package com.janusguard.common.logging;
 
 import org.slf4j.Logger;
 
+import com.janusguard.common.platform.StackCapture;
+
 /**
  * 日志工具类
  * 提供一些常用的日志操作方法
@@ -160,7 +162,30 @@ public final class LogUtils {
      * @return 格式化后的调用堆栈字符串
      */
     public static String getStackTrace(int skipDepth, int maxDepth) {
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+        return formatStackTrace(Thread.currentThread().getStackTrace(), skipDepth, maxDepth);
+    }
+    
+    /**
+     * 采集当前线程的原始调用堆栈，不做格式化
+     * 只采集需要的栈帧，JDK 9及以上使用StackWalker，不必遍历整个调用栈
+     * 
+     * @param skipDepth 从调用方开始要跳过的栈帧数，0表示从调用方开始
+     * @param maxDepth 最多采集的栈帧数
+     * @return 原始栈帧，下标0为跳过之后的第一帧
+     */
+    public static StackTraceElement[] captureStackTrace(int skipDepth, int maxDepth) {
+        return StackCapture.capture(skipDepth + 1, maxDepth);
+    }
+    
+    /**
+     * 将原始栈帧格式化为调用堆栈字符串
+     * 
+     * @param stackTrace 原始栈帧
+     * @param skipDepth 要跳过的栈帧深度
+     * @param maxDepth 最大栈帧深度
+     * @return 格式化后的调用堆栈字符串
+     */
+    public static String formatStackTrace(StackTraceElement[] stackTrace, int skipDepth, int maxDepth) {
         StringBuilder sb = new StringBuilder();
         
         int startIndex = Math.min(skipDepth, stackTrace.length - 1);
@@ -0,0 +1,139 @@
+package com.janusguard.common.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Agent自监控指标注册表
+ * 计数器基于{@link LongAdder}按线程分段累加，热点路径上的递增不会相互竞争。
+ * 调用方应在静态字段中持有计数器引用，避免在热点路径上查找。
+ * 瞬时值（如缓存大小）以仪表形式注册，读取快照时才求值；耗时分布以{@link LatencyHistogram}记录
+ */
+public final class AgentMetrics {
+    
+    private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    
+    // 禁止实例化
+    private AgentMetrics() {
+    }
+    
+    /**
+     * 获取或创建计数器
+     * 
+     * @param name 指标名，点分隔
+     * @return 计数器
+     */
+    public static LongAdder counter(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        if (counter == null) {
+            LongAdder created = new LongAdder();
+            counter = COUNTERS.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+    
+    /**
+     * 注册仪表，同名仪表会被替换
+     * 
+     * @param name 指标名，点分隔
+     * @param supplier 取值函数
+     */
+    public static void gauge(String name, LongSupplier supplier) {
+        GAUGES.put(name, supplier);
+    }
+    
+    /**
+     * 获取或创建耗时直方图
+     * 
+     * @param name 指标名，点分隔，以-ns结尾
+     * @return 直方图
+     */
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = HISTOGRAMS.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = HISTOGRAMS.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+    
+    /**
+     * 获取单个指标的当前值
+     * 
+     * @param name 指标名
+     * @return 计数器或仪表的当前值，不存在时返回0
+     */
+    public static long value(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        if (counter != null) {
+            return counter.sum();
+        }
+        LongSupplier gauge = GAUGES.get(name);
+        return gauge != null ? gauge.getAsLong() : 0;
+    }
+    
+    /**
+     * 获取所有指标的当前值，直方图展开为次数、总和与最大值
+     * 
+     * @return 指标名到值的有序映射
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        snapshot.putAll(counters());
+        snapshot.putAll(gauges());
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            snapshot.put(entry.getKey() + ".count", histogram.getCount());
+            snapshot.put(entry.getKey() + ".sum", histogram.getSum());
+            snapshot.put(entry.getKey() + ".max", histogram.getMax());
+        }
+        return snapshot;
+    }
+    
+    /**
+     * 获取所有计数器的当前值
+     * 
+     * @return 指标名到值的有序映射
+     */
+    public static Map<String, Long> counters() {
+        Map<String, Long> counters = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            counters.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counters;
+    }
+    
+    /**
+     * 获取所有仪表的当前值
+     * 
+     * @return 指标名到值的有序映射
+     */
+    public static Map<String, Long> gauges() {
+        Map<String, Long> gauges = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> entry : GAUGES.entrySet()) {
+            gauges.put(entry.getKey(), entry.getValue().getAsLong());
+        }
+        return gauges;
+    }
+    
+    /**
+     * 获取所有直方图
+     * 
+     * @return 指标名到直方图的有序映射
+     */
+    public static Map<String, LatencyHistogram> histograms() {
+        return new TreeMap<>(HISTOGRAMS);
+    }
+}
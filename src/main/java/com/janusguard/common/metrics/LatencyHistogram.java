@@ -0,0 +1,162 @@
+package com.janusguard.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 纳秒耗时直方图
+ * 桶按对数-线性划分：每个2的幂区间再等分为{@value #SUB_BUCKETS}个子桶，相对误差不超过1/{@value #SUB_BUCKETS}，
+ * 覆盖1纳秒到约18分钟，超出部分计入最后一个桶。
+ * 每个桶是一个{@link LongAdder}，首次落入时才创建，实际占用只与出现过的耗时量级有关；
+ * 记录路径上没有锁，只有最大值在被刷新时做一次CAS
+ */
+public final class LatencyHistogram {
+    
+    // 每个2的幂区间的子桶数，必须为2的幂
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    // 可区分的最大耗时
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+    
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时，单位纳秒，负值按0处理
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : nanos;
+        bucket(indexOf(Math.min(value, MAX_VALUE))).increment();
+        count.increment();
+        sum.add(value);
+        
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * 获取记录次数
+     *
+     * @return 记录次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * 获取耗时总和
+     *
+     * @return 耗时总和，单位纳秒
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+    
+    /**
+     * 获取最大耗时
+     *
+     * @return 最大耗时，单位纳秒
+     */
+    public long getMax() {
+        return max.get();
+    }
+    
+    /**
+     * 统计不超过给定值的记录次数
+     * 给定值不在桶边界上时按其所在桶的下界计算
+     *
+     * @param nanos 上界，单位纳秒
+     * @return 耗时小于等于上界的记录次数
+     */
+    public long countAtOrBelow(long nanos) {
+        if (nanos >= MAX_VALUE) {
+            return getCount();
+        }
+        int last = indexOf(nanos + 1);
+        long total = 0;
+        for (int i = 0; i < last; i++) {
+            LongAdder bucket = buckets.get(i);
+            if (bucket != null) {
+                total += bucket.sum();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * 估算分位数
+     *
+     * @param percentile 百分位，取值0到100
+     * @return 分位耗时，返回所在桶的上界，单位纳秒；没有记录时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            LongAdder bucket = buckets.get(i);
+            if (bucket != null) {
+                counts[i] = bucket.sum();
+                total += counts[i];
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+        
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(lowerBound(i + 1) - 1, getMax());
+            }
+        }
+        return getMax();
+    }
+    
+    private LongAdder bucket(int index) {
+        LongAdder bucket = buckets.get(index);
+        if (bucket == null) {
+            LongAdder created = new LongAdder();
+            bucket = buckets.compareAndSet(index, null, created) ? created : buckets.get(index);
+        }
+        return bucket;
+    }
+    
+    /**
+     * 计算耗时所在的桶：小于子桶数的值各占一个桶，
+     * 其余按最高位确定2的幂区间，再由其后的若干位确定子桶
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    /**
+     * 桶的下界，与{@link #indexOf(long)}互逆
+     */
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index & (SUB_BUCKETS - 1);
+        return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
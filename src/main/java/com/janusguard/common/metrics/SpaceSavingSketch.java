@@ -0,0 +1,237 @@
+package com.janusguard.common.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving高频项草图
+ * 最多保留capacity个计数器，计数器已满时新值接替计数最小的计数器并继承其计数作为误差上界。
+ * 任何出现次数超过 总数/capacity 的值一定在草图中，每个计数的高估不超过其误差。
+ * 计数器组织为按计数的最小堆，计数只增不减，每次更新只需下沉。
+ * 两个草图可以合并，用于汇总多个线程各自维护的草图。
+ * 非线程安全，由调用方同步
+ */
+public final class SpaceSavingSketch {
+    
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> index;
+    private int size;
+    private long total;
+    
+    /**
+     * 构造函数
+     *
+     * @param capacity 计数器数量
+     */
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.keys = new String[this.capacity];
+        this.counts = new long[this.capacity];
+        this.errors = new long[this.capacity];
+        this.index = new HashMap<>(this.capacity * 2);
+    }
+    
+    /**
+     * 记录一次出现
+     *
+     * @param key 值
+     */
+    public void offer(String key) {
+        offer(key, 1, 0);
+    }
+    
+    /**
+     * 合并另一个草图，合并后的计数和误差为两者之和
+     * 一方没有跟踪的值在该方最多出现了其最小计数次（计数器未满时为0），按最小计数补入计数和误差；
+     * 合并后只保留计数最高的capacity个计数器
+     *
+     * @param other 另一个草图
+     */
+    public void merge(SpaceSavingSketch other) {
+        long floor = size < capacity ? 0 : counts[0];
+        long otherFloor = other.size < other.capacity ? 0 : other.counts[0];
+        
+        int merged = 0;
+        String[] mergedKeys = new String[size + other.size];
+        long[] mergedCounts = new long[mergedKeys.length];
+        long[] mergedErrors = new long[mergedKeys.length];
+        for (int i = 0; i < size; i++) {
+            Integer position = other.index.get(keys[i]);
+            mergedKeys[merged] = keys[i];
+            mergedCounts[merged] = counts[i] + (position != null ? other.counts[position] : otherFloor);
+            mergedErrors[merged] = errors[i] + (position != null ? other.errors[position] : otherFloor);
+            merged++;
+        }
+        for (int i = 0; i < other.size; i++) {
+            if (!index.containsKey(other.keys[i])) {
+                mergedKeys[merged] = other.keys[i];
+                mergedCounts[merged] = other.counts[i] + floor;
+                mergedErrors[merged] = other.errors[i] + floor;
+                merged++;
+            }
+        }
+        
+        Integer[] order = new Integer[merged];
+        for (int i = 0; i < merged; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(mergedCounts[b], mergedCounts[a]));
+        
+        index.clear();
+        size = 0;
+        for (int i = 0; i < merged && size < capacity; i++) {
+            int from = order[i];
+            keys[size] = mergedKeys[from];
+            counts[size] = mergedCounts[from];
+            errors[size] = mergedErrors[from];
+            index.put(keys[size], size);
+            siftUp(size++);
+        }
+        Arrays.fill(keys, size, capacity, null);
+        total += other.total;
+    }
+    
+    /**
+     * 获取记录的总次数
+     *
+     * @return 总次数
+     */
+    public long getTotal() {
+        return total;
+    }
+    
+    /**
+     * 获取计数最高的若干项
+     *
+     * @param k 项数
+     * @return 按计数从高到低排列的项
+     */
+    public List<Item> top(int k) {
+        List<Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(keys[i], counts[i], errors[i]));
+        }
+        items.sort((a, b) -> Long.compare(b.count, a.count));
+        return items.size() > k ? new ArrayList<>(items.subList(0, k)) : items;
+    }
+    
+    private void offer(String key, long count, long error) {
+        total += count;
+        Integer position = index.get(key);
+        if (position != null) {
+            counts[position] += count;
+            errors[position] += error;
+            siftDown(position);
+            return;
+        }
+        
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = count;
+            errors[size] = error;
+            index.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        
+        // 接替计数最小的计数器（堆顶）
+        index.remove(keys[0]);
+        long floor = counts[0];
+        keys[0] = key;
+        counts[0] = floor + count;
+        errors[0] = floor + error;
+        index.put(key, 0);
+        siftDown(0);
+    }
+    
+    private void siftUp(int position) {
+        int i = position;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+    
+    private void siftDown(int position) {
+        int i = position;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[i] <= counts[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+    
+    private void swap(int a, int b) {
+        String key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        index.put(keys[a], a);
+        index.put(keys[b], b);
+    }
+    
+    /**
+     * 高频项
+     */
+    public static final class Item {
+        
+        private final String key;
+        private final long count;
+        private final long error;
+        
+        Item(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+        
+        /**
+         * 获取值
+         *
+         * @return 值
+         */
+        public String getKey() {
+            return key;
+        }
+        
+        /**
+         * 获取计数，可能高估
+         *
+         * @return 计数
+         */
+        public long getCount() {
+            return count;
+        }
+        
+        /**
+         * 获取计数高估的上界
+         *
+         * @return 误差
+         */
+        public long getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.janusguard.common.platform;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 事件ID生成
+ * 生成UUID第4版格式的随机ID。事件ID只要求唯一，不需要密码学强度，
+ * 因此使用ThreadLocalRandom代替UUID.randomUUID()背后共享的SecureRandom。
+ * JDK 8基线实现手工格式化；多版本jar中META-INF/versions/9下的同名类使用JDK内部的快速UUID格式化
+ */
+public final class EventIds {
+    
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    // 禁止实例化
+    private EventIds() {
+    }
+    
+    /**
+     * 生成新的事件ID
+     * 
+     * @return 形如xxxxxxxx-xxxx-4xxx-yxxx-xxxxxxxxxxxx的ID
+     */
+    public static String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        
+        char[] chars = new char[36];
+        hex(chars, 0, msb >>> 32, 8);
+        chars[8] = '-';
+        hex(chars, 9, msb >>> 16, 4);
+        chars[13] = '-';
+        hex(chars, 14, msb, 4);
+        chars[18] = '-';
+        hex(chars, 19, lsb >>> 48, 4);
+        chars[23] = '-';
+        hex(chars, 24, lsb, 12);
+        return new String(chars);
+    }
+    
+    private static void hex(char[] chars, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX[(int) value & 0xF];
+            value >>>= 4;
+        }
+    }
+}
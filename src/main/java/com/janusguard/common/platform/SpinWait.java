@@ -0,0 +1,20 @@
+package com.janusguard.common.platform;
+
+/**
+ * 自旋等待提示
+ * JDK 8基线实现让出CPU；多版本jar中META-INF/versions/9下的同名类使用Thread.onSpinWait()，
+ * 在支持的处理器上发出PAUSE等指令，降低自旋的功耗和对同核超线程的干扰
+ */
+public final class SpinWait {
+    
+    // 禁止实例化
+    private SpinWait() {
+    }
+    
+    /**
+     * 在忙等待循环的每次迭代中调用
+     */
+    public static void onSpinWait() {
+        Thread.yield();
+    }
+}
@@ -0,0 +1,30 @@
+package com.janusguard.common.platform;
+
+import java.util.Arrays;
+
+/**
+ * 栈帧采集
+ * JDK 8基线实现：采集完整调用栈后截取所需部分；
+ * 多版本jar中META-INF/versions/9下的同名类改用StackWalker，只遍历所需的栈帧
+ */
+public final class StackCapture {
+    
+    // 禁止实例化
+    private StackCapture() {
+    }
+    
+    /**
+     * 采集当前线程的栈帧
+     * 
+     * @param skipDepth 从调用方开始要跳过的栈帧数，0表示从调用方开始
+     * @param maxDepth 最多采集的栈帧数
+     * @return 栈帧
+     */
+    public static StackTraceElement[] capture(int skipDepth, int maxDepth) {
+        // 下标0为本方法
+        StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        int start = Math.min(skipDepth + 1, stackTrace.length);
+        int end = (int) Math.min((long) start + maxDepth, stackTrace.length);
+        return Arrays.copyOfRange(stackTrace, start, end);
+    }
+}
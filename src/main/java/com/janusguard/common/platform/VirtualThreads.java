@@ -0,0 +1,31 @@
+package com.janusguard.common.platform;
+
+/**
+ * 虚拟线程信息
+ * JDK 8基线实现中不存在虚拟线程；多版本jar中META-INF/versions/21下的同名类返回实际信息
+ */
+public final class VirtualThreads {
+    
+    // 禁止实例化
+    private VirtualThreads() {
+    }
+    
+    /**
+     * 判断线程是否为虚拟线程
+     * 
+     * @param thread 线程
+     * @return 是否为虚拟线程
+     */
+    public static boolean isVirtual(Thread thread) {
+        return false;
+    }
+    
+    /**
+     * 获取当前线程所挂载的载体线程名
+     * 
+     * @return 载体线程名，当前线程不是虚拟线程时返回null
+     */
+    public static String currentCarrierName() {
+        return null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.janusguard.core.context;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Agent执行器工厂
+ * JDK 8基线实现只提供平台线程；多版本jar中META-INF/versions/21下的同名类额外支持虚拟线程
+ */
+public final class AgentExecutors {
+    
+    // 禁止实例化
+    private AgentExecutors() {
+    }
+    
+    /**
+     * 当前JDK是否支持虚拟线程
+     * 
+     * @return 是否支持
+     */
+    public static boolean supportsVirtualThreads() {
+        return false;
+    }
+    
+    /**
+     * 创建单线程执行器，线程为{@link AgentThread}
+     * 
+     * @param name 线程名
+     * @return 执行器
+     */
+    public static ExecutorService newSingleThreadExecutor(String name) {
+        return Executors.newSingleThreadExecutor(new AgentThreadFactory(name));
+    }
+    
+    /**
+     * 创建单线程定时执行器，线程为{@link AgentThread}
+     * 
+     * @param name 线程名
+     * @return 执行器
+     */
+    public static ScheduledExecutorService newSingleThreadScheduledExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(new AgentThreadFactory(name));
+    }
+    
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     * 
+     * @param name 线程名前缀
+     * @return 执行器
+     * @throws UnsupportedOperationException 当前JDK不支持虚拟线程
+     */
+    public static ExecutorService newVirtualThreadExecutor(String name) {
+        throw new UnsupportedOperationException("Virtual threads require JDK 21 or later");
+    }
+}
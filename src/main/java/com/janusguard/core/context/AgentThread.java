@@ -0,0 +1,28 @@
+package com.janusguard.core.context;
+
+/**
+ * Agent自有线程
+ * 通过线程类型标记Agent内部线程，探针据此以一次类型检查跳过对Agent自身操作的监控
+ */
+public class AgentThread extends Thread {
+    
+    /**
+     * 构造函数
+     * 
+     * @param target 线程任务
+     * @param name 线程名
+     */
+    public AgentThread(Runnable target, String name) {
+        super(target, name);
+        setDaemon(true);
+    }
+    
+    /**
+     * 判断当前线程是否为Agent自有线程
+     * 
+     * @return 如果是Agent自有线程则返回true
+     */
+    public static boolean isCurrentAgentThread() {
+        return Thread.currentThread() instanceof AgentThread;
+    }
+}
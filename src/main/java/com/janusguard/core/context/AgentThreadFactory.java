@@ -0,0 +1,41 @@
+package com.janusguard.core.context;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Agent线程工厂
+ * 创建的线程均为守护线程，并被标记为{@link AgentThread}
+ */
+public class AgentThreadFactory implements ThreadFactory {
+    
+    private final String name;
+    private final boolean numbered;
+    private final AtomicInteger counter = new AtomicInteger();
+    
+    /**
+     * 构造函数
+     * 
+     * @param name 线程名
+     */
+    public AgentThreadFactory(String name) {
+        this(name, false);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param name 线程名
+     * @param numbered 是否在线程名后追加序号
+     */
+    public AgentThreadFactory(String name, boolean numbered) {
+        this.name = name;
+        this.numbered = numbered;
+    }
+    
+    @Override
+    public Thread newThread(Runnable r) {
+        String threadName = numbered ? name + "-" + counter.incrementAndGet() : name;
+        return new AgentThread(r, threadName);
+    }
+}
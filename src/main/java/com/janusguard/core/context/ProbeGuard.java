@@ -0,0 +1,116 @@
+package com.janusguard.core.context;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.janusguard.common.platform.VirtualThreads;
+
+/**
+ * 探针重入保护
+ * Agent自身的I/O、日志和反射操作同样会经过被植入探针的JDK方法，
+ * 若不加保护会产生"事件引发I/O、I/O又引发事件"的反馈循环。
+ * 每个探针在执行任何Agent逻辑前必须先调用{@link #enter()}，返回true时在finally中调用{@link #exit()}
+ *
+ * 平台线程的状态保存在ThreadLocal中；虚拟线程数量可达数百万，为每个虚拟线程创建ThreadLocal
+ * 会使内存随线程数增长，因此虚拟线程改为在固定大小的槽位表中登记，退出时即释放槽位。
+ * 槽位表在探测范围内已满（同时有大量虚拟线程处于探针逻辑中）时本次探针直接放行原始方法
+ */
+public final class ProbeGuard {
+    
+    // 虚拟线程槽位表大小，必须为2的幂
+    private static final int VIRTUAL_SLOTS = 4096;
+    
+    // 每个虚拟线程最多探测的槽位数
+    private static final int VIRTUAL_PROBES = 8;
+    
+    // 当前线程是否正在执行探针逻辑
+    private static final ThreadLocal<boolean[]> IN_PROBE = new ThreadLocal<boolean[]>() {
+        @Override
+        protected boolean[] initialValue() {
+            return new boolean[1];
+        }
+    };
+    
+    // 正在执行探针逻辑的虚拟线程
+    private static final AtomicReferenceArray<Thread> VIRTUAL_IN_PROBE = new AtomicReferenceArray<>(VIRTUAL_SLOTS);
+    
+    // 禁止实例化
+    private ProbeGuard() {
+    }
+    
+    /**
+     * 进入探针逻辑
+     *
+     * @return 如果当前线程可以执行探针逻辑则返回true；
+     *         Agent自有线程或已在探针逻辑中时返回false，此时调用方应直接执行原始方法
+     */
+    public static boolean enter() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof AgentThread) {
+            return false;
+        }
+        
+        if (VirtualThreads.isVirtual(thread)) {
+            return enterVirtual(thread);
+        }
+        
+        boolean[] inProbe = IN_PROBE.get();
+        if (inProbe[0]) {
+            return false;
+        }
+        inProbe[0] = true;
+        return true;
+    }
+    
+    /**
+     * 退出探针逻辑，仅在{@link #enter()}返回true后调用
+     */
+    public static void exit() {
+        Thread thread = Thread.currentThread();
+        if (VirtualThreads.isVirtual(thread)) {
+            exitVirtual(thread);
+            return;
+        }
+        IN_PROBE.get()[0] = false;
+    }
+    
+    /**
+     * 在槽位表中登记虚拟线程
+     *
+     * @return 是否登记成功；已在探针逻辑中或探测范围内没有空槽位时返回false
+     */
+    private static boolean enterVirtual(Thread thread) {
+        int start = slotOf(thread);
+        
+        // 只有线程自己会登记自己，先确认没有重入再占用空槽位
+        for (int i = 0; i < VIRTUAL_PROBES; i++) {
+            if (VIRTUAL_IN_PROBE.get((start + i) & (VIRTUAL_SLOTS - 1)) == thread) {
+                return false;
+            }
+        }
+        for (int i = 0; i < VIRTUAL_PROBES; i++) {
+            int slot = (start + i) & (VIRTUAL_SLOTS - 1);
+            if (VIRTUAL_IN_PROBE.get(slot) == null && VIRTUAL_IN_PROBE.compareAndSet(slot, null, thread)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 释放虚拟线程占用的槽位
+     */
+    private static void exitVirtual(Thread thread) {
+        int start = slotOf(thread);
+        for (int i = 0; i < VIRTUAL_PROBES; i++) {
+            int slot = (start + i) & (VIRTUAL_SLOTS - 1);
+            if (VIRTUAL_IN_PROBE.get(slot) == thread) {
+                VIRTUAL_IN_PROBE.set(slot, null);
+                return;
+            }
+        }
+    }
+    
+    private static int slotOf(Thread thread) {
+        return (int) ((thread.getId() * 0x9E3779B97F4A7C15L) >>> 40);
+    }
+}
@@ -0,0 +1,134 @@
+package com.janusguard.core.event;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.rule.CorrelationEngine;
+
+/**
+ * 攻击链关联前的重排序缓冲
+ * 同一线程的事件会落在不同的严重级别通道和批次中，由不同的处理线程取出，到达关联引擎时不再是产生顺序。
+ * 与关联相关的事件在这里按创建时的单调时钟读数排序，产生后满reorder-ms才按顺序送入关联引擎并交还给处理线程上报，
+ * 在此之前到达的、更早产生的同线程事件都能排到它前面。
+ *
+ * 放出与关联在同一把锁内完成，多个处理线程放出的事件也按产生顺序进入关联引擎。
+ * 超过reorder-ms才到达的事件仍会关联，但已放出的更晚事件不再重排，计入rules.correlation.late
+ */
+class CorrelationReorderBuffer {
+    
+    private static final LongAdder HELD = AgentMetrics.counter("rules.correlation.reordered");
+    private static final LongAdder LATE = AgentMetrics.counter("rules.correlation.late");
+    
+    // 事件的产生顺序
+    private static final Comparator<SecurityEvent> PRODUCER_ORDER =
+            Comparator.comparingLong(SecurityEvent::getCreationNanos);
+    
+    private final CorrelationEngine correlationEngine;
+    private final long delayNanos;
+    private final int maxEvents;
+    private final PriorityQueue<SecurityEvent> pending = new PriorityQueue<>(PRODUCER_ORDER);
+    
+    // 最近放出的事件的创建时钟读数
+    private long releasedNanos = Long.MIN_VALUE;
+    
+    /**
+     * 构造函数
+     *
+     * @param config Agent配置
+     * @param correlationEngine 关联引擎
+     */
+    CorrelationReorderBuffer(AgentConfig config, CorrelationEngine correlationEngine) {
+        this.correlationEngine = correlationEngine;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(0, config.getInt("rules.correlation.reorder-ms", 100)));
+        this.maxEvents = Math.max(1, config.getInt("rules.correlation.reorder-max-events", 4096));
+        AgentMetrics.gauge("rules.correlation.reorder-pending", this::size);
+    }
+    
+    /**
+     * 暂存与关联相关的事件
+     *
+     * @param event 已评估的事件
+     * @return 事件被暂存时返回true，与关联无关的事件返回false，由调用方直接上报
+     */
+    boolean hold(SecurityEvent event) {
+        if (!correlationEngine.isRelevant(event)) {
+            return false;
+        }
+        synchronized (this) {
+            if (event.getCreationNanos() < releasedNanos) {
+                LATE.increment();
+            }
+            pending.add(event);
+        }
+        HELD.increment();
+        return true;
+    }
+    
+    /**
+     * 按产生顺序关联并放出已满等待时间的事件，暂存数超过上限时提前放出最早的事件
+     *
+     * @param now 当前单调时钟读数
+     * @param output 接收放出的事件
+     * @return 放出的事件数
+     */
+    synchronized int release(long now, List<SecurityEvent> output) {
+        int released = 0;
+        SecurityEvent head;
+        while ((head = pending.peek()) != null
+                && (now - head.getCreationNanos() >= delayNanos || pending.size() > maxEvents)) {
+            releaseHead(output);
+            released++;
+        }
+        return released;
+    }
+    
+    /**
+     * 按产生顺序关联并放出全部暂存的事件，处理器停止时调用
+     *
+     * @param output 接收放出的事件
+     * @return 放出的事件数
+     */
+    synchronized int releaseAll(List<SecurityEvent> output) {
+        int released = 0;
+        while (!pending.isEmpty()) {
+            releaseHead(output);
+            released++;
+        }
+        return released;
+    }
+    
+    /**
+     * 是否有暂存的事件
+     *
+     * @return 没有暂存事件时返回true
+     */
+    synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+    
+    /**
+     * 获取等待时间，处理线程据此缩短空闲时的等待
+     *
+     * @return 等待时间，单位毫秒
+     */
+    long getDelayMs() {
+        return TimeUnit.NANOSECONDS.toMillis(delayNanos);
+    }
+    
+    private synchronized long size() {
+        return pending.size();
+    }
+    
+    private void releaseHead(List<SecurityEvent> output) {
+        SecurityEvent event = pending.poll();
+        releasedNanos = Math.max(releasedNanos, event.getCreationNanos());
+        correlationEngine.evaluate(event);
+        output.add(event);
+    }
+}
@@ -0,0 +1,96 @@
+package com.janusguard.core.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.janusguard.common.metrics.AgentMetrics;
+
+/**
+ * 事件分发器
+ * 探针统一通过本类提交事件。异步启动时关键探针先于事件处理器就绪，
+ * 这段时间内的事件暂存在一个小的启动前缓冲区中，处理器挂接后再统一补交
+ */
+public final class EventDispatcher {
+    
+    private static final int DEFAULT_PRE_START_CAPACITY = 256;
+    
+    private static final LongAdder PRE_START_BUFFERED = AgentMetrics.counter("bootstrap.pre-start-buffered");
+    private static final LongAdder PRE_START_DROPPED = AgentMetrics.counter("bootstrap.pre-start-dropped");
+    
+    private static volatile EventProcessor processor;
+    
+    private static volatile BlockingQueue<SecurityEvent> preStartBuffer =
+            new ArrayBlockingQueue<>(DEFAULT_PRE_START_CAPACITY);
+    
+    // 禁止实例化
+    private EventDispatcher() {
+    }
+    
+    /**
+     * 设置启动前缓冲区容量，应在植入探针之前调用
+     * 
+     * @param capacity 容量
+     */
+    public static void setPreStartCapacity(int capacity) {
+        preStartBuffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+    
+    /**
+     * 提交事件
+     * 
+     * @param event 事件
+     */
+    public static void dispatch(SecurityEvent event) {
+        EventProcessor current = processor;
+        if (current != null) {
+            current.processEvent(event);
+            return;
+        }
+        
+        if (!preStartBuffer.offer(event)) {
+            PRE_START_DROPPED.increment();
+            return;
+        }
+        PRE_START_BUFFERED.increment();
+        
+        // 入缓冲区的同时处理器可能刚好挂接，此时由当前线程补交，避免事件滞留
+        current = processor;
+        if (current != null) {
+            drainTo(current);
+        }
+    }
+    
+    /**
+     * 挂接事件处理器，并补交启动前缓冲的事件
+     * 
+     * @param eventProcessor 事件处理器
+     */
+    public static void attach(EventProcessor eventProcessor) {
+        processor = eventProcessor;
+        drainTo(eventProcessor);
+    }
+    
+    /**
+     * 解除事件处理器，之后的事件重新进入启动前缓冲区
+     */
+    public static void detach() {
+        processor = null;
+    }
+    
+    /**
+     * 判断事件处理器是否已挂接
+     * 
+     * @return 已挂接时返回true
+     */
+    public static boolean isAttached() {
+        return processor != null;
+    }
+    
+    private static void drainTo(EventProcessor eventProcessor) {
+        SecurityEvent event;
+        while ((event = preStartBuffer.poll()) != null) {
+            eventProcessor.processEvent(event);
+        }
+    }
+}
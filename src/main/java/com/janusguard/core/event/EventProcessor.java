@@ -1,26 +1,48 @@
 package com.janusguard.core.event;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.context.AgentThreadFactory;
+import com.janusguard.core.rule.CorrelationEngine;
+import com.janusguard.core.rule.RuleEvaluator;
 import com.janusguard.transport.queue.EventQueue;
+import com.janusguard.transport.reporter.DataReporter;
 
 /**
  * 事件处理器
  * 负责处理和分析从探针收集的事件
+ * 处理线程按批次从原始队列取事件，评估后或直接交给上报器（融合流水线），
+ * 或整批放入已处理队列（分级流水线）
  */
 public class EventProcessor {
     
     private static final Logger logger = LoggerFactory.getLogger(EventProcessor.class);
     
+    private static final LongAdder DROPPED_NOT_RUNNING = AgentMetrics.counter("pipeline.dropped.processor-stopped");
+    
     private final AgentConfig config;
     private final EventQueue eventQueue;
+    private final RuleEvaluator ruleEvaluator = new RuleEvaluator();
+    
+    // 攻击链关联前的重排序缓冲，未启用关联时为null
+    private final CorrelationReorderBuffer reorderBuffer;
+    
+    // 遥测汇总，未启用时为null
+    private final TelemetrySummarizer telemetry;
+    
+    // 融合流水线下直接上报的目标，分级流水线下为null
+    private final DataReporter dataReporter;
     private ExecutorService executorService;
     private final AtomicBoolean running = new AtomicBoolean(false);
     
@@ -31,8 +53,36 @@ public class EventProcessor {
      * @param eventQueue 事件队列
      */
     public EventProcessor(AgentConfig config, EventQueue eventQueue) {
+        this(config, eventQueue, null);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param config Agent配置
+     * @param eventQueue 事件队列
+     * @param dataReporter 融合流水线下的上报器，为null时使用分级流水线
+     */
+    public EventProcessor(AgentConfig config, EventQueue eventQueue, DataReporter dataReporter) {
+        this(config, eventQueue, dataReporter, null);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param config Agent配置
+     * @param eventQueue 事件队列
+     * @param dataReporter 融合流水线下的上报器，为null时使用分级流水线
+     * @param telemetry 遥测汇总，为null时不统计
+     */
+    public EventProcessor(AgentConfig config, EventQueue eventQueue, DataReporter dataReporter,
+            TelemetrySummarizer telemetry) {
         this.config = config;
         this.eventQueue = eventQueue;
+        this.dataReporter = dataReporter;
+        this.reorderBuffer = config.getBoolean("rules.correlation.enabled", true)
+                ? new CorrelationReorderBuffer(config, new CorrelationEngine(config)) : null;
+        this.telemetry = telemetry;
     }
     
     /**
@@ -48,22 +98,19 @@ public class EventProcessor {
         
         // 创建处理线程池
         int processorThreads = config.getInt("event-processing.processor-threads", 2);
-        executorService = Executors.newFixedThreadPool(processorThreads, new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread thread = new Thread(r, "janusguard-event-processor");
-                thread.setDaemon(true);
-                return thread;
-            }
-        });
+        executorService = Executors.newFixedThreadPool(processorThreads,
+                new AgentThreadFactory("janusguard-event-processor"));
+        
+        running.set(true);
         
         // 启动事件处理
+        int batchSize = config.getInt("event-processing.batch-size", 100);
         for (int i = 0; i < processorThreads; i++) {
-            executorService.submit(new EventWorker());
+            executorService.submit(new EventWorker(batchSize));
         }
         
-        running.set(true);
-        logger.info("Event processor started with {} threads", processorThreads);
+        logger.info("Event processor started with {} threads, pipeline: {}", processorThreads,
+                dataReporter != null ? "fused" : "staged");
     }
     
     /**
@@ -82,6 +129,16 @@ public class EventProcessor {
         if (executorService != null) {
             executorService.shutdown();
             logger.info("Event processor executor service shutdown initiated");
+            
+            // 等待处理中的批次完成，之后上报器才能安全地做最后一次刷新
+            try {
+                if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executorService.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executorService.shutdownNow();
+            }
         }
         
         logger.info("Event processor stopped");
@@ -89,18 +146,22 @@ public class EventProcessor {
     
     /**
      * 提交事件进行处理
+     * 该方法在应用线程上调用，只做查表和入队，分类与规则评估由处理线程完成
      * 
      * @param event 要处理的事件
      */
     public void processEvent(SecurityEvent event) {
         if (!running.get()) {
+            DROPPED_NOT_RUNNING.increment();
             logger.warn("Event dropped because processor is not running: {}", event);
             return;
         }
         
         try {
-            // 进行初步处理
-            preProcessEvent(event);
+            // 以预先计算的基础严重级别选择队列通道
+            if (event.getSeverity() == SecurityEventSeverity.UNKNOWN) {
+                event.setSeverity(RuleEvaluator.baseSeverity(event.getType()));
+            }
             
             // 将事件放入队列
             eventQueue.offer(event);
@@ -110,7 +171,7 @@ public class EventProcessor {
     }
     
     /**
-     * 事件预处理
+     * 事件预处理，在处理线程上执行
      * 
      * @param event 要预处理的事件
      */
@@ -118,57 +179,14 @@ public class EventProcessor {
         // 设置处理时间戳
         event.setProcessedTimestamp(System.currentTimeMillis());
         
-        // 应用基本规则过滤
-        applyRules(event);
-    }
-    
-    /**
-     * 应用规则进行事件分析
-     * 
-     * @param event 要分析的事件
-     */
-    private void applyRules(SecurityEvent event) {
-        // TODO: 在阶段二实现规则引擎
-        // 目前只做简单的初步分析
-        
-        // 为命令执行事件设置高优先级
-        if (event.getType() == SecurityEventType.COMMAND_EXECUTION) {
-            event.setSeverity(SecurityEventSeverity.HIGH);
-        }
+        // 格式化探针采集的原始堆栈
+        event.getCallStackTrace();
         
-        // 为文件操作设置中等优先级
-        else if (event.getType() == SecurityEventType.FILE_OPERATION) {
-            event.setSeverity(SecurityEventSeverity.MEDIUM);
-        }
+        // 应用规则进行事件分析
+        ruleEvaluator.evaluate(event);
         
-        // 为内存木马相关操作设置高优先级
-        else if (event.getType() == SecurityEventType.CLASS_LOADING || 
-                event.getType() == SecurityEventType.JVM_MEMORY_OPERATION ||
-                event.getType() == SecurityEventType.JNI_OPERATION) {
-            event.setSeverity(SecurityEventSeverity.HIGH);
-            
-            // 如果事件中标记了可疑活动，记录告警
-            if (event.getData("memoryTrojanSuspicious") != null || 
-                event.getData("dangerousOperation") != null ||
-                event.getData("suspiciousJNI") != null) {
-                logger.warn("检测到可能的内存木马活动: {}", event);
-            }
-        }
-        
-        // 为动态代理设置中等优先级
-        else if (event.getType() == SecurityEventType.DYNAMIC_PROXY) {
-            event.setSeverity(SecurityEventSeverity.MEDIUM);
-            
-            // 如果检测到可疑代理，提高严重级别
-            if (event.getData("suspiciousProxy") != null) {
-                event.setSeverity(SecurityEventSeverity.HIGH);
-                logger.warn("检测到可疑动态代理: {}", event);
-            }
-        }
-        
-        // 为其他类型设置低优先级
-        else {
-            event.setSeverity(SecurityEventSeverity.LOW);
+        if (telemetry != null) {
+            telemetry.record(event);
         }
     }
     
@@ -176,24 +194,53 @@ public class EventProcessor {
      * 事件处理工作线程
      */
     private class EventWorker implements Runnable {
+        
+        private final List<SecurityEvent> batch;
+        private final int batchSize;
+        
+        // 启用关联时本次要上报的事件：批次中与关联无关的事件和重排序缓冲放出的事件
+        private final List<SecurityEvent> output;
+        
+        EventWorker(int batchSize) {
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(batchSize);
+            this.output = new ArrayList<>(batchSize);
+        }
+        
         @Override
         public void run() {
             logger.info("Event worker thread started");
             
             while (running.get()) {
                 try {
-                    // 从队列中获取事件
-                    SecurityEvent event = eventQueue.poll();
+                    // 从队列中批量获取事件；有暂存的关联事件时只等待到它们可以放出
+                    batch.clear();
+                    if (reorderBuffer != null && !reorderBuffer.isEmpty()) {
+                        eventQueue.poll(batch, batchSize, Math.max(1, reorderBuffer.getDelayMs()));
+                    } else if (eventQueue.poll(batch, batchSize) == 0) {
+                        continue;
+                    }
                     
-                    if (event != null) {
-                        // 处理事件
+                    // 处理事件
+                    for (SecurityEvent event : batch) {
                         logger.debug("Processing event: {}", event);
-                        
-                        // TODO: 在后续阶段实现更复杂的事件分析
-                        
-                        // 将处理完的事件放回队列，供上报器消费
-                        eventQueue.offerProcessed(event);
+                        preProcessEvent(event);
+                    }
+                    
+                    if (reorderBuffer == null) {
+                        report(batch);
+                        continue;
                     }
+                    
+                    // 与关联相关的事件暂存到重排序缓冲，按产生顺序关联之后再上报
+                    output.clear();
+                    for (SecurityEvent event : batch) {
+                        if (!reorderBuffer.hold(event)) {
+                            output.add(event);
+                        }
+                    }
+                    reorderBuffer.release(System.nanoTime(), output);
+                    report(output);
                 } catch (InterruptedException e) {
                     logger.info("Event worker thread interrupted");
                     Thread.currentThread().interrupt();
@@ -203,7 +250,27 @@ public class EventProcessor {
                 }
             }
             
+            // 停止时放出剩余的暂存事件，之后上报器才做最后一次刷新
+            if (reorderBuffer != null) {
+                output.clear();
+                reorderBuffer.releaseAll(output);
+                report(output);
+            }
+            
             logger.info("Event worker thread stopped");
         }
+        
+        private void report(List<SecurityEvent> events) {
+            if (events.isEmpty()) {
+                return;
+            }
+            if (dataReporter != null) {
+                // 融合流水线：直接编码上报
+                dataReporter.report(events);
+            } else {
+                // 分级流水线：整批放入已处理队列，供上报器消费
+                eventQueue.offerProcessed(events);
+            }
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -3,7 +3,10 @@ package com.janusguard.core.event;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+
+import com.janusguard.common.logging.LogUtils;
+import com.janusguard.common.platform.EventIds;
+import com.janusguard.common.platform.VirtualThreads;
 
 /**
  * 安全事件类
@@ -22,9 +25,19 @@ public class SecurityEvent implements Serializable {
     private final String methodName;
     private final String threadName;
     private final long threadId;
+    private final boolean virtualThread;
+    private final String carrierThreadName;
     private String callStackTrace;
     private final Map<String, Object> data;
     
+    // 探针采集的原始栈帧，由事件处理线程延迟格式化
+    private transient StackTraceElement[] rawStackTrace;
+    private transient int rawStackSkip;
+    private transient int rawStackDepth;
+    
+    // 创建时的单调时钟读数，用于在处理线程上恢复事件的产生顺序
+    private final transient long creationNanos;
+    
     /**
      * 构造函数
      * 
@@ -33,16 +46,26 @@ public class SecurityEvent implements Serializable {
      * @param methodName 触发事件的方法名
      */
     public SecurityEvent(SecurityEventType type, String className, String methodName) {
-        this.id = UUID.randomUUID().toString();
+        this.id = EventIds.next();
         this.timestamp = System.currentTimeMillis();
+        this.creationNanos = System.nanoTime();
         this.type = type;
         this.severity = SecurityEventSeverity.UNKNOWN;
         this.className = className;
         this.methodName = methodName;
         
         Thread currentThread = Thread.currentThread();
-        this.threadName = currentThread.getName();
         this.threadId = currentThread.getId();
+        this.virtualThread = VirtualThreads.isVirtual(currentThread);
+        if (virtualThread) {
+            // 虚拟线程默认没有名称，用线程ID标识
+            String name = currentThread.getName();
+            this.threadName = name.isEmpty() ? "VirtualThread#" + threadId : name;
+            this.carrierThreadName = VirtualThreads.currentCarrierName();
+        } else {
+            this.threadName = currentThread.getName();
+            this.carrierThreadName = null;
+        }
         
         this.data = new HashMap<>();
     }
@@ -68,6 +91,19 @@ public class SecurityEvent implements Serializable {
         this.callStackTrace = callStackTrace;
     }
     
+    /**
+     * 设置原始调用堆栈，格式化推迟到事件处理线程
+     * 
+     * @param stackTrace 原始栈帧
+     * @param skipDepth 格式化时要跳过的栈帧深度
+     * @param maxDepth 格式化时的最大栈帧深度
+     */
+    public void setRawCallStack(StackTraceElement[] stackTrace, int skipDepth, int maxDepth) {
+        this.rawStackTrace = stackTrace;
+        this.rawStackSkip = skipDepth;
+        this.rawStackDepth = maxDepth;
+    }
+    
     /**
      * 设置事件处理时间戳
      * 
@@ -167,12 +203,43 @@ public class SecurityEvent implements Serializable {
         return threadId;
     }
     
+    /**
+     * 是否由虚拟线程产生
+     * 
+     * @return 是否为虚拟线程
+     */
+    public boolean isVirtualThread() {
+        return virtualThread;
+    }
+    
+    /**
+     * 获取产生事件时虚拟线程所挂载的载体线程名
+     * 
+     * @return 载体线程名，平台线程产生的事件返回null
+     */
+    public String getCarrierThreadName() {
+        return carrierThreadName;
+    }
+    
+    /**
+     * 获取创建时的单调时钟读数，只用于比较同一JVM内事件产生的先后，不参与序列化
+     * 
+     * @return 创建时System.nanoTime()的值
+     */
+    long getCreationNanos() {
+        return creationNanos;
+    }
+    
     /**
      * 获取调用堆栈
      * 
      * @return 调用堆栈
      */
     public String getCallStackTrace() {
+        if (callStackTrace == null && rawStackTrace != null) {
+            callStackTrace = LogUtils.formatStackTrace(rawStackTrace, rawStackSkip, rawStackDepth);
+            rawStackTrace = null;
+        }
         return callStackTrace;
     }
     
@@ -204,6 +271,7 @@ public class SecurityEvent implements Serializable {
                 ", className='" + className + '\'' +
                 ", methodName='" + methodName + '\'' +
                 ", threadName='" + threadName + '\'' +
+                (virtualThread ? ", carrierThreadName='" + carrierThreadName + '\'' : "") +
                 ", timestamp=" + timestamp +
                 ", dataKeys=" + data.keySet() +
                 '}';
@@ -6,6 +6,11 @@ package com.janusguard.core.event;
  */
 public enum SecurityEventSeverity {
     
+    /**
+     * 严重级别，表示已确认的攻击行为，需要立即上报
+     */
+    CRITICAL(4),
+    
     /**
      * 高严重级别，表示严重安全威胁
      */
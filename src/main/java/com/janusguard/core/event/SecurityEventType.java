@@ -66,6 +66,11 @@ public enum SecurityEventType {
      */
     DYNAMIC_PROXY,
     
+    /**
+     * 遥测汇总，由Agent周期性生成的高频值和基数统计，不对应应用行为
+     */
+    TELEMETRY_SUMMARY,
+    
     /**
      * 未知类型
      */
@@ -0,0 +1,277 @@
+package com.janusguard.core.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.common.metrics.HyperLogLog;
+import com.janusguard.common.metrics.SpaceSavingSketch;
+import com.janusguard.core.context.AgentExecutors;
+import com.janusguard.transport.reporter.DataReporter;
+
+/**
+ * 遥测汇总
+ * 对配置的 事件类型:数据字段（默认文件路径、命令和反射目标类）在处理线程上维护高频项草图和基数估计，
+ * 不保留事件本身。每个处理线程写自己的分片，分片锁只在汇总时与处理线程竞争；
+ * 每个周期结束时取下各分片的草图合并，为每个字段生成一条{@link SecurityEventType#TELEMETRY_SUMMARY}事件，
+ * 经{@link DataReporter}与普通事件一起写出
+ */
+public class TelemetrySummarizer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TelemetrySummarizer.class);
+    
+    private static final LongAdder SUMMARIES = AgentMetrics.counter("pipeline.telemetry.summaries");
+    
+    private static final int HLL_PRECISION = 12;
+    
+    // 每个高频项保留的计数器数与输出项数之比
+    private static final int COUNTERS_PER_ITEM = 4;
+    
+    private final DataReporter dataReporter;
+    private final long intervalMs;
+    private final int topK;
+    
+    // 按事件类型序号索引的被统计字段，未统计的类型为null
+    private final String[][] fieldsByType = new String[SecurityEventType.values().length][];
+    
+    private final List<Shard> shards = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Shard> localShard = ThreadLocal.withInitial(this::newShard);
+    
+    private ScheduledExecutorService scheduler;
+    private long periodStart;
+    
+    /**
+     * 构造函数
+     *
+     * @param config Agent配置
+     * @param dataReporter 汇总事件的上报器
+     */
+    public TelemetrySummarizer(AgentConfig config, DataReporter dataReporter) {
+        this.dataReporter = dataReporter;
+        this.intervalMs = Math.max(1, config.getInt("analytics.interval-sec", 60)) * 1000L;
+        this.topK = Math.max(1, config.getInt("analytics.top-k", 100));
+        
+        Map<SecurityEventType, List<String>> fields = new EnumMap<>(SecurityEventType.class);
+        for (String entry : config.getStringList("analytics.fields", Arrays.asList(
+                "FILE_OPERATION:" + AgentConstants.EventFields.FILE_PATH,
+                "COMMAND_EXECUTION:" + AgentConstants.EventFields.COMMAND,
+                "REFLECTION:" + AgentConstants.EventFields.TARGET_CLASS))) {
+            String[] parts = entry.split(":", 2);
+            try {
+                SecurityEventType type = SecurityEventType.valueOf(parts[0].trim().toUpperCase());
+                if (parts.length < 2 || parts[1].trim().isEmpty()) {
+                    throw new IllegalArgumentException("missing field");
+                }
+                fields.computeIfAbsent(type, t -> new ArrayList<>()).add(parts[1].trim());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid analytics field entry: {}", entry);
+            }
+        }
+        for (Map.Entry<SecurityEventType, List<String>> entry : fields.entrySet()) {
+            fieldsByType[entry.getKey().ordinal()] = entry.getValue().toArray(new String[0]);
+        }
+    }
+    
+    /**
+     * 启动定时汇总
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        periodStart = System.currentTimeMillis();
+        scheduler = AgentExecutors.newSingleThreadScheduledExecutor("janusguard-telemetry");
+        scheduler.scheduleAtFixedRate(this::emit, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Telemetry summaries every {} ms, top {} values", intervalMs, topK);
+    }
+    
+    /**
+     * 停止定时汇总并写出最后一个周期的汇总
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+        scheduler = null;
+        emit();
+    }
+    
+    /**
+     * 统计一个已处理事件，在处理线程上调用
+     *
+     * @param event 事件
+     */
+    public void record(SecurityEvent event) {
+        SecurityEventType type = event.getType();
+        String[] fields = type == null ? null : fieldsByType[type.ordinal()];
+        if (fields == null) {
+            return;
+        }
+        Shard shard = localShard.get();
+        synchronized (shard) {
+            for (int i = 0; i < fields.length; i++) {
+                Object value = event.getData(fields[i]);
+                if (value != null) {
+                    shard.sketch(type, i).offer(value.toString());
+                }
+            }
+        }
+    }
+    
+    /**
+     * 取下各分片的草图合并，为每个字段上报一条汇总事件
+     */
+    private void emit() {
+        long now = System.currentTimeMillis();
+        long start = periodStart;
+        periodStart = now;
+        
+        FieldSketch[][] merged = newSketchTable();
+        for (Shard shard : shards) {
+            FieldSketch[][] drained;
+            synchronized (shard) {
+                drained = shard.sketches;
+                shard.sketches = newSketchTable();
+            }
+            for (int type = 0; type < drained.length; type++) {
+                for (int i = 0; i < drained[type].length; i++) {
+                    FieldSketch sketch = drained[type][i];
+                    if (sketch == null) {
+                        continue;
+                    }
+                    if (merged[type][i] == null) {
+                        merged[type][i] = sketch;
+                    } else {
+                        merged[type][i].merge(sketch);
+                    }
+                }
+            }
+            // 处理线程退出后其分片不会再有数据
+            if (!shard.owner.isAlive()) {
+                shards.remove(shard);
+            }
+        }
+        
+        List<SecurityEvent> summaries = new ArrayList<>();
+        for (FieldSketch[] sketches : merged) {
+            for (FieldSketch sketch : sketches) {
+                if (sketch != null) {
+                    summaries.add(sketch.toEvent(start, now));
+                }
+            }
+        }
+        if (summaries.isEmpty()) {
+            return;
+        }
+        SUMMARIES.add(summaries.size());
+        dataReporter.report(summaries);
+    }
+    
+    private Shard newShard() {
+        Shard shard = new Shard(Thread.currentThread());
+        shards.add(shard);
+        return shard;
+    }
+    
+    /**
+     * 创建与被统计字段表同形的草图表，草图在首次统计时创建
+     */
+    private FieldSketch[][] newSketchTable() {
+        FieldSketch[][] table = new FieldSketch[fieldsByType.length][];
+        for (int type = 0; type < table.length; type++) {
+            table[type] = new FieldSketch[fieldsByType[type] == null ? 0 : fieldsByType[type].length];
+        }
+        return table;
+    }
+    
+    /**
+     * 一个处理线程的草图，以自身为锁
+     */
+    private final class Shard {
+        
+        final Thread owner;
+        FieldSketch[][] sketches = newSketchTable();
+        
+        Shard(Thread owner) {
+            this.owner = owner;
+        }
+        
+        FieldSketch sketch(SecurityEventType type, int field) {
+            FieldSketch[] sketchesOfType = sketches[type.ordinal()];
+            if (sketchesOfType[field] == null) {
+                sketchesOfType[field] = new FieldSketch(type, fieldsByType[type.ordinal()][field]);
+            }
+            return sketchesOfType[field];
+        }
+    }
+    
+    /**
+     * 一个 事件类型:字段 的高频项草图和基数估计
+     */
+    private final class FieldSketch {
+        
+        final SecurityEventType type;
+        final String field;
+        final SpaceSavingSketch heavyHitters = new SpaceSavingSketch(topK * COUNTERS_PER_ITEM);
+        final HyperLogLog distinct = new HyperLogLog(HLL_PRECISION);
+        
+        FieldSketch(SecurityEventType type, String field) {
+            this.type = type;
+            this.field = field;
+        }
+        
+        void offer(String value) {
+            heavyHitters.offer(value);
+            distinct.offer(value);
+        }
+        
+        void merge(FieldSketch other) {
+            heavyHitters.merge(other.heavyHitters);
+            distinct.merge(other.distinct);
+        }
+        
+        SecurityEvent toEvent(long start, long end) {
+            SecurityEvent event = new SecurityEvent(SecurityEventType.TELEMETRY_SUMMARY, type.name(), field);
+            event.setSeverity(SecurityEventSeverity.INFO);
+            event.addData(AgentConstants.EventFields.SUMMARY_START, start);
+            event.addData(AgentConstants.EventFields.SUMMARY_END, end);
+            event.addData(AgentConstants.EventFields.SUMMARY_TOTAL, heavyHitters.getTotal());
+            event.addData(AgentConstants.EventFields.SUMMARY_DISTINCT, distinct.estimate());
+            
+            List<Map<String, Object>> top = new ArrayList<>();
+            for (SpaceSavingSketch.Item item : heavyHitters.top(topK)) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("value", item.getKey());
+                entry.put("count", item.getCount());
+                if (item.getError() > 0) {
+                    entry.put("error", item.getError());
+                }
+                top.add(entry);
+            }
+            event.addData(AgentConstants.EventFields.SUMMARY_TOP, top);
+            return event;
+        }
+    }
+}
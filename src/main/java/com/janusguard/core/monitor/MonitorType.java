@@ -0,0 +1,88 @@
+package com.janusguard.core.monitor;
+
+/**
+ * 监控类型
+ * 每种监控对应一组探针及其配置开关
+ */
+public enum MonitorType {
+    
+    COMMAND_EXECUTION("command-execution", "monitors.command-execution.enabled"),
+    FILE_OPERATIONS("file-operations", "monitors.file-operations.enabled"),
+    REFLECTION("reflection", "monitors.reflection.enabled"),
+    CLASS_LOADING("class-loading", "monitors.memory-trojan.class-loading.enabled"),
+    UNSAFE("unsafe", "monitors.memory-trojan.unsafe.enabled"),
+    DYNAMIC_PROXY("dynamic-proxy", "monitors.memory-trojan.dynamic-proxy.enabled"),
+    JNI("jni", "monitors.memory-trojan.jni.enabled");
+    
+    private final String id;
+    private final String configKey;
+    
+    MonitorType(String id, String configKey) {
+        this.id = id;
+        this.configKey = configKey;
+    }
+    
+    /**
+     * 获取监控标识，如command-execution
+     * 
+     * @return 监控标识
+     */
+    public String getId() {
+        return id;
+    }
+    
+    /**
+     * 获取启用该监控的配置项
+     * 
+     * @return 配置路径
+     */
+    public String getConfigKey() {
+        return configKey;
+    }
+    
+    /**
+     * 获取该监控探针调用次数的指标名
+     * 
+     * @return 指标名，如probe.command-execution.calls
+     */
+    public String getCallsMetric() {
+        return "probe." + id + ".calls";
+    }
+    
+    /**
+     * 获取该监控探针自身开销分布的指标名，开销为探针从进入到返回的耗时减去原始方法的耗时
+     * 
+     * @return 指标名，如probe.command-execution.overhead-ns
+     */
+    public String getOverheadMetric() {
+        return "probe." + id + ".overhead-ns";
+    }
+    
+    /**
+     * 获取该监控探针所拦截的原始方法耗时分布的指标名
+     * 
+     * @return 指标名，如probe.command-execution.operation-ns
+     */
+    public String getOperationMetric() {
+        return "probe." + id + ".operation-ns";
+    }
+    
+    /**
+     * 按监控标识或枚举名称查找监控类型
+     * 
+     * @param name 监控标识或枚举名称，不区分大小写
+     * @return 监控类型，未找到时返回null
+     */
+    public static MonitorType fromString(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        for (MonitorType type : values()) {
+            if (type.id.equalsIgnoreCase(trimmed) || type.name().equalsIgnoreCase(trimmed)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,64 @@
+package com.janusguard.core.monitor;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.transformer.BootstrapBridge;
+
+/**
+ * 探针运行时开关
+ * 关闭探针时把{@link com.janusguard.bootstrap.ProbeDispatcher}中对应的可变调用点重新链接为直接执行原始方法，
+ * 开启时链接回拦截器。关闭期间被植入的方法不再进入拦截器，JIT把调用点目标当作常量内联，
+ * 切换时使依赖它的已编译代码失效，无需重新转换类。
+ * 分发器未能放入引导类加载器时探针直接委托给拦截器，开关只记录状态而不起作用
+ */
+public final class ProbeSwitches {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProbeSwitches.class);
+    
+    // 每种监控的当前状态，1为开启；安装分发器时在持有桥接锁的情况下读取，因此不使用本类的锁
+    private static final AtomicIntegerArray STATES = new AtomicIntegerArray(MonitorType.values().length);
+    
+    static {
+        for (MonitorType type : MonitorType.values()) {
+            STATES.set(type.ordinal(), 1);
+        }
+    }
+    
+    // 禁止实例化
+    private ProbeSwitches() {
+    }
+    
+    /**
+     * 开启或关闭指定监控的探针
+     * 只影响已经植入的探针；配置中未启用的监控没有植入探针，开启后也不会产生事件
+     * 
+     * @param type 监控类型
+     * @param enabled 是否开启
+     * @return 切换前的状态
+     */
+    public static synchronized boolean setEnabled(MonitorType type, boolean enabled) {
+        boolean previous = STATES.getAndSet(type.ordinal(), enabled ? 1 : 0) == 1;
+        if (previous != enabled) {
+            if (BootstrapBridge.relink(type, enabled)) {
+                logger.info("Probe switch {} turned {}", type.getId(), enabled ? "on" : "off");
+            } else {
+                logger.warn("Probe switch {} turned {}, but probes delegate to interceptors directly and keep running",
+                        type.getId(), enabled ? "on" : "off");
+            }
+        }
+        return previous;
+    }
+    
+    /**
+     * 查询指定监控的探针是否开启
+     * 
+     * @param type 监控类型
+     * @return 是否开启
+     */
+    public static boolean isEnabled(MonitorType type) {
+        return STATES.get(type.ordinal()) == 1;
+    }
+}
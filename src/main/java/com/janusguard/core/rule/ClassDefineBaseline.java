@@ -0,0 +1,421 @@
+package com.janusguard.core.rule;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.context.AgentExecutors;
+
+/**
+ * defineClass基线
+ * Spring、Hibernate、Jackson等框架在启动时会动态生成大量类，每次defineClass都产生高危事件会淹没真正的内存马信号。
+ * 基线以 (类加载器类型, 调用方栈帧, 类名形态) 三元组描述一次defineClass，只保存三元组的64位哈希。
+ *
+ * 没有持久化的基线时先进入学习期：学习期内的调用照常产生事件，同时记录三元组；
+ * 学习期结束后把基线写入文件，此后命中基线的调用只计数而不产生事件，未命中的事件带有baseline_deviation标记。
+ * 启动时已有基线文件则直接进入执行期，删除文件即可重新学习
+ */
+public class ClassDefineBaseline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClassDefineBaseline.class);
+    
+    private static final LongAdder HITS = AgentMetrics.counter("rules.class-define-baseline.hits");
+    private static final LongAdder DEVIATIONS = AgentMetrics.counter("rules.class-define-baseline.deviations");
+    
+    // 文件头："JGB1"
+    private static final int FILE_MAGIC = 0x4A474231;
+    
+    // 查找调用方时跳过的包前缀：JDK类加载实现、反射和Agent自身
+    private static final String[] INFRASTRUCTURE_PACKAGES = {
+            "java.", "javax.", "jdk.", "sun.", "com.sun.", "com.janusguard.", "net.bytebuddy."
+    };
+    
+    // 当前生效的基线，未启用时为null
+    private static volatile ClassDefineBaseline installed;
+    
+    private final Path path;
+    private final long learningMs;
+    private final int maxEntries;
+    
+    // 开放寻址哈希集合，0表示空位；学习期内由应用线程以CAS写入，执行期只读
+    private final AtomicLongArray table;
+    private final AtomicInteger size = new AtomicInteger();
+    
+    // 学习期结束后置为true，此后不再开始新的写入
+    private volatile boolean enforcing;
+    
+    // 正在写入哈希集合的应用线程数，学习期结束后等其归零再保存
+    private final AtomicInteger learners = new AtomicInteger();
+    
+    private ScheduledExecutorService scheduler;
+    
+    /**
+     * 构造函数
+     *
+     * @param config Agent配置
+     */
+    public ClassDefineBaseline(AgentConfig config) {
+        this.path = Paths.get(config.getString("rules.class-define-baseline.path",
+                "./janusguard-define-baseline.bin"));
+        this.learningMs = Math.max(1, config.getInt("rules.class-define-baseline.learning-sec", 300)) * 1000L;
+        this.maxEntries = Math.max(16, config.getInt("rules.class-define-baseline.max-entries", 16384));
+        this.table = new AtomicLongArray(Integer.highestOneBit(maxEntries - 1) << 2);
+        AgentMetrics.gauge("rules.class-define-baseline.entries", this::size);
+        AgentMetrics.gauge("rules.class-define-baseline.enforcing", () -> enforcing ? 1 : 0);
+    }
+    
+    /**
+     * 获取当前生效的基线
+     *
+     * @return 基线，未启用时为null
+     */
+    public static ClassDefineBaseline current() {
+        return installed;
+    }
+    
+    /**
+     * 加载持久化的基线，没有时开始学习，并使基线对探针生效
+     */
+    public synchronized void start() {
+        if (load()) {
+            enforcing = true;
+            logger.info("Loaded class define baseline with {} entries from {}", size(), path);
+        } else {
+            scheduler = AgentExecutors.newSingleThreadScheduledExecutor("janusguard-baseline");
+            scheduler.schedule(this::finishLearning, learningMs, TimeUnit.MILLISECONDS);
+            logger.info("Learning class define baseline for {} ms", learningMs);
+        }
+        installed = this;
+    }
+    
+    /**
+     * 使基线失效；学习期未结束时不保存
+     */
+    public synchronized void stop() {
+        if (installed == this) {
+            installed = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+    
+    /**
+     * 判断一次defineClass是否在基线内，在应用线程上调用
+     * 学习期内记录三元组并返回false
+     *
+     * @param loaderType 类加载器类名
+     * @param callStack 调用堆栈，下标0为最近的栈帧
+     * @param className 被定义的类名，可能为null
+     * @return 执行期内命中基线时返回true，此时调用方不应产生事件
+     */
+    public boolean covers(String loaderType, StackTraceElement[] callStack, String className) {
+        long key = key(loaderType, callerFrame(callStack), nameShape(className));
+        if (!enforcing) {
+            learn(key);
+            return false;
+        }
+        if (contains(key)) {
+            HITS.increment();
+            return true;
+        }
+        DEVIATIONS.increment();
+        return false;
+    }
+    
+    /**
+     * 是否已过学习期
+     *
+     * @return 执行期返回true
+     */
+    public boolean isEnforcing() {
+        return enforcing;
+    }
+    
+    /**
+     * 获取基线中的三元组数
+     *
+     * @return 三元组数
+     */
+    public long size() {
+        return size.get();
+    }
+    
+    /**
+     * 在应用线程上无锁写入：先登记为写入者再检查学习期是否结束，与{@link #finishLearning()}中
+     * 先结束学习期再等待写入者归零配合，保证保存时没有正在进行的写入
+     */
+    private void learn(long key) {
+        learners.incrementAndGet();
+        try {
+            if (!enforcing) {
+                insert(key);
+            }
+        } finally {
+            learners.decrementAndGet();
+        }
+    }
+    
+    /**
+     * 先占用一个名额再CAS空位，CAS失败时归还名额并重新检查该位置。
+     * 表的容量至少是max-entries的两倍，探测总能遇到空位
+     *
+     * @return 三元组已在集合中或写入成功时返回true，集合已满时返回false
+     */
+    private boolean insert(long key) {
+        int mask = table.length() - 1;
+        int i = (int) key & mask;
+        while (true) {
+            long current = table.get(i);
+            if (current == key) {
+                return true;
+            }
+            if (current != 0) {
+                i = (i + 1) & mask;
+                continue;
+            }
+            int reserved = size.incrementAndGet();
+            if (reserved > maxEntries) {
+                size.decrementAndGet();
+                return false;
+            }
+            if (table.compareAndSet(i, 0, key)) {
+                if (reserved == maxEntries) {
+                    logger.warn("Class define baseline is full at {} entries, further tuples are not learned",
+                            maxEntries);
+                }
+                return true;
+            }
+            size.decrementAndGet();
+        }
+    }
+    
+    private boolean contains(long key) {
+        int mask = table.length() - 1;
+        for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+            long current = table.get(i);
+            if (current == key) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * 结束学习期并保存基线
+     */
+    void finishLearning() {
+        enforcing = true;
+        // 等待结束前已开始的写入完成，之后哈希集合不再变化
+        while (learners.get() != 0) {
+            Thread.yield();
+        }
+        logger.info("Class define baseline learned {} entries, enforcing", size());
+        save();
+    }
+    
+    private boolean load() {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            if (in.readInt() != FILE_MAGIC) {
+                logger.warn("Ignoring class define baseline with unknown format: {}", path);
+                return false;
+            }
+            int count = in.readInt();
+            int dropped = 0;
+            for (int i = 0; i < count; i++) {
+                if (!insert(in.readLong())) {
+                    dropped++;
+                }
+            }
+            if (dropped > 0) {
+                logger.warn("Class define baseline {} has {} entries, {} beyond max-entries {} were not loaded",
+                        path, count, dropped, maxEntries);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to load class define baseline from {}, learning a new one", path, e);
+            return false;
+        }
+    }
+    
+    /**
+     * 先写临时文件再替换，避免重启时读到写了一半的基线
+     */
+    private void save() {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            // 学习期已结束且没有正在进行的写入，此时读到的是最终的基线
+            long[] entries = new long[table.length()];
+            int count = 0;
+            for (int i = 0; i < table.length(); i++) {
+                long key = table.get(i);
+                if (key != 0) {
+                    entries[count++] = key;
+                }
+            }
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    out.writeLong(entries[i]);
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Saved class define baseline to {}", path);
+        } catch (IOException e) {
+            logger.warn("Failed to save class define baseline to {}", path, e);
+        }
+    }
+    
+    /**
+     * 取调用堆栈中第一个不属于JDK、反射或Agent自身的栈帧，作为发起类定义的调用方
+     * 全部属于这些包时取最近的栈帧
+     */
+    static String callerFrame(StackTraceElement[] callStack) {
+        if (callStack == null || callStack.length == 0) {
+            return "";
+        }
+        for (StackTraceElement frame : callStack) {
+            if (!isInfrastructure(frame.getClassName())) {
+                return frame.getClassName() + '#' + frame.getMethodName();
+            }
+        }
+        return callStack[0].getClassName() + '#' + callStack[0].getMethodName();
+    }
+    
+    private static boolean isInfrastructure(String className) {
+        for (String prefix : INFRASTRUCTURE_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 类名形态：去掉生成类名中每次不同的部分
+     * 隐藏类名中/之后的地址替换为#；以$分隔的各段中，随机后缀（至少6个字符、数字之后又出现字母的段，
+     * 如CGLIB和ByteBuddy生成的后缀）整体替换为#，其余的连续数字替换为#。
+     * 例如 Foo$$EnhancerBySpringCGLIB$$1a2b3c4d 和 jdk.proxy2.$Proxy15
+     * 分别变为 Foo$$EnhancerBySpringCGLIB$$# 和 jdk.proxy#.$Proxy#
+     */
+    static String nameShape(String className) {
+        if (className == null) {
+            return "";
+        }
+        int slash = className.indexOf('/');
+        String name = slash >= 0 ? className.substring(0, slash) : className;
+        StringBuilder sb = new StringBuilder(className.length());
+        int start = 0;
+        while (start <= name.length()) {
+            int end = name.indexOf('$', start);
+            boolean last = end < 0;
+            if (last) {
+                end = name.length();
+            }
+            if (isRandomSuffix(name, start, end)) {
+                sb.append('#');
+            } else {
+                appendDigitsAsHash(sb, name, start, end);
+            }
+            if (!last) {
+                sb.append('$');
+            }
+            start = end + 1;
+        }
+        if (slash >= 0) {
+            sb.append("/#");
+        }
+        return sb.toString();
+    }
+    
+    private static boolean isRandomSuffix(String name, int start, int end) {
+        boolean digits = false;
+        boolean lettersAfterDigits = false;
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if (Character.isDigit(c)) {
+                digits = true;
+            } else if (Character.isLetter(c)) {
+                lettersAfterDigits |= digits;
+            } else {
+                return false;
+            }
+        }
+        return lettersAfterDigits && end - start >= 6;
+    }
+    
+    private static void appendDigitsAsHash(StringBuilder sb, String name, int start, int end) {
+        boolean inDigits = false;
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if (Character.isDigit(c)) {
+                if (!inDigits) {
+                    sb.append('#');
+                }
+                inDigits = true;
+            } else {
+                sb.append(c);
+                inDigits = false;
+            }
+        }
+    }
+    
+    /**
+     * 三元组的64位哈希：依次对各字段做FNV-1a，字段之间插入分隔符，最后经fmix64混合，0映射为1
+     */
+    static long key(String loaderType, String caller, String shape) {
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, loaderType);
+        h = fnv(h, caller);
+        h = fnv(h, shape);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+    
+    private static long fnv(long hash, String value) {
+        long h = hash;
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        h ^= 0xFF;
+        h *= 0x100000001b3L;
+        return h;
+    }
+}
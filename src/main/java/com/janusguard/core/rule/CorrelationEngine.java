@@ -0,0 +1,301 @@
+package com.janusguard.core.rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 攻击链关联引擎
+ * 单个事件由{@link RuleEvaluator}独立判定，而内存马的典型特征是同一线程在短时间内依次出现
+ * 反射、defineClass、命令执行等多个步骤。本引擎为每个线程的每个{@link CorrelationPattern}维护一个状态机，
+ * 全部步骤在窗口期内按顺序出现时，把最后一步的事件提升为关联级别并标注模式名和起始事件。
+ * 状态机为每个已匹配步骤数记录最新的起始事件：新的第一步事件总是开始一条新链，
+ * 较早开始、已推进更多步骤的链同时保留，先出现的无害事件不会占住窗口使之后真正的攻击链失效。
+ *
+ * 状态保存在启动时按线程数上限分配好的数组中，内存占用固定：线程槽位已满时新线程不参与关联。
+ * 窗口到期由{@link TimingWheel}驱动，时间取已处理事件的最大时间戳，不扫描全部状态。
+ * 与任何模式都无关的事件类型在加锁前即返回
+ */
+public class CorrelationEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CorrelationEngine.class);
+    
+    private static final LongAdder STEPS = AgentMetrics.counter("rules.correlation.steps");
+    private static final LongAdder MATCHED = AgentMetrics.counter("rules.correlation.matched");
+    private static final LongAdder EXPIRED = AgentMetrics.counter("rules.correlation.expired");
+    private static final LongAdder UNTRACKED = AgentMetrics.counter("rules.correlation.untracked");
+    
+    private static final String DEFAULT_PATTERN =
+            "memory-shell: REFLECTION -> CLASS_LOADING:defineClass -> COMMAND_EXECUTION";
+    
+    // 每个线程最多探测的槽位数
+    private static final int PROBES = 8;
+    
+    // 时间轮槽位数，窗口期约占其中一半
+    private static final int WHEEL_SIZE = 128;
+    
+    private final CorrelationPattern[] patterns;
+    
+    // 按事件类型序号标记是否出现在某个模式中
+    private final boolean[] relevantTypes = new boolean[SecurityEventType.values().length];
+    
+    private final long windowMs;
+    private final SecurityEventSeverity severity;
+    
+    // 线程槽位：线程ID（0表示空闲）以及进行中的状态机数量
+    private final int slotBits;
+    private final long[] threadIds;
+    private final int[] activeChains;
+    
+    // 状态机，编号为 槽位 * 模式数 + 模式下标；每个状态机占stride个前缀位置，
+    // 位置 编号 * stride + k - 1 保存已匹配k步的链中最新的起始事件ID和时间戳，ID为null表示没有这样的链。
+    // 链从更短的前缀推进而来，因此起始时间随k不增，第一个前缀总是最新的链
+    private final int stride;
+    private final String[] chainStarts;
+    private final long[] chainStartTimes;
+    
+    private final TimingWheel wheel;
+    private final TimingWheel.Expiry expiry = this::expire;
+    
+    // 已处理事件的最大时间戳
+    private long now;
+    
+    /**
+     * 构造函数
+     *
+     * @param config Agent配置
+     */
+    public CorrelationEngine(AgentConfig config) {
+        this.patterns = parsePatterns(config.getStringList("rules.correlation.patterns",
+                Collections.singletonList(DEFAULT_PATTERN)));
+        this.windowMs = Math.max(1, config.getInt("rules.correlation.window-ms", 10000));
+        this.severity = parseSeverity(config.getString("rules.correlation.severity", "CRITICAL"));
+        
+        int maxThreads = Math.max(PROBES, config.getInt("rules.correlation.max-threads", 4096));
+        this.slotBits = 32 - Integer.numberOfLeadingZeros(maxThreads - 1);
+        int slots = 1 << slotBits;
+        int states = slots * Math.max(1, patterns.length);
+        int maxSteps = 2;
+        for (CorrelationPattern pattern : patterns) {
+            maxSteps = Math.max(maxSteps, pattern.getStepCount());
+        }
+        this.stride = maxSteps - 1;
+        this.threadIds = new long[slots];
+        this.activeChains = new int[slots];
+        this.chainStarts = new String[states * stride];
+        this.chainStartTimes = new long[states * stride];
+        this.wheel = new TimingWheel(states, (windowMs * 2 + WHEEL_SIZE - 1) / WHEEL_SIZE, WHEEL_SIZE);
+        
+        for (CorrelationPattern pattern : patterns) {
+            for (int step = 0; step < pattern.getStepCount(); step++) {
+                relevantTypes[pattern.getType(step).ordinal()] = true;
+            }
+        }
+        
+        // 槽位数组、状态数组和时间轮数组的大致占用，不含起始事件ID字符串本身
+        long budget = slots * 12L + states * (stride * (4L + 8) + 20);
+        logger.info("Correlation engine started with {} patterns, {} thread slots, {} ms window, ~{} KB state",
+                patterns.length, slots, windowMs, budget / 1024);
+    }
+    
+    /**
+     * 判断事件类型是否出现在某个模式中
+     *
+     * @param event 事件
+     * @return 与任何模式都无关时返回false
+     */
+    public boolean isRelevant(SecurityEvent event) {
+        SecurityEventType type = event.getType();
+        return type != null && relevantTypes[type.ordinal()];
+    }
+    
+    /**
+     * 把事件送入关联状态机，在规则评估之后调用
+     * 事件须按产生顺序送入，队列的通道调度和多个处理线程会打乱顺序，由调用方先经过重排序缓冲
+     *
+     * @param event 已评估的事件
+     */
+    public void evaluate(SecurityEvent event) {
+        if (!isRelevant(event)) {
+            return;
+        }
+        synchronized (this) {
+            advance(event);
+        }
+    }
+    
+    private void advance(SecurityEvent event) {
+        now = Math.max(now, event.getTimestamp());
+        wheel.advance(now, expiry);
+        
+        int slot = slotFor(event.getThreadId());
+        if (slot < 0) {
+            UNTRACKED.increment();
+            return;
+        }
+        
+        int base = slot * patterns.length;
+        for (int i = 0; i < patterns.length; i++) {
+            advance(patterns[i], base + i, slot, event);
+        }
+        
+        if (activeChains[slot] == 0) {
+            threadIds[slot] = 0;
+        }
+    }
+    
+    /**
+     * 推进一个状态机
+     * 从最长的前缀往回处理，同一事件在一次评估中至多推进一步
+     */
+    private void advance(CorrelationPattern pattern, int state, int slot, SecurityEvent event) {
+        int first = state * stride;
+        int last = pattern.getStepCount() - 1;
+        long timestamp = event.getTimestamp();
+        for (int k = last; k >= 1; k--) {
+            int prefix = first + k - 1;
+            if (chainStarts[prefix] == null || !pattern.matches(k, event)) {
+                continue;
+            }
+            if (timestamp - chainStartTimes[prefix] > windowMs) {
+                // 时间轮按刻度到期，可能晚于窗口结束；超出窗口的前缀在这里丢弃。第一个前缀最新，它超出窗口时整个状态机都已过期
+                if (k == 1) {
+                    EXPIRED.increment();
+                    reset(state);
+                } else {
+                    chainStarts[prefix] = null;
+                }
+                continue;
+            }
+            STEPS.increment();
+            if (k == last) {
+                complete(pattern, chainStarts[prefix], event);
+                discardThrough(state, chainStartTimes[prefix]);
+            } else {
+                chainStarts[prefix + 1] = chainStarts[prefix];
+                chainStartTimes[prefix + 1] = chainStartTimes[prefix];
+            }
+        }
+        
+        if (pattern.matches(0, event)) {
+            STEPS.increment();
+            if (chainStarts[first] == null) {
+                activeChains[slot]++;
+            }
+            chainStarts[first] = event.getId();
+            chainStartTimes[first] = timestamp;
+            // 与上面的检查一致，距起始事件恰好一个窗口的事件仍在窗口内
+            wheel.schedule(state, timestamp + windowMs + 1);
+        }
+    }
+    
+    private void complete(CorrelationPattern pattern, String startEvent, SecurityEvent event) {
+        MATCHED.increment();
+        if (event.getSeverity() == null || !event.getSeverity().isAtLeast(severity)) {
+            event.setSeverity(severity);
+        }
+        event.addData(AgentConstants.EventFields.CORRELATION_PATTERN, pattern.getName());
+        event.addData(AgentConstants.EventFields.CORRELATION_START_EVENT, startEvent);
+        logger.info("Correlation pattern {} completed on thread {} by event {}",
+                pattern.getName(), event.getThreadName(), event.getId());
+    }
+    
+    /**
+     * 链完成后丢弃不晚于其起始事件开始的前缀，同一条链不会再次告警，之后开始的链保留
+     */
+    private void discardThrough(int state, long startTime) {
+        int first = state * stride;
+        if (chainStartTimes[first] <= startTime) {
+            reset(state);
+            return;
+        }
+        for (int prefix = first + 1; prefix < first + stride; prefix++) {
+            if (chainStarts[prefix] != null && chainStartTimes[prefix] <= startTime) {
+                chainStarts[prefix] = null;
+            }
+        }
+    }
+    
+    private void reset(int state) {
+        wheel.cancel(state);
+        clear(state);
+        activeChains[state / patterns.length]--;
+    }
+    
+    private void expire(int state) {
+        if (chainStarts[state * stride] == null) {
+            return;
+        }
+        EXPIRED.increment();
+        clear(state);
+        int slot = state / patterns.length;
+        if (--activeChains[slot] == 0) {
+            threadIds[slot] = 0;
+        }
+    }
+    
+    private void clear(int state) {
+        int first = state * stride;
+        for (int prefix = first; prefix < first + stride; prefix++) {
+            chainStarts[prefix] = null;
+        }
+    }
+    
+    /**
+     * 查找或占用线程槽位
+     *
+     * @return 槽位下标，探测范围内没有空闲槽位时返回-1
+     */
+    private int slotFor(long threadId) {
+        // 线程ID从1开始，0用作空闲标记
+        long key = threadId == 0 ? Long.MIN_VALUE : threadId;
+        int mask = threadIds.length - 1;
+        int start = (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - slotBits)) & mask;
+        int free = -1;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (threadIds[slot] == key) {
+                return slot;
+            }
+            if (free < 0 && threadIds[slot] == 0) {
+                free = slot;
+            }
+        }
+        if (free >= 0) {
+            threadIds[free] = key;
+        }
+        return free;
+    }
+    
+    private static CorrelationPattern[] parsePatterns(List<String> texts) {
+        List<CorrelationPattern> patterns = new ArrayList<>();
+        for (String text : texts) {
+            try {
+                patterns.add(CorrelationPattern.parse(text));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid correlation pattern: {} ({})", text, e.getMessage());
+            }
+        }
+        return patterns.toArray(new CorrelationPattern[0]);
+    }
+    
+    private static SecurityEventSeverity parseSeverity(String value) {
+        try {
+            return SecurityEventSeverity.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid correlation severity: {}, falling back to CRITICAL", value);
+            return SecurityEventSeverity.CRITICAL;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.janusguard.core.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 关联模式
+ * 同一线程上按顺序出现的若干步骤，每一步由事件类型和可选的方法名前缀描述。
+ * 文本形式为 名称: 步骤 -&gt; 步骤 -&gt; ...，步骤写作 TYPE 或 TYPE:方法名前缀，
+ * 例如 memory-shell: REFLECTION -&gt; CLASS_LOADING:defineClass -&gt; COMMAND_EXECUTION
+ */
+public final class CorrelationPattern {
+    
+    private final String name;
+    private final SecurityEventType[] types;
+    
+    // 方法名前缀，为null表示不限制方法
+    private final String[] methodPrefixes;
+    
+    private CorrelationPattern(String name, SecurityEventType[] types, String[] methodPrefixes) {
+        this.name = name;
+        this.types = types;
+        this.methodPrefixes = methodPrefixes;
+    }
+    
+    /**
+     * 解析文本形式的关联模式
+     *
+     * @param text 模式文本
+     * @return 关联模式
+     * @throws IllegalArgumentException 如果格式错误或步骤少于两步
+     */
+    public static CorrelationPattern parse(String text) {
+        int colon = text.indexOf(':');
+        int arrow = text.indexOf("->");
+        if (colon <= 0 || arrow >= 0 && arrow < colon) {
+            throw new IllegalArgumentException("Missing pattern name: " + text);
+        }
+        
+        String name = text.substring(0, colon).trim();
+        List<SecurityEventType> types = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        for (String step : text.substring(colon + 1).split("->")) {
+            String[] parts = step.trim().split(":", 2);
+            types.add(SecurityEventType.valueOf(parts[0].trim().toUpperCase()));
+            prefixes.add(parts.length > 1 && !parts[1].trim().isEmpty() ? parts[1].trim() : null);
+        }
+        if (types.size() < 2) {
+            throw new IllegalArgumentException("Correlation pattern needs at least two steps: " + text);
+        }
+        return new CorrelationPattern(name, types.toArray(new SecurityEventType[0]), prefixes.toArray(new String[0]));
+    }
+    
+    /**
+     * 获取模式名称
+     *
+     * @return 模式名称
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * 获取步骤数
+     *
+     * @return 步骤数
+     */
+    public int getStepCount() {
+        return types.length;
+    }
+    
+    /**
+     * 获取步骤的事件类型
+     *
+     * @param step 步骤下标
+     * @return 事件类型
+     */
+    public SecurityEventType getType(int step) {
+        return types[step];
+    }
+    
+    /**
+     * 判断事件是否满足指定步骤
+     *
+     * @param step 步骤下标
+     * @param event 事件
+     * @return 是否满足
+     */
+    public boolean matches(int step, SecurityEvent event) {
+        if (event.getType() != types[step]) {
+            return false;
+        }
+        String prefix = methodPrefixes[step];
+        return prefix == null || event.getMethodName() != null && event.getMethodName().startsWith(prefix);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name).append(": ");
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                sb.append(" -> ");
+            }
+            sb.append(types[i]);
+            if (methodPrefixes[i] != null) {
+                sb.append(':').append(methodPrefixes[i]);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,261 @@
+package com.janusguard.core.rule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 规则评估器
+ * 在事件处理线程上对探针采集的原始事件进行分类、可疑特征识别和严重级别判定，
+ * 应用线程上只使用预先计算好的{@link #baseSeverity(SecurityEventType)}查表结果
+ */
+public class RuleEvaluator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RuleEvaluator.class);
+    
+    // 按事件类型预先计算的基础严重级别，下标为SecurityEventType序号
+    private static final SecurityEventSeverity[] BASE_SEVERITY = buildBaseSeverityTable();
+    
+    /**
+     * 查表获取事件类型的基础严重级别
+     * 仅做一次数组访问，可在应用线程上调用，用于在规则评估之前选择队列通道
+     * 
+     * @param type 事件类型
+     * @return 基础严重级别
+     */
+    public static SecurityEventSeverity baseSeverity(SecurityEventType type) {
+        return type == null ? SecurityEventSeverity.LOW : BASE_SEVERITY[type.ordinal()];
+    }
+    
+    /**
+     * 构建基础严重级别表
+     */
+    private static SecurityEventSeverity[] buildBaseSeverityTable() {
+        SecurityEventSeverity[] table = new SecurityEventSeverity[SecurityEventType.values().length];
+        for (SecurityEventType type : SecurityEventType.values()) {
+            switch (type) {
+                // 命令执行以及内存木马相关操作为高优先级
+                case COMMAND_EXECUTION:
+                case CLASS_LOADING:
+                case JVM_MEMORY_OPERATION:
+                case JNI_OPERATION:
+                    table[type.ordinal()] = SecurityEventSeverity.HIGH;
+                    break;
+                // 文件操作和动态代理为中等优先级
+                case FILE_OPERATION:
+                case DYNAMIC_PROXY:
+                    table[type.ordinal()] = SecurityEventSeverity.MEDIUM;
+                    break;
+                // 其他类型为低优先级
+                default:
+                    table[type.ordinal()] = SecurityEventSeverity.LOW;
+                    break;
+            }
+        }
+        return table;
+    }
+    
+    /**
+     * 评估事件：识别可疑特征并确定最终严重级别
+     * 
+     * @param event 要评估的事件
+     */
+    public void evaluate(SecurityEvent event) {
+        event.setSeverity(baseSeverity(event.getType()));
+        
+        if (event.getType() == null) {
+            return;
+        }
+        
+        switch (event.getType()) {
+            case CLASS_LOADING:
+                evaluateClassLoading(event);
+                break;
+            case JVM_MEMORY_OPERATION:
+                evaluateUnsafe(event);
+                break;
+            case JNI_OPERATION:
+                evaluateJNI(event);
+                break;
+            case DYNAMIC_PROXY:
+                evaluateDynamicProxy(event);
+                break;
+            default:
+                break;
+        }
+        
+        // 如果事件中标记了可疑活动，提升为严重级别并记录告警
+        if (event.getData(AgentConstants.EventFields.MEMORY_TROJAN_SUSPICIOUS) != null || 
+            event.getData(AgentConstants.EventFields.DANGEROUS_OPERATION) != null ||
+            event.getData(AgentConstants.EventFields.SUSPICIOUS_JNI) != null) {
+            event.setSeverity(SecurityEventSeverity.CRITICAL);
+            logger.warn("检测到可能的内存木马活动: {}", event);
+        }
+        
+        // 如果检测到可疑代理，提高严重级别
+        if (event.getData(AgentConstants.EventFields.SUSPICIOUS_PROXY) != null) {
+            event.setSeverity(SecurityEventSeverity.HIGH);
+            logger.warn("检测到可疑动态代理: {}", event);
+        }
+    }
+    
+    /**
+     * 评估类加载事件
+     */
+    private void evaluateClassLoading(SecurityEvent event) {
+        if (event.getMethodName() == null || !event.getMethodName().startsWith("defineClass")) {
+            return;
+        }
+        
+        String definedClassName = (String) event.getData(AgentConstants.EventFields.TARGET_CLASS);
+        if (isMemoryTrojanSuspicious(event.getCallStackTrace(), definedClassName)) {
+            event.addData(AgentConstants.EventFields.MEMORY_TROJAN_SUSPICIOUS, true);
+            event.addData(AgentConstants.MemoryTrojanDetection.REASON, "可疑类动态加载检测");
+        }
+    }
+    
+    /**
+     * 评估Unsafe操作事件
+     */
+    private void evaluateUnsafe(SecurityEvent event) {
+        // 仅在有参数的调用上判断
+        if (event.getData("firstArgType") != null && isDangerousUnsafeMethod(event.getMethodName())) {
+            event.addData(AgentConstants.EventFields.DANGEROUS_OPERATION, true);
+            event.addData(AgentConstants.MemoryTrojanDetection.REASON, "高危Unsafe内存操作");
+        }
+    }
+    
+    /**
+     * 评估JNI操作事件
+     */
+    private void evaluateJNI(SecurityEvent event) {
+        Object libraryPath = event.getData(AgentConstants.EventFields.LIBRARY_PATH);
+        if (libraryPath instanceof String
+                && isSuspiciousJNILoading((String) libraryPath, event.getCallStackTrace())) {
+            event.addData(AgentConstants.EventFields.SUSPICIOUS_JNI, true);
+            event.addData(AgentConstants.MemoryTrojanDetection.REASON, "可疑JNI库加载");
+        }
+    }
+    
+    /**
+     * 评估动态代理事件
+     */
+    private void evaluateDynamicProxy(SecurityEvent event) {
+        Object interfaces = event.getData(AgentConstants.EventFields.PROXY_INTERFACES);
+        if (interfaces instanceof String
+                && isSuspiciousProxyCreation(event.getCallStackTrace(), ((String) interfaces).split(", "))) {
+            event.addData(AgentConstants.EventFields.SUSPICIOUS_PROXY, true);
+            event.addData(AgentConstants.MemoryTrojanDetection.REASON, "可疑动态代理创建");
+        }
+    }
+    
+    /**
+     * 检测可能的内存木马注入迹象
+     * 
+     * @param callStack 调用堆栈
+     * @param className 被加载的类名
+     * @return 如果可疑返回true
+     */
+    static boolean isMemoryTrojanSuspicious(String callStack, String className) {
+        // 可疑迹象1: 类名为null或空
+        if (className == null || className.isEmpty()) {
+            return true;
+        }
+        
+        // 可疑迹象2: 不寻常的包名或类名命名
+        if (className.contains("$$") || 
+            className.startsWith("sun.") ||
+            className.startsWith("jdk.internal") ||
+            className.matches(".*[0-9]{5,}.*")) {
+            return true;
+        }
+        
+        // 可疑迹象3: 堆栈中包含可疑的调用方
+        if (callStack != null && (
+                callStack.contains("reflect.") ||
+                callStack.contains("URLClassLoader") && !callStack.contains("loadClass") ||
+                callStack.contains("DynamicProxyClass") ||
+                callStack.contains("CGLIB") ||
+                callStack.contains("asm.") ||
+                callStack.contains("ByteBuddy") && !callStack.contains("janusguard"))) {
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * 判断是否为危险的Unsafe方法
+     * 
+     * @param methodName 方法名
+     * @return 如果是危险方法则返回true
+     */
+    static boolean isDangerousUnsafeMethod(String methodName) {
+        return methodName != null && (
+               methodName.equals("putAddress") || 
+               methodName.equals("putObject") || 
+               methodName.startsWith("defineClass") || 
+               methodName.equals("allocateInstance") ||
+               methodName.equals("defineAnonymousClass"));
+    }
+    
+    /**
+     * 判断是否为可疑的JNI库加载
+     * 
+     * @param libraryPath 库路径
+     * @param callStack 调用堆栈
+     * @return 如果可疑则返回true
+     */
+    static boolean isSuspiciousJNILoading(String libraryPath, String callStack) {
+        // 检测临时目录中的库
+        if (libraryPath.contains("/tmp/") || 
+            libraryPath.contains("\\Temp\\") || 
+            libraryPath.contains("临时")) {
+            return true;
+        }
+        
+        // 检测可疑的文件名
+        if (libraryPath.matches(".*[0-9a-f]{8,}.*") || 
+            libraryPath.contains("hack") ||
+            libraryPath.contains("exploit")) {
+            return true;
+        }
+        
+        // 检查调用链
+        return callStack != null && (
+                callStack.contains("reflect.") ||
+                callStack.contains("URLClassLoader") ||
+                callStack.contains("ScriptEngine") ||
+                callStack.contains("eval"));
+    }
+    
+    /**
+     * 判断是否为可疑的代理创建
+     * 
+     * @param callStack 调用堆栈
+     * @param interfaceNames 代理接口名
+     * @return 如果可疑则返回true
+     */
+    static boolean isSuspiciousProxyCreation(String callStack, String[] interfaceNames) {
+        // 检查是否包含敏感接口
+        for (String name : interfaceNames) {
+            if (name.contains("java.rmi") || 
+                name.startsWith("javax.management") ||
+                name.contains("Instruction") ||
+                name.contains("ClassLoader")) {
+                return true;
+            }
+        }
+        
+        // 检查调用链是否可疑
+        return callStack != null && (
+                callStack.contains("exploit") ||
+                callStack.contains("payload") ||
+                callStack.contains("gadget") ||
+                callStack.contains("deserialize"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.janusguard.core.rule;
+
+import java.util.Arrays;
+
+/**
+ * 哈希时间轮
+ * 定时项用0到capacity-1的整数编号表示，链表指针保存在预先分配的数组中，运行期间不分配内存。
+ * 到期时间按刻度散列到槽位，推进时间时只遍历经过的槽位，不扫描全部定时项。
+ * 槽位数覆盖的时长应不小于最长的定时时长，此时每个槽位中的定时项最多只需检查一次。
+ * 非线程安全，由调用方同步
+ */
+final class TimingWheel {
+    
+    private static final int NIL = -1;
+    
+    private final long tickMs;
+    private final int mask;
+    
+    // 每个槽位链表的头节点
+    private final int[] heads;
+    
+    // 定时项的前后指针和到期时间，未调度的定时项prev/next均为NIL且不在任何链表中
+    private final int[] next;
+    private final int[] prev;
+    private final int[] slotOf;
+    private final long[] deadlines;
+    
+    // 已推进到的刻度
+    private long currentTick = Long.MIN_VALUE;
+    
+    /**
+     * 构造函数
+     *
+     * @param capacity 定时项数量
+     * @param tickMs 刻度时长
+     * @param wheelSize 槽位数，向上取整为2的幂
+     */
+    TimingWheel(int capacity, long tickMs, int wheelSize) {
+        this.tickMs = Math.max(1, tickMs);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.heads = new int[size];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.slotOf = new int[capacity];
+        this.deadlines = new long[capacity];
+        Arrays.fill(heads, NIL);
+        Arrays.fill(slotOf, NIL);
+    }
+    
+    /**
+     * 调度定时项，已调度的定时项会先被取消
+     *
+     * @param id 定时项编号
+     * @param deadline 到期时间
+     */
+    void schedule(int id, long deadline) {
+        cancel(id);
+        int slot = (int) (deadline / tickMs) & mask;
+        deadlines[id] = deadline;
+        slotOf[id] = slot;
+        prev[id] = NIL;
+        next[id] = heads[slot];
+        if (heads[slot] != NIL) {
+            prev[heads[slot]] = id;
+        }
+        heads[slot] = id;
+    }
+    
+    /**
+     * 取消定时项，未调度时不做任何事情
+     *
+     * @param id 定时项编号
+     */
+    void cancel(int id) {
+        int slot = slotOf[id];
+        if (slot == NIL) {
+            return;
+        }
+        if (prev[id] != NIL) {
+            next[prev[id]] = next[id];
+        } else {
+            heads[slot] = next[id];
+        }
+        if (next[id] != NIL) {
+            prev[next[id]] = prev[id];
+        }
+        slotOf[id] = NIL;
+    }
+    
+    /**
+     * 推进到指定时间，对其间到期的定时项调用回调
+     *
+     * @param now 当前时间
+     * @param expired 到期回调，回调中可以重新调度或取消定时项
+     */
+    void advance(long now, Expiry expired) {
+        long target = now / tickMs;
+        if (currentTick == Long.MIN_VALUE) {
+            currentTick = target;
+        }
+        if (target < currentTick) {
+            return;
+        }
+        
+        // 跨度超过一圈时每个槽位只需遍历一次
+        long from = target - currentTick > mask ? target - mask : currentTick;
+        for (long tick = from; tick <= target; tick++) {
+            int id = heads[(int) tick & mask];
+            while (id != NIL) {
+                int following = next[id];
+                if (deadlines[id] <= now) {
+                    cancel(id);
+                    expired.onExpired(id);
+                }
+                id = following;
+            }
+        }
+        currentTick = target;
+    }
+    
+    /**
+     * 到期回调
+     */
+    interface Expiry {
+        
+        /**
+         * 定时项到期，调用时已从时间轮中移除
+         *
+         * @param id 定时项编号
+         */
+        void onExpired(int id);
+    }
+}
@@ -0,0 +1,168 @@
+package com.janusguard.transformer;
+
+import java.lang.instrument.Instrumentation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.metrics.AgentMetrics;
+
+/**
+ * 分批重新转换器
+ * 动态附加时目标类型大多已经加载，一次性重新转换会造成较长的全局停顿。
+ * 本类按调用方给定的顺序分成小批次逐批重新转换，批次之间让出时间片；
+ * 单次重新转换耗时超过上限时自动缩小后续批次，使每次停顿保持有界
+ */
+public class BatchedRetransformer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BatchedRetransformer.class);
+    
+    // 重新转换指标
+    private static final LongAdder CLASSES_RETRANSFORMED = AgentMetrics.counter("transformer.retransform.classes");
+    private static final LongAdder BATCHES = AgentMetrics.counter("transformer.retransform.batches");
+    private static final LongAdder FAILURES = AgentMetrics.counter("transformer.retransform.failures");
+    private static final LongAdder PAUSE_NS_TOTAL = AgentMetrics.counter("transformer.retransform.pause-ns-total");
+    private static final AtomicLong PAUSE_NS_MAX = new AtomicLong();
+    private static final AtomicLong PENDING = new AtomicLong();
+    
+    static {
+        AgentMetrics.gauge("transformer.retransform.pause-ns-max", PAUSE_NS_MAX::get);
+        AgentMetrics.gauge("transformer.retransform.pending", PENDING::get);
+    }
+    
+    private final Instrumentation instrumentation;
+    
+    // 是否分批；为false时一次性重新转换全部类型
+    private final boolean batched;
+    
+    private final int batchSize;
+    
+    // 批次之间的间隔
+    private final long intervalMs;
+    
+    // 单次重新转换的耗时上限
+    private final long maxPauseNanos;
+    
+    /**
+     * 构造函数
+     *
+     * @param config Agent配置
+     * @param instrumentation Instrumentation实例
+     */
+    public BatchedRetransformer(AgentConfig config, Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+        this.batched = !"all-at-once".equalsIgnoreCase(
+                config.getString("transformer.retransform.mode", "batched").trim());
+        this.batchSize = Math.max(1, config.getInt("transformer.retransform.batch-size", 8));
+        this.intervalMs = Math.max(0, config.getInt("transformer.retransform.interval-ms", 10));
+        this.maxPauseNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(1, config.getInt("transformer.retransform.max-pause-ms", 50)));
+    }
+    
+    /**
+     * 按顺序重新转换给定的类
+     * 线程被中断时停止并返回已完成的数量
+     *
+     * @param targets 待重新转换的类，调用方已按优先级排序
+     * @return 成功重新转换的类数量
+     */
+    public int retransform(List<Class<?>> targets) {
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        
+        int total = targets.size();
+        int currentBatchSize = batched ? batchSize : total;
+        int done = 0;
+        int succeeded = 0;
+        PENDING.addAndGet(total);
+        try {
+            while (done < total) {
+                int end = Math.min(total, done + currentBatchSize);
+                List<Class<?>> batch = targets.subList(done, end);
+                
+                long start = System.nanoTime();
+                succeeded += retransformBatch(batch);
+                long pause = System.nanoTime() - start;
+                recordPause(pause);
+                
+                done = end;
+                PENDING.addAndGet(-batch.size());
+                logger.info("Retransformation progress: {}/{} classes, last batch {} classes in {} ms",
+                        done, total, batch.size(), TimeUnit.NANOSECONDS.toMillis(pause));
+                
+                if (done >= total) {
+                    break;
+                }
+                
+                // 超出停顿上限时缩小后续批次
+                if (batched && pause > maxPauseNanos && currentBatchSize > 1) {
+                    currentBatchSize = Math.max(1, currentBatchSize / 2);
+                    logger.info("Retransformation pause exceeded {} ms, reducing batch size to {}",
+                            TimeUnit.NANOSECONDS.toMillis(maxPauseNanos), currentBatchSize);
+                }
+                
+                if (intervalMs > 0) {
+                    Thread.sleep(intervalMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Retransformation interrupted, {} of {} classes not retransformed", total - done, total);
+        } finally {
+            PENDING.addAndGet(done - total);
+        }
+        return succeeded;
+    }
+    
+    /**
+     * 重新转换一个批次；整批失败时逐个重试，避免单个类的错误影响同批其他类
+     */
+    private int retransformBatch(List<Class<?>> batch) {
+        if (batch.size() == 1) {
+            return retransformOne(batch.get(0));
+        }
+        try {
+            instrumentation.retransformClasses(batch.toArray(new Class<?>[0]));
+            BATCHES.increment();
+            CLASSES_RETRANSFORMED.add(batch.size());
+            return batch.size();
+        } catch (Throwable e) {
+            logger.warn("Batch retransformation failed, retrying {} classes individually", batch.size(), e);
+        }
+        
+        int succeeded = 0;
+        for (Class<?> target : batch) {
+            succeeded += retransformOne(target);
+        }
+        return succeeded;
+    }
+    
+    private int retransformOne(Class<?> target) {
+        try {
+            instrumentation.retransformClasses(target);
+            BATCHES.increment();
+            CLASSES_RETRANSFORMED.increment();
+            return 1;
+        } catch (Throwable e) {
+            FAILURES.increment();
+            logger.error("Failed to retransform loaded class: {}", target.getName(), e);
+            return 0;
+        }
+    }
+    
+    private static void recordPause(long pause) {
+        PAUSE_NS_TOTAL.add(pause);
+        long max;
+        while (pause > (max = PAUSE_NS_MAX.get())) {
+            if (PAUSE_NS_MAX.compareAndSet(max, pause)) {
+                break;
+            }
+        }
+    }
+}
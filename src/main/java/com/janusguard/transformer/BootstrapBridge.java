@@ -0,0 +1,227 @@
+package com.janusguard.transformer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.Instrumentation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.bootstrap.ProbeDispatcher;
+import com.janusguard.core.monitor.MonitorType;
+import com.janusguard.core.monitor.ProbeSwitches;
+import com.janusguard.transformer.interceptor.ClassLoaderInterceptor;
+import com.janusguard.transformer.interceptor.CommandExecutionInterceptor;
+import com.janusguard.transformer.interceptor.DynamicProxyInterceptor;
+import com.janusguard.transformer.interceptor.FileOperationInterceptor;
+import com.janusguard.transformer.interceptor.JNIInterceptor;
+import com.janusguard.transformer.interceptor.ReflectionInterceptor;
+import com.janusguard.transformer.interceptor.UnsafeInterceptor;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.matcher.ElementMatchers;
+import net.bytebuddy.pool.TypePool;
+
+/**
+ * 引导类加载器桥接
+ * 被植入探针的目标类型都由引导类加载器加载，看不到Agent类加载器中的拦截器。
+ * 启动时把{@link ProbeDispatcher}写入临时jar并追加到引导类加载器的搜索路径，
+ * 探针统一委托给分发器，再由分发器通过可变调用点转发给Agent类加载器中的拦截器；
+ * {@link ProbeSwitches}关闭的探针链接为直接执行原始方法。
+ * 追加失败时退回到直接委托给拦截器
+ */
+public final class BootstrapBridge {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BootstrapBridge.class);
+    
+    // 不能引用ProbeDispatcher.class，否则会在追加到引导类加载器之前由Agent类加载器加载
+    private static final String DISPATCHER_CLASS = "com.janusguard.bootstrap.ProbeDispatcher";
+    
+    private static final Map<MonitorType, Probe> PROBES = new EnumMap<>(MonitorType.class);
+    
+    static {
+        PROBES.put(MonitorType.COMMAND_EXECUTION, new Probe(ProbeDispatcher.COMMAND_EXECUTION,
+                "commandExecution", CommandExecutionInterceptor.class));
+        PROBES.put(MonitorType.FILE_OPERATIONS, new Probe(ProbeDispatcher.FILE_OPERATIONS,
+                "fileOperations", FileOperationInterceptor.class));
+        PROBES.put(MonitorType.REFLECTION, new Probe(ProbeDispatcher.REFLECTION,
+                "reflection", ReflectionInterceptor.class));
+        PROBES.put(MonitorType.CLASS_LOADING, new Probe(ProbeDispatcher.CLASS_LOADING,
+                "classLoading", ClassLoaderInterceptor.class));
+        PROBES.put(MonitorType.UNSAFE, new Probe(ProbeDispatcher.UNSAFE,
+                "unsafe", UnsafeInterceptor.class));
+        PROBES.put(MonitorType.DYNAMIC_PROXY, new Probe(ProbeDispatcher.DYNAMIC_PROXY,
+                "dynamicProxy", DynamicProxyInterceptor.class));
+        PROBES.put(MonitorType.JNI, new Probe(ProbeDispatcher.JNI,
+                "jni", JNIInterceptor.class));
+    }
+    
+    private static volatile boolean installed = false;
+    
+    // Agent停止后不再把拦截器链接回分发器
+    private static boolean unlinked = false;
+    
+    // 分发器的类型描述，从类文件解析，保留运行时无法加载的ByteBuddy注解
+    private static volatile TypeDescription dispatcherDescription;
+    
+    // 禁止实例化
+    private BootstrapBridge() {
+    }
+    
+    /**
+     * 把分发器放入引导类加载器并链接所有拦截器，只需调用一次
+     *
+     * @param instrumentation Instrumentation实例
+     * @return 是否安装成功
+     */
+    public static synchronized boolean install(Instrumentation instrumentation) {
+        if (installed) {
+            return true;
+        }
+        try {
+            File jar = writeDispatcherJar();
+            instrumentation.appendToBootstrapClassLoaderSearch(new JarFile(jar));
+            
+            Class<?> dispatcher = Class.forName(DISPATCHER_CLASS, true, null);
+            if (dispatcher.getClassLoader() != null) {
+                logger.warn("Probe dispatcher was not loaded by the bootstrap class loader, delegating to interceptors directly");
+                return false;
+            }
+            
+            TypePool.Resolution resolution = TypePool.Default.of(BootstrapBridge.class.getClassLoader())
+                    .describe(DISPATCHER_CLASS);
+            if (!resolution.isResolved()) {
+                logger.warn("Cannot describe probe dispatcher, delegating to interceptors directly");
+                return false;
+            }
+            dispatcherDescription = resolution.resolve();
+            
+            for (Map.Entry<MonitorType, Probe> entry : PROBES.entrySet()) {
+                Probe probe = entry.getValue();
+                probe.handle = MethodHandles.publicLookup()
+                        .findStatic(probe.interceptor, "intercept", ProbeDispatcher.PROBE_TYPE);
+                if (ProbeSwitches.isEnabled(entry.getKey())) {
+                    ProbeDispatcher.install(probe.id, probe.handle);
+                }
+            }
+            installed = true;
+            logger.info("Probe dispatcher installed in bootstrap class loader from {}", jar);
+            return true;
+        } catch (Throwable e) {
+            logger.warn("Failed to install probe dispatcher, delegating to interceptors directly", e);
+            return false;
+        }
+    }
+    
+    /**
+     * 断开所有拦截器，已植入的探针之后直接执行原始方法
+     */
+    public static synchronized void uninstall() {
+        if (!installed) {
+            return;
+        }
+        for (Probe probe : PROBES.values()) {
+            ProbeDispatcher.uninstall(probe.id);
+        }
+        unlinked = true;
+        logger.info("Probe dispatcher unlinked from interceptors");
+    }
+    
+    /**
+     * 把指定监控的探针链接到拦截器，或链接为直接执行原始方法
+     *
+     * @param type 监控类型
+     * @param enabled 是否链接到拦截器
+     * @return 分发器未安装、开关不起作用时返回false
+     */
+    public static synchronized boolean relink(MonitorType type, boolean enabled) {
+        if (!installed) {
+            return false;
+        }
+        Probe probe = PROBES.get(type);
+        if (enabled && !unlinked) {
+            ProbeDispatcher.install(probe.id, probe.handle);
+        } else {
+            ProbeDispatcher.uninstall(probe.id);
+        }
+        return true;
+    }
+    
+    /**
+     * 分发器是否已安装
+     *
+     * @return 是否已安装
+     */
+    public static boolean isInstalled() {
+        return installed;
+    }
+    
+    /**
+     * 获取指定监控的探针实现：分发器已安装时委托给分发器，否则直接委托给拦截器
+     *
+     * @param type 监控类型
+     * @return ByteBuddy方法委托
+     */
+    public static Implementation delegationFor(MonitorType type) {
+        Probe probe = PROBES.get(type);
+        if (!installed) {
+            return MethodDelegation.to(probe.interceptor);
+        }
+        return MethodDelegation.withDefaultConfiguration()
+                .filter(ElementMatchers.named(probe.dispatcherMethod))
+                .to(dispatcherDescription);
+    }
+    
+    /**
+     * 把分发器的类文件写入临时jar
+     */
+    private static File writeDispatcherJar() throws IOException {
+        String resource = DISPATCHER_CLASS.replace('.', '/') + ".class";
+        File jar = File.createTempFile("janusguard-bootstrap-", ".jar");
+        jar.deleteOnExit();
+        
+        try (InputStream in = BootstrapBridge.class.getClassLoader().getResourceAsStream(resource);
+             JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            if (in == null) {
+                throw new IOException("Probe dispatcher class file not found: " + resource);
+            }
+            out.putNextEntry(new JarEntry(resource));
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            out.closeEntry();
+        }
+        return jar;
+    }
+    
+    /**
+     * 探针描述：分发器中的编号和方法名，以及对应的拦截器
+     */
+    private static final class Probe {
+        final int id;
+        final String dispatcherMethod;
+        final Class<?> interceptor;
+        
+        // 拦截器句柄，安装分发器时解析
+        MethodHandle handle;
+        
+        Probe(int id, String dispatcherMethod, Class<?> interceptor) {
+            this.id = id;
+            this.dispatcherMethod = dispatcherMethod;
+            this.interceptor = interceptor;
+        }
+    }
+}
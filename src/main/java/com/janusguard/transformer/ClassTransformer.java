@@ -3,114 +3,158 @@ package com.janusguard.transformer;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.lang.instrument.Instrumentation;
+import java.nio.ByteBuffer;
 import java.security.ProtectionDomain;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.janusguard.agent.AgentConfig;
-import com.janusguard.core.event.EventProcessor;
-import com.janusguard.transformer.interceptor.CommandExecutionInterceptor;
-import com.janusguard.transformer.interceptor.FileOperationInterceptor;
-import com.janusguard.transformer.interceptor.ReflectionInterceptor;
-import com.janusguard.transformer.interceptor.ClassLoaderInterceptor;
-import com.janusguard.transformer.interceptor.UnsafeInterceptor;
-import com.janusguard.transformer.interceptor.DynamicProxyInterceptor;
-import com.janusguard.transformer.interceptor.JNIInterceptor;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.common.platform.VirtualThreads;
+import com.janusguard.core.monitor.MonitorType;
+import com.janusguard.transformer.matcher.TargetTypeMatcher;
 
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.implementation.MethodDelegation;
 import net.bytebuddy.matcher.ElementMatchers;
 import net.bytebuddy.utility.JavaModule;
 
 /**
  * 字节码转换器
- * 使用ByteBuddy库来实现字节码转换，植入安全监控探针
+ * 使用ByteBuddy库来实现字节码转换，植入安全监控探针。
+ * 本类是唯一注册到Instrumentation的转换器：廉价的名称过滤先行，
+ * 只有目标类型才会进入ByteBuddy的匹配和转换
  */
 public class ClassTransformer implements ClassFileTransformer {
     
     private static final Logger logger = LoggerFactory.getLogger(ClassTransformer.class);
     
+    // 转换指标
+    private static final LongAdder CLASSES_DISCOVERED = AgentMetrics.counter("transformer.classes-discovered");
+    private static final LongAdder CLASSES_TRANSFORMED = AgentMetrics.counter("transformer.classes-transformed");
+    private static final LongAdder TRANSFORM_ERRORS = AgentMetrics.counter("transformer.errors");
+    private static final LongAdder TRANSFORM_TIME_NS = AgentMetrics.counter("transformer.transform-time-ns-total");
+    private static final AtomicLong TRANSFORM_TIME_NS_MAX = new AtomicLong();
+    
+    // 分阶段指标：名称过滤与ByteBuddy处理
+    private static final LongAdder FILTER_REJECTED = AgentMetrics.counter("transformer.filter.rejected");
+    private static final LongAdder FILTER_PASSED = AgentMetrics.counter("transformer.filter.passed");
+    private static final LongAdder FILTER_TIME_NS = AgentMetrics.counter("transformer.filter.time-ns-total");
+    private static final LongAdder BYTEBUDDY_TIME_NS = AgentMetrics.counter("transformer.bytebuddy.time-ns-total");
+    
+    // 目标类型优先级，重新转换已加载类时按此顺序进行，数值越小越优先
+    private static final int PRIORITY_CRITICAL = 0;
+    private static final int PRIORITY_HIGH = 1;
+    private static final int PRIORITY_NORMAL = 2;
+    
+    // 每个线程正在处理的类的开始时间，转换过程中可能触发其他类加载，因此按嵌套深度记录
+    private static final ThreadLocal<long[]> TRANSFORM_STARTS = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[9];
+        }
+    };
+    
     private final AgentConfig config;
-    private final EventProcessor eventProcessor;
     private final Instrumentation instrumentation;
     
-    // 类转换缓存：类名 -> 是否已转换
-    private final ConcurrentMap<String, Boolean> transformCache = new ConcurrentHashMap<>();
+    // 是否只植入关键探针
+    private final boolean criticalOnly;
     
-    // 排除的包前缀
-    private final Set<String> excludedPackages = new HashSet<>();
+    // 需要植入探针的类型
+    private final TargetTypeMatcher targetTypes = new TargetTypeMatcher();
     
-    // 包含的包前缀
-    private final Set<String> includedPackages = new HashSet<>();
+    // 跨类加载器共享的类型描述缓存，禁用时为null
+    private final SharedTypePoolCache typePoolCache;
     
     // ByteBuddy Agent Builder
     private final AgentBuilder agentBuilder;
     
+    // ByteBuddy生成的转换器，不单独注册，只接收通过名称过滤的类
+    private final ClassFileTransformer byteBuddyTransformer;
+    
+    // 已加载目标类型的分批重新转换
+    private final BatchedRetransformer retransformer;
+    
+    /**
+     * 构造函数
+     * 
+     * @param config Agent配置
+     * @param instrumentation Instrumentation实例
+     */
+    public ClassTransformer(AgentConfig config, Instrumentation instrumentation) {
+        this(config, instrumentation, false);
+    }
+    
     /**
      * 构造函数
      * 
      * @param config Agent配置
-     * @param eventProcessor 事件处理器
+     * @param instrumentation Instrumentation实例
+     * @param criticalOnly 是否只植入关键探针（命令执行、类加载），用于异步启动的第一阶段
      */
-    public ClassTransformer(AgentConfig config, EventProcessor eventProcessor, Instrumentation instrumentation) {
+    public ClassTransformer(AgentConfig config, Instrumentation instrumentation, boolean criticalOnly) {
         this.config = config;
-        this.eventProcessor = eventProcessor;
         this.instrumentation = instrumentation;
+        this.criticalOnly = criticalOnly;
         
-        // 初始化排除包列表
-        String[] excluded = config.getString("transformer.excluded-packages", "java.lang,sun.,com.sun.,com.janusguard.").split(",");
-        excludedPackages.addAll(Arrays.asList(excluded));
-        
-        // 初始化包含包列表
-        String[] included = config.getString("transformer.included-packages", "").split(",");
-        for (String pkg : included) {
-            if (!pkg.trim().isEmpty()) {
-                includedPackages.add(pkg.trim());
-            }
+        // 类型描述缓存
+        if (config.getBoolean("transformer.type-pool-cache.enabled", true)) {
+            typePoolCache = new SharedTypePoolCache(config.getInt("transformer.type-pool-cache.max-size", 5000));
+        } else {
+            typePoolCache = null;
         }
-        
-        // 设置拦截器的事件处理器
-        CommandExecutionInterceptor.setEventProcessor(eventProcessor);
-        FileOperationInterceptor.setEventProcessor(eventProcessor);
-        ReflectionInterceptor.setEventProcessor(eventProcessor);
-        // 设置新拦截器的事件处理器
-        ClassLoaderInterceptor.setEventProcessor(eventProcessor);
-        UnsafeInterceptor.setEventProcessor(eventProcessor);
-        DynamicProxyInterceptor.setEventProcessor(eventProcessor);
-        JNIInterceptor.setEventProcessor(eventProcessor);
+        AgentMetrics.gauge("transformer.transform-time-ns-max", TRANSFORM_TIME_NS_MAX::get);
         
         // 创建ByteBuddy AgentBuilder
         logger.info("初始化ByteBuddy...");
         agentBuilder = createAgentBuilder();
         
         // 配置基本转换规则
-        initializeTransformRules();
+        byteBuddyTransformer = initializeTransformRules();
+        retransformer = new BatchedRetransformer(config, instrumentation);
     }
     
     /**
      * 创建通用的AgentBuilder
      */
     private AgentBuilder createAgentBuilder() {
-        return new AgentBuilder.Default()
+        AgentBuilder builder = new AgentBuilder.Default()
                 .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
                 .with(AgentBuilder.TypeStrategy.Default.REDEFINE)
-                .with(AgentBuilder.InitializationStrategy.NoOp.INSTANCE)
+                .with(AgentBuilder.InitializationStrategy.NoOp.INSTANCE);
+        
+        if (typePoolCache != null) {
+            builder = builder.with(typePoolCache);
+        }
+        
+        // 优先从类文件解析类型描述，只在解析失败时回退到已加载的Class，
+        // 避免为了匹配而触发类型的加载和反射
+        String descriptionStrategy = config.getString("transformer.description-strategy", "pool-first");
+        if ("pool-first".equals(descriptionStrategy)) {
+            builder = builder.with(AgentBuilder.DescriptionStrategy.Default.POOL_FIRST);
+        } else if (!"hybrid".equals(descriptionStrategy)) {
+            logger.warn("Unknown description strategy: {}, using ByteBuddy default", descriptionStrategy);
+        }
+        
+        return builder
                 .with(new AgentBuilder.Listener() {
                     // 完善方法签名以匹配ByteBuddy 1.9.16
                     public void onTransformation(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module, boolean loaded, DynamicType dynamicType) {
+                        CLASSES_TRANSFORMED.increment();
                         logger.debug("Transform: {} [{}]", typeDescription.getName(), classLoader);
                     }
                     
                     // 完善方法签名以匹配ByteBuddy 1.9.16
                     public void onError(String typeName, ClassLoader classLoader, JavaModule module, boolean loaded, Throwable throwable) {
+                        TRANSFORM_ERRORS.increment();
                         logger.error("Error transforming: {} [{}]", typeName, classLoader, throwable);
                     }
                     
@@ -121,84 +165,161 @@ public class ClassTransformer implements ClassFileTransformer {
                     
                     // 修复方法签名，已存在loaded参数
                     public void onComplete(String typeName, ClassLoader classLoader, JavaModule module, boolean loaded) {
-                        logger.trace("Completed: {} [{}]", typeName, classLoader);
+                        long elapsed = endTransformTimer();
+                        logger.trace("Completed: {} [{}] in {} ns", typeName, classLoader, elapsed);
                     }
 
                     // 完善方法签名以匹配ByteBuddy 1.9.16
                     public void onDiscovery(String typeName, ClassLoader classLoader, JavaModule module, boolean loaded) {
+                        CLASSES_DISCOVERED.increment();
+                        startTransformTimer();
                         logger.trace("Discovered: {} [{}]", typeName, classLoader);
                     }
                 });
     }
     
+    /**
+     * 记录当前线程开始处理一个类的时间
+     */
+    private static void startTransformTimer() {
+        long[] starts = TRANSFORM_STARTS.get();
+        int depth = (int) starts[0];
+        if (depth < starts.length - 1) {
+            starts[depth + 1] = System.nanoTime();
+        }
+        starts[0] = depth + 1;
+    }
+    
+    /**
+     * 结束当前线程对一个类的处理并累计耗时
+     * 
+     * @return 本次耗时（纳秒），嵌套过深无法计时时返回-1
+     */
+    private static long endTransformTimer() {
+        long[] starts = TRANSFORM_STARTS.get();
+        int depth = (int) starts[0];
+        if (depth <= 0) {
+            return -1;
+        }
+        starts[0] = depth - 1;
+        if (depth == 1 && VirtualThreads.isVirtual(Thread.currentThread())) {
+            // 虚拟线程数量没有上限，最外层类处理完后即移除，不随线程保留
+            TRANSFORM_STARTS.remove();
+        }
+        if (depth > starts.length - 1) {
+            return -1;
+        }
+        
+        long elapsed = System.nanoTime() - starts[depth];
+        TRANSFORM_TIME_NS.add(elapsed);
+        long max;
+        while (elapsed > (max = TRANSFORM_TIME_NS_MAX.get())) {
+            if (TRANSFORM_TIME_NS_MAX.compareAndSet(max, elapsed)) {
+                break;
+            }
+        }
+        return elapsed;
+    }
+    
+    /**
+     * 为指定类型创建转换规则，并登记为目标类型
+     * 
+     * @param builder 当前的AgentBuilder
+     * @param typeName 完整类名
+     * @param priority 重新转换优先级
+     * @return 可添加转换的AgentBuilder
+     */
+    private AgentBuilder.Identified.Narrowable forType(AgentBuilder builder, String typeName, int priority) {
+        targetTypes.add(typeName, priority);
+        return builder.type(ElementMatchers.named(typeName));
+    }
+    
     /**
      * 初始化转换规则
+     * 所有规则都按类名精确匹配，非目标类型在忽略阶段通过一次哈希查找排除
+     * 
+     * @return ByteBuddy转换器
      */
-    private void initializeTransformRules() {
+    private ClassFileTransformer initializeTransformRules() {
         logger.info("Initializing class transform rules");
         
-        AgentBuilder localBuilder = agentBuilder;
+        // 替换ByteBuddy默认的忽略规则（默认会忽略引导类加载器加载的JDK类型）
+        AgentBuilder localBuilder = agentBuilder.ignore(targetTypes.asIgnoreMatcher());
+        
+        boolean commandExecution = config.getBoolean("monitors.command-execution.enabled", true);
+        boolean jni = !criticalOnly && config.getBoolean("monitors.memory-trojan.jni.enabled", true);
+        
+        // Runtime既是命令执行（exec）也是JNI（load、loadLibrary）的目标。ByteBuddy对一个类型只应用第一条匹配的规则，
+        // 分开注册时后一条不会生效，因此合并为一条规则，按各自的开关添加方法拦截
+        if (commandExecution || jni) {
+            localBuilder = forType(localBuilder, "java.lang.Runtime", commandExecution ? PRIORITY_CRITICAL : PRIORITY_HIGH)
+                    .transform((builder, typeDescription, classLoader, protectionDomain) -> {
+                        DynamicType.Builder<?> runtime = builder;
+                        if (commandExecution) {
+                            runtime = runtime.method(ElementMatchers.named("exec"))
+                                    .intercept(BootstrapBridge.delegationFor(MonitorType.COMMAND_EXECUTION));
+                        }
+                        if (jni) {
+                            runtime = runtime.method(ElementMatchers.named("load").or(ElementMatchers.named("loadLibrary")))
+                                    .intercept(BootstrapBridge.delegationFor(MonitorType.JNI));
+                        }
+                        return runtime;
+                    });
+        }
         
-        // 监控Runtime.exec方法
-        if (config.getBoolean("monitors.command-execution.enabled", true)) {
+        // 监控命令执行，Runtime.exec见上方合并的规则
+        if (commandExecution) {
             logger.info("Command execution monitoring enabled");
             
-            // 为Runtime.exec添加转换（修复兼容性）
-            localBuilder = localBuilder.type(ElementMatchers.named("java.lang.Runtime"))
-                    .transform((builder, typeDescription, classLoader, protectionDomain) -> 
-                        builder.method(ElementMatchers.named("exec"))
-                               .intercept(MethodDelegation.to(CommandExecutionInterceptor.class))
-                    );
-            
             // 为ProcessBuilder.start添加转换（修复兼容性）
-            localBuilder = localBuilder.type(ElementMatchers.named("java.lang.ProcessBuilder"))
+            localBuilder = forType(localBuilder, "java.lang.ProcessBuilder", PRIORITY_CRITICAL)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
                         builder.method(ElementMatchers.named("start"))
-                               .intercept(MethodDelegation.to(CommandExecutionInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.COMMAND_EXECUTION))
                     );
         }
         
         // 监控文件操作
-        if (config.getBoolean("monitors.file-operations.enabled", true)) {
+        if (!criticalOnly && config.getBoolean("monitors.file-operations.enabled", true)) {
             logger.info("File operations monitoring enabled");
             
             // 为FileInputStream添加转换（修复兼容性）
-            localBuilder = localBuilder.type(ElementMatchers.named("java.io.FileInputStream"))
+            localBuilder = forType(localBuilder, "java.io.FileInputStream", PRIORITY_NORMAL)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
                         builder.constructor(ElementMatchers.any())
-                               .intercept(MethodDelegation.to(FileOperationInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.FILE_OPERATIONS))
                                .method(ElementMatchers.named("read"))
-                               .intercept(MethodDelegation.to(FileOperationInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.FILE_OPERATIONS))
                     );
             
             // 为FileOutputStream添加转换（修复兼容性）
-            localBuilder = localBuilder.type(ElementMatchers.named("java.io.FileOutputStream"))
+            localBuilder = forType(localBuilder, "java.io.FileOutputStream", PRIORITY_NORMAL)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
                         builder.constructor(ElementMatchers.any())
-                               .intercept(MethodDelegation.to(FileOperationInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.FILE_OPERATIONS))
                                .method(ElementMatchers.named("write"))
-                               .intercept(MethodDelegation.to(FileOperationInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.FILE_OPERATIONS))
                     );
             
             // 为RandomAccessFile添加转换（修复兼容性）
-            localBuilder = localBuilder.type(ElementMatchers.named("java.io.RandomAccessFile"))
+            localBuilder = forType(localBuilder, "java.io.RandomAccessFile", PRIORITY_NORMAL)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
                         builder.constructor(ElementMatchers.any())
-                               .intercept(MethodDelegation.to(FileOperationInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.FILE_OPERATIONS))
                                .method(ElementMatchers.nameStartsWith("read").or(ElementMatchers.nameStartsWith("write")))
-                               .intercept(MethodDelegation.to(FileOperationInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.FILE_OPERATIONS))
                     );
         }
         
         // 监控反射操作
-        if (config.getBoolean("monitors.reflection.enabled", true)) {
+        if (!criticalOnly && config.getBoolean("monitors.reflection.enabled", true)) {
             logger.info("Reflection monitoring enabled");
             
             // 为Method.invoke添加转换（修复兼容性）
-            localBuilder = localBuilder.type(ElementMatchers.named("java.lang.reflect.Method"))
+            localBuilder = forType(localBuilder, "java.lang.reflect.Method", PRIORITY_NORMAL)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
                         builder.method(ElementMatchers.named("invoke"))
-                               .intercept(MethodDelegation.to(ReflectionInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.REFLECTION))
                     );
         }
         
@@ -206,18 +327,25 @@ public class ClassTransformer implements ClassFileTransformer {
         if (config.getBoolean("monitors.memory-trojan.class-loading.enabled", true)) {
             logger.info("Memory trojan class loading monitoring enabled");
             
-            localBuilder = localBuilder.type(ElementMatchers.isSubTypeOf(ClassLoader.class))
+            // 所有ClassLoader子类最终都会调用java.lang.ClassLoader的final defineClass方法：
+            // 字节数组版本（其他字节数组重载及SecureClassLoader均委托给它）和ByteBuffer版本。
+            // 直接在这两个汇聚点植入探针，无需对每个加载的类解析父类型链
+            localBuilder = forType(localBuilder, "java.lang.ClassLoader", PRIORITY_CRITICAL)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
-                        builder.method(ElementMatchers.nameStartsWith("defineClass"))
-                               .intercept(MethodDelegation.to(ClassLoaderInterceptor.class))
+                        builder.method(ElementMatchers.named("defineClass")
+                                    .and(ElementMatchers.takesArguments(5)
+                                            .and(ElementMatchers.takesArgument(1, byte[].class))
+                                            .or(ElementMatchers.takesArguments(3)
+                                                    .and(ElementMatchers.takesArgument(1, ByteBuffer.class)))))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.CLASS_LOADING))
                     );
         }
         
         // 监控内存木马 - Unsafe操作
-        if (config.getBoolean("monitors.memory-trojan.unsafe.enabled", true)) {
+        if (!criticalOnly && config.getBoolean("monitors.memory-trojan.unsafe.enabled", true)) {
             logger.info("Memory trojan Unsafe operations monitoring enabled");
             
-            localBuilder = localBuilder.type(ElementMatchers.named("sun.misc.Unsafe"))
+            localBuilder = forType(localBuilder, "sun.misc.Unsafe", PRIORITY_HIGH)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
                         builder.method(ElementMatchers.anyOf(
                                 ElementMatchers.named("putAddress"),
@@ -228,49 +356,62 @@ public class ClassTransformer implements ClassFileTransformer {
                                 ElementMatchers.named("allocateMemory"),
                                 ElementMatchers.named("copyMemory")
                             ))
-                            .intercept(MethodDelegation.to(UnsafeInterceptor.class))
+                            .intercept(BootstrapBridge.delegationFor(MonitorType.UNSAFE))
                     );
         }
         
         // 监控内存木马 - 动态代理
-        if (config.getBoolean("monitors.memory-trojan.dynamic-proxy.enabled", true)) {
+        if (!criticalOnly && config.getBoolean("monitors.memory-trojan.dynamic-proxy.enabled", true)) {
             logger.info("Memory trojan dynamic proxy monitoring enabled");
             
-            localBuilder = localBuilder.type(ElementMatchers.named("java.lang.reflect.Proxy"))
+            localBuilder = forType(localBuilder, "java.lang.reflect.Proxy", PRIORITY_HIGH)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
                         builder.method(ElementMatchers.named("newProxyInstance"))
-                               .intercept(MethodDelegation.to(DynamicProxyInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.DYNAMIC_PROXY))
                     );
         }
         
-        // 监控内存木马 - JNI操作
-        if (config.getBoolean("monitors.memory-trojan.jni.enabled", true)) {
+        // 监控内存木马 - JNI操作，Runtime.load和loadLibrary见上方合并的规则
+        if (jni) {
             logger.info("Memory trojan JNI operations monitoring enabled");
             
-            localBuilder = localBuilder.type(ElementMatchers.named("java.lang.System"))
-                    .transform((builder, typeDescription, classLoader, protectionDomain) -> 
-                        builder.method(ElementMatchers.named("load").or(ElementMatchers.named("loadLibrary")))
-                               .intercept(MethodDelegation.to(JNIInterceptor.class))
-                    );
-            
-            localBuilder = localBuilder.type(ElementMatchers.named("java.lang.Runtime"))
+            localBuilder = forType(localBuilder, "java.lang.System", PRIORITY_HIGH)
                     .transform((builder, typeDescription, classLoader, protectionDomain) -> 
                         builder.method(ElementMatchers.named("load").or(ElementMatchers.named("loadLibrary")))
-                               .intercept(MethodDelegation.to(JNIInterceptor.class))
+                               .intercept(BootstrapBridge.delegationFor(MonitorType.JNI))
                     );
         }
         
-        // 安装转换器
-        try {
-            localBuilder.installOn(instrumentation);
-            logger.info("ByteBuddy transformers installed successfully");
-        } catch (Exception e) {
-            logger.error("Failed to install ByteBuddy transformers", e);
+        // 只生成转换器，由本类统一注册并在名称过滤之后调用
+        ClassFileTransformer transformer = localBuilder.makeRaw();
+        logger.info("ByteBuddy transformer created for {} target types", targetTypes.getTargetTypes().size());
+        return transformer;
+    }
+    
+    /**
+     * 重新转换已加载的目标类型
+     * 按优先级排序后分批进行，关键探针最先生效；必须在本转换器以可重转换方式注册之后调用
+     * 
+     * @return 重新转换的类数量
+     */
+    public int retransformLoadedTargets() {
+        List<Class<?>> targets = new ArrayList<>();
+        for (Class<?> loaded : instrumentation.getAllLoadedClasses()) {
+            if (targetTypes.matches(loaded.getName(), loaded.getClassLoader())
+                    && instrumentation.isModifiableClass(loaded)) {
+                targets.add(loaded);
+            }
         }
+        targets.sort(Comparator.comparingInt(target -> targetTypes.getPriority(target.getName())));
+        
+        int retransformed = retransformer.retransform(targets);
+        logger.info("Retransformed {} of {} loaded target classes", retransformed, targets.size());
+        return retransformed;
     }
     
     /**
      * 实现ClassFileTransformer接口的transform方法
+     * 先按内部类名做一次哈希查找，只有目标类型才交给ByteBuddy匹配和转换
      */
     @Override
     public byte[] transform(ClassLoader loader, 
@@ -279,84 +420,41 @@ public class ClassTransformer implements ClassFileTransformer {
                            ProtectionDomain protectionDomain, 
                            byte[] classfileBuffer) throws IllegalClassFormatException {
         
-        // 转换类名格式
-        String normalizedClassName = className.replace('/', '.');
-        
-        // 检查缓存
-        if (transformCache.containsKey(normalizedClassName)) {
-            return null; // 已经处理过的类不再处理
-        }
-        
-        // 检查是否应该排除
-        if (shouldExclude(normalizedClassName)) {
-            transformCache.put(normalizedClassName, false);
-            return null;
-        }
-        
-        // 检查是否在包含列表中或者包含列表为空
-        if (!includedPackages.isEmpty() && !shouldInclude(normalizedClassName)) {
-            transformCache.put(normalizedClassName, false);
+        // 第一阶段：名称过滤
+        long start = System.nanoTime();
+        boolean target = className != null && targetTypes.matchesInternalName(className);
+        long filtered = System.nanoTime();
+        FILTER_TIME_NS.add(filtered - start);
+        if (!target) {
+            FILTER_REJECTED.increment();
             return null;
         }
+        FILTER_PASSED.increment();
         
+        // 第二阶段：ByteBuddy匹配与转换
         try {
-            // 类转换逻辑已经由ByteBuddy处理，这里只做记录
-            logger.debug("Class examined: {}", normalizedClassName);
-            transformCache.put(normalizedClassName, true);
-            return null;
-        } catch (Exception e) {
-            logger.error("Error during class transformation: {}", normalizedClassName, e);
-            return null;
+            return byteBuddyTransformer.transform(loader, className, classBeingRedefined, 
+                    protectionDomain, classfileBuffer);
+        } finally {
+            BYTEBUDDY_TIME_NS.add(System.nanoTime() - filtered);
         }
     }
     
     /**
-     * 判断是否应该排除类
+     * 获取类型描述缓存的条目数
      * 
-     * @param className 类名
-     * @return 如果应该排除则返回true
+     * @return 条目数，缓存禁用时返回0
      */
-    private boolean shouldExclude(String className) {
-        // 排除所有在排除列表中的类
-        for (String excludedPrefix : excludedPackages) {
-            if (className.startsWith(excludedPrefix)) {
-                return true;
-            }
-        }
-        
-        return false;
+    public int getTypePoolCacheSize() {
+        return typePoolCache != null ? typePoolCache.size() : 0;
     }
     
     /**
-     * 判断是否应该包含类
-     * 
-     * @param className 类名
-     * @return 如果应该包含则返回true
+     * 清空类型描述缓存，之后的转换重新解析类型
      */
-    private boolean shouldInclude(String className) {
-        // 包含所有在包含列表中的类
-        for (String includedPrefix : includedPackages) {
-            if (className.startsWith(includedPrefix)) {
-                return true;
-            }
+    public void clearTypePoolCache() {
+        if (typePoolCache != null) {
+            typePoolCache.clear();
         }
-        
-        return false;
-    }
-    
-    /**
-     * 获取缓存大小
-     * 
-     * @return 缓存中的类数量
-     */
-    public int getCacheSize() {
-        return transformCache.size();
-    }
-    
-    /**
-     * 清空缓存
-     */
-    public void clearCache() {
-        transformCache.clear();
     }
 } 
\ No newline at end of file
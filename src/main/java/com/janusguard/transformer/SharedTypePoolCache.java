@@ -0,0 +1,181 @@
+package com.janusguard.transformer;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.janusguard.common.metrics.AgentMetrics;
+
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.pool.TypePool;
+
+/**
+ * 跨类加载器共享的类型描述缓存
+ * ByteBuddy每次匹配和转换都需要类型描述，默认策略会为每次转换重新解析类文件。
+ * 这里所有类加载器共用一个有界缓存，以（类加载器, 类名）为键，值为软引用，
+ * 内存紧张时可被回收；超过容量时先清理已回收的条目，再随机淘汰一部分
+ */
+public class SharedTypePoolCache extends AgentBuilder.PoolStrategy.WithTypePoolCache {
+    
+    private static final LongAdder HITS = AgentMetrics.counter("transformer.type-pool.hits");
+    private static final LongAdder MISSES = AgentMetrics.counter("transformer.type-pool.misses");
+    private static final LongAdder EVICTIONS = AgentMetrics.counter("transformer.type-pool.evictions");
+    
+    private final int maxSize;
+    private final ConcurrentMap<Key, SoftReference<TypePool.Resolution>> entries = new ConcurrentHashMap<>();
+    
+    // 类加载器到其缓存视图的映射，类加载器被回收后视图随之失效
+    private final Map<ClassLoader, LoaderView> views = new WeakHashMap<>();
+    private final LoaderView bootstrapView = new LoaderView();
+    
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+    
+    /**
+     * 构造函数
+     * 
+     * @param maxSize 缓存的最大条目数
+     */
+    public SharedTypePoolCache(int maxSize) {
+        super(TypePool.Default.ReaderMode.FAST);
+        this.maxSize = Math.max(16, maxSize);
+        AgentMetrics.gauge("transformer.type-pool.size", () -> entries.size());
+    }
+    
+    @Override
+    protected TypePool.CacheProvider locate(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return bootstrapView;
+        }
+        synchronized (views) {
+            LoaderView view = views.get(classLoader);
+            if (view == null) {
+                view = new LoaderView();
+                views.put(classLoader, view);
+            }
+            return view;
+        }
+    }
+    
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        entries.clear();
+    }
+    
+    /**
+     * 获取当前缓存条目数
+     * 
+     * @return 条目数
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * 超过容量时淘汰条目，同一时刻只有一个线程执行
+     */
+    private void evictIfNeeded() {
+        if (entries.size() <= maxSize || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // 先清理已被GC回收的软引用
+            Iterator<SoftReference<TypePool.Resolution>> values = entries.values().iterator();
+            while (values.hasNext()) {
+                if (values.next().get() == null) {
+                    values.remove();
+                    EVICTIONS.increment();
+                }
+            }
+            
+            // 仍然超出容量时，按哈希表遍历顺序淘汰到容量的90%
+            int excess = entries.size() - maxSize * 9 / 10;
+            Iterator<Key> keys = entries.keySet().iterator();
+            while (excess > 0 && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                excess--;
+                EVICTIONS.increment();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    /**
+     * 单个类加载器的缓存视图
+     */
+    private final class LoaderView implements TypePool.CacheProvider {
+        
+        @Override
+        public TypePool.Resolution find(String name) {
+            SoftReference<TypePool.Resolution> reference = entries.get(new Key(this, name));
+            TypePool.Resolution resolution = reference == null ? null : reference.get();
+            if (resolution == null) {
+                MISSES.increment();
+            } else {
+                HITS.increment();
+            }
+            return resolution;
+        }
+        
+        @Override
+        public TypePool.Resolution register(String name, TypePool.Resolution resolution) {
+            SoftReference<TypePool.Resolution> previous = entries.putIfAbsent(new Key(this, name),
+                    new SoftReference<>(resolution));
+            TypePool.Resolution existing = previous == null ? null : previous.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (previous != null) {
+                entries.put(new Key(this, name), new SoftReference<>(resolution));
+            }
+            evictIfNeeded();
+            return resolution;
+        }
+        
+        @Override
+        public void clear() {
+            entries.keySet().removeIf(key -> key.view == this);
+        }
+    }
+    
+    /**
+     * 缓存键：类加载器视图（按引用比较）加类名
+     */
+    private static final class Key {
+        
+        private final Object view;
+        private final String name;
+        private final int hash;
+        
+        Key(Object view, String name) {
+            this.view = view;
+            this.name = name;
+            this.hash = 31 * System.identityHashCode(view) + name.hashCode();
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return view == key.view && name.equals(key.name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,18 +1,24 @@
 package com.janusguard.transformer.interceptor;
 
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.security.ProtectionDomain;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.janusguard.common.constants.AgentConstants;
 import com.janusguard.common.logging.LogUtils;
-import com.janusguard.core.event.EventProcessor;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.common.metrics.LatencyHistogram;
+import com.janusguard.core.context.ProbeGuard;
+import com.janusguard.core.event.EventDispatcher;
 import com.janusguard.core.event.SecurityEvent;
 import com.janusguard.core.event.SecurityEventType;
-import com.janusguard.core.event.SecurityEventSeverity;
+import com.janusguard.core.monitor.MonitorType;
+import com.janusguard.core.rule.ClassDefineBaseline;
 
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
 import net.bytebuddy.implementation.bind.annotation.Origin;
@@ -27,16 +33,13 @@ import net.bytebuddy.implementation.bind.annotation.This;
 public class ClassLoaderInterceptor {
     
     private static final Logger logger = LoggerFactory.getLogger(ClassLoaderInterceptor.class);
-    private static EventProcessor eventProcessor;
     
-    /**
-     * 设置事件处理器
-     * 
-     * @param processor 事件处理器
-     */
-    public static void setEventProcessor(EventProcessor processor) {
-        eventProcessor = processor;
-    }
+    // 通过重入检查的探针调用次数
+    private static final LongAdder CALLS = AgentMetrics.counter(MonitorType.CLASS_LOADING.getCallsMetric());
+    
+    // 探针自身开销（从进入到返回的耗时减去原始方法）和原始方法耗时的分布，单位纳秒
+    private static final LatencyHistogram OVERHEAD = AgentMetrics.histogram(MonitorType.CLASS_LOADING.getOverheadMetric());
+    private static final LatencyHistogram OPERATION = AgentMetrics.histogram(MonitorType.CLASS_LOADING.getOperationMetric());
     
     /**
      * 拦截方法并记录事件
@@ -49,56 +52,38 @@ public class ClassLoaderInterceptor {
      * @throws Exception 如果调用出错
      */
     @RuntimeType
-    public static Object intercept(@This Object obj, 
+    public static Object intercept(@This(optional = true) Object obj, 
                                   @Origin Method method,
                                   @AllArguments Object[] args,
                                   @SuperCall Callable<?> callable) throws Exception {
-        String className = obj.getClass().getName();
-        String methodName = method.getName();
-        
-        // 尝试获取堆栈
-        String callStack = LogUtils.getStackTrace(2, 15); // 保留更多堆栈以便分析
+        // Agent自有线程或探针重入时不做任何记录，直接执行原始方法
+        if (!ProbeGuard.enter()) {
+            return callable.call();
+        }
+        CALLS.increment();
+        long probeStart = System.nanoTime();
         
-        // 创建安全事件
-        SecurityEvent event = new SecurityEvent(SecurityEventType.CLASS_LOADING, className, methodName);
-        event.setSeverity(SecurityEventSeverity.HIGH); // 设置高风险级别
+        // 堆内ByteBuffer会转交给字节数组版本的defineClass，由那里记录，避免重复事件
+        if (isHeapBuffer(args)) {
+            ProbeGuard.exit();
+            return callable.call();
+        }
         
-        // 添加类加载信息
-        if (methodName.startsWith("defineClass")) {
-            // 获取被加载的类名
-            String definedClassName = null;
-            if (args.length > 0 && args[0] instanceof String) {
-                definedClassName = (String) args[0];
-                event.addData(AgentConstants.EventFields.TARGET_CLASS, definedClassName);
-            }
-            
-            // 如果提供了ProtectionDomain，记录它
-            for (Object arg : args) {
-                if (arg instanceof ProtectionDomain) {
-                    ProtectionDomain domain = (ProtectionDomain) arg;
-                    if (domain.getCodeSource() != null && domain.getCodeSource().getLocation() != null) {
-                        event.addData("codeSource", domain.getCodeSource().getLocation().toString());
-                    }
-                    break;
-                }
-            }
-            
-            // 记录类加载器信息
-            event.addData("classLoader", className);
-            
-            // 标记为可能的内存木马
-            if (isMemoryTrojanSuspicious(callStack, definedClassName)) {
-                event.addData("memoryTrojanSuspicious", true);
-                event.addData("reason", "可疑类动态加载检测");
-                logger.warn("内存木马可疑活动: {}", definedClassName);
-            }
+        SecurityEvent event;
+        try {
+            event = createEvent(obj, method, args);
+        } finally {
+            ProbeGuard.exit();
         }
         
-        // 添加调用堆栈
-        event.setCallStackTrace(callStack);
+        // 命中defineClass基线的调用只计数，不产生事件
+        if (event == null) {
+            return callable.call();
+        }
         
-        // 记录事件前的时间
-        long startTime = System.currentTimeMillis();
+        // 原始方法开始前的探针开销：创建事件和采集堆栈
+        long startTime = System.nanoTime();
+        event.addData(AgentConstants.EventFields.PROBE_OVERHEAD_NS, startTime - probeStart);
         
         // 调用原始方法
         Object result;
@@ -128,53 +113,92 @@ public class ClassLoaderInterceptor {
             // 重新抛出异常
             throw e;
         } finally {
-            // 添加执行时间
-            long endTime = System.currentTimeMillis();
-            event.addData("executionTime", endTime - startTime);
+            // 添加原始方法执行时间
+            long operationNanos = System.nanoTime() - startTime;
+            event.addData(AgentConstants.EventFields.EXECUTION_TIME_NS, operationNanos);
             
             // 处理事件
-            if (eventProcessor != null) {
+            if (ProbeGuard.enter()) {
                 try {
-                    eventProcessor.processEvent(event);
+                    EventDispatcher.dispatch(event);
                 } catch (Exception e) {
                     logger.error("处理类加载事件失败", e);
+                } finally {
+                    ProbeGuard.exit();
                 }
             }
+            OPERATION.record(operationNanos);
+            OVERHEAD.record(System.nanoTime() - probeStart - operationNanos);
         }
     }
     
     /**
-     * 检测可能的内存木马注入迹象
+     * 判断是否为以堆内ByteBuffer传入字节码的defineClass调用
      * 
-     * @param callStack 调用堆栈
-     * @param className 被加载的类名
-     * @return 如果可疑返回true
+     * @param args 方法参数
+     * @return 如果字节码参数是非直接缓冲区则返回true
+     */
+    private static boolean isHeapBuffer(Object[] args) {
+        return args.length > 1 && args[1] instanceof ByteBuffer && !((ByteBuffer) args[1]).isDirect();
+    }
+    
+    /**
+     * 根据调用信息创建安全事件
+     * 
+     * @param obj 目标对象
+     * @param method 被拦截的方法
+     * @param args 方法参数
+     * @return 安全事件，命中defineClass基线时返回null
      */
-    private static boolean isMemoryTrojanSuspicious(String callStack, String className) {
-        // 可疑迹象1: 类名为null或空
-        if (className == null || className.isEmpty()) {
-            return true;
+    private static SecurityEvent createEvent(Object obj, Method method, Object[] args) {
+        // 静态方法（如Proxy.newProxyInstance、System.load）没有目标对象
+        String className = obj != null ? obj.getClass().getName() : method.getDeclaringClass().getName();
+        String methodName = method.getName();
+        
+        // 采集原始堆栈，格式化和分析在事件处理线程上进行；基线需要从中找出调用方
+        ClassDefineBaseline baseline = methodName.startsWith("defineClass") ? ClassDefineBaseline.current() : null;
+        StackTraceElement[] callStack = LogUtils.captureStackTrace(1, 15);
+        
+        boolean deviation = false;
+        if (baseline != null) {
+            String definedClass = args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            if (baseline.covers(className, callStack, definedClass)) {
+                return null;
+            }
+            deviation = baseline.isEnforcing();
         }
         
-        // 可疑迹象2: 不寻常的包名或类名命名
-        if (className.contains("$$") || 
-            className.startsWith("sun.") ||
-            className.startsWith("jdk.internal") ||
-            className.matches(".*[0-9]{5,}.*")) {
-            return true;
+        // 创建安全事件
+        SecurityEvent event = new SecurityEvent(SecurityEventType.CLASS_LOADING, className, methodName);
+        if (deviation) {
+            event.addData(AgentConstants.EventFields.BASELINE_DEVIATION, true);
         }
         
-        // 可疑迹象3: 堆栈中包含可疑的调用方
-        if (callStack != null && (
-                callStack.contains("reflect.") ||
-                callStack.contains("URLClassLoader") && !callStack.contains("loadClass") ||
-                callStack.contains("DynamicProxyClass") ||
-                callStack.contains("CGLIB") ||
-                callStack.contains("asm.") ||
-                callStack.contains("ByteBuddy") && !callStack.contains("janusguard"))) {
-            return true;
+        // 添加类加载信息
+        if (methodName.startsWith("defineClass")) {
+            // 获取被加载的类名
+            if (args.length > 0 && args[0] instanceof String) {
+                event.addData(AgentConstants.EventFields.TARGET_CLASS, args[0]);
+            }
+            
+            // 如果提供了ProtectionDomain，记录它
+            for (Object arg : args) {
+                if (arg instanceof ProtectionDomain) {
+                    ProtectionDomain domain = (ProtectionDomain) arg;
+                    if (domain.getCodeSource() != null && domain.getCodeSource().getLocation() != null) {
+                        event.addData("codeSource", domain.getCodeSource().getLocation().toString());
+                    }
+                    break;
+                }
+            }
+            
+            // 记录类加载器信息
+            event.addData("classLoader", className);
         }
         
-        return false;
+        // 添加调用堆栈
+        event.setRawCallStack(callStack, 0, 15);
+        
+        return event;
     }
 } 
\ No newline at end of file
@@ -2,15 +2,20 @@ package com.janusguard.transformer.interceptor;
 
 import java.lang.reflect.Method;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.janusguard.common.constants.AgentConstants;
 import com.janusguard.common.logging.LogUtils;
-import com.janusguard.core.event.EventProcessor;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.common.metrics.LatencyHistogram;
+import com.janusguard.core.context.ProbeGuard;
+import com.janusguard.core.event.EventDispatcher;
 import com.janusguard.core.event.SecurityEvent;
 import com.janusguard.core.event.SecurityEventType;
+import com.janusguard.core.monitor.MonitorType;
 
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
 import net.bytebuddy.implementation.bind.annotation.Origin;
@@ -25,16 +30,13 @@ import net.bytebuddy.implementation.bind.annotation.This;
 public class ReflectionInterceptor {
     
     private static final Logger logger = LoggerFactory.getLogger(ReflectionInterceptor.class);
-    private static EventProcessor eventProcessor;
     
-    /**
-     * 设置事件处理器
-     * 
-     * @param processor 事件处理器
-     */
-    public static void setEventProcessor(EventProcessor processor) {
-        eventProcessor = processor;
-    }
+    // 通过重入检查的探针调用次数
+    private static final LongAdder CALLS = AgentMetrics.counter(MonitorType.REFLECTION.getCallsMetric());
+    
+    // 探针自身开销（从进入到返回的耗时减去原始方法）和原始方法耗时的分布，单位纳秒
+    private static final LatencyHistogram OVERHEAD = AgentMetrics.histogram(MonitorType.REFLECTION.getOverheadMetric());
+    private static final LatencyHistogram OPERATION = AgentMetrics.histogram(MonitorType.REFLECTION.getOperationMetric());
     
     /**
      * 拦截方法并记录事件
@@ -47,39 +49,27 @@ public class ReflectionInterceptor {
      * @throws Exception 如果调用出错
      */
     @RuntimeType
-    public static Object intercept(@This Object obj, 
+    public static Object intercept(@This(optional = true) Object obj, 
                                   @Origin Method method,
                                   @AllArguments Object[] args,
                                   @SuperCall Callable<?> callable) throws Exception {
-        String className = obj.getClass().getName();
-        String methodName = method.getName();
-        
-        // 尝试获取堆栈
-        String callStack = LogUtils.getStackTrace(2, 10); // 跳过拦截器框架的堆栈
-        
-        // 创建安全事件
-        SecurityEvent event = new SecurityEvent(SecurityEventType.REFLECTION, className, methodName);
-        
-        // 添加反射信息
-        if (methodName.equals("invoke") && obj instanceof Method) {
-            Method targetMethod = (Method) obj;
-            String targetClassName = targetMethod.getDeclaringClass().getName();
-            String targetMethodName = targetMethod.getName();
-            
-            event.addData(AgentConstants.EventFields.TARGET_CLASS, targetClassName);
-            event.addData(AgentConstants.EventFields.TARGET_METHOD, targetMethodName);
-            
-            // 添加目标对象信息
-            if (args.length > 0 && args[0] != null) {
-                event.addData("targetObject", args[0].getClass().getName());
-            }
+        // Agent自有线程或探针重入时不做任何记录，直接执行原始方法
+        if (!ProbeGuard.enter()) {
+            return callable.call();
         }
+        CALLS.increment();
+        long probeStart = System.nanoTime();
         
-        // 添加调用堆栈
-        event.setCallStackTrace(callStack);
+        SecurityEvent event;
+        try {
+            event = createEvent(obj, method, args);
+        } finally {
+            ProbeGuard.exit();
+        }
         
-        // 记录事件前的时间
-        long startTime = System.currentTimeMillis();
+        // 原始方法开始前的探针开销：创建事件和采集堆栈
+        long startTime = System.nanoTime();
+        event.addData(AgentConstants.EventFields.PROBE_OVERHEAD_NS, startTime - probeStart);
         
         // 调用原始方法
         Object result;
@@ -98,18 +88,62 @@ public class ReflectionInterceptor {
             // 重新抛出异常
             throw e;
         } finally {
-            // 添加执行时间
-            long endTime = System.currentTimeMillis();
-            event.addData("executionTime", endTime - startTime);
+            // 添加原始方法执行时间
+            long operationNanos = System.nanoTime() - startTime;
+            event.addData(AgentConstants.EventFields.EXECUTION_TIME_NS, operationNanos);
             
             // 处理事件
-            if (eventProcessor != null) {
+            if (ProbeGuard.enter()) {
                 try {
-                    eventProcessor.processEvent(event);
+                    EventDispatcher.dispatch(event);
                 } catch (Exception e) {
                     logger.error("Failed to process reflection event", e);
+                } finally {
+                    ProbeGuard.exit();
                 }
             }
+            OPERATION.record(operationNanos);
+            OVERHEAD.record(System.nanoTime() - probeStart - operationNanos);
         }
     }
+    
+    /**
+     * 根据调用信息创建安全事件
+     * 
+     * @param obj 目标对象
+     * @param method 被拦截的方法
+     * @param args 方法参数
+     * @return 安全事件
+     */
+    private static SecurityEvent createEvent(Object obj, Method method, Object[] args) {
+        // 静态方法（如Proxy.newProxyInstance、System.load）没有目标对象
+        String className = obj != null ? obj.getClass().getName() : method.getDeclaringClass().getName();
+        String methodName = method.getName();
+        
+        // 采集原始堆栈，格式化和分析在事件处理线程上进行
+        StackTraceElement[] callStack = LogUtils.captureStackTrace(1, 10);
+        
+        // 创建安全事件
+        SecurityEvent event = new SecurityEvent(SecurityEventType.REFLECTION, className, methodName);
+        
+        // 添加反射信息
+        if (methodName.equals("invoke") && obj instanceof Method) {
+            Method targetMethod = (Method) obj;
+            String targetClassName = targetMethod.getDeclaringClass().getName();
+            String targetMethodName = targetMethod.getName();
+            
+            event.addData(AgentConstants.EventFields.TARGET_CLASS, targetClassName);
+            event.addData(AgentConstants.EventFields.TARGET_METHOD, targetMethodName);
+            
+            // 添加目标对象信息
+            if (args.length > 0 && args[0] != null) {
+                event.addData("targetObject", args[0].getClass().getName());
+            }
+        }
+        
+        // 添加调用堆栈
+        event.setRawCallStack(callStack, 0, 10);
+        
+        return event;
+    }
 } 
\ No newline at end of file
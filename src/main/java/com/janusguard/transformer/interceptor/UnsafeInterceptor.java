@@ -2,16 +2,20 @@ package com.janusguard.transformer.interceptor;
 
 import java.lang.reflect.Method;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.janusguard.common.constants.AgentConstants;
 import com.janusguard.common.logging.LogUtils;
-import com.janusguard.core.event.EventProcessor;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.common.metrics.LatencyHistogram;
+import com.janusguard.core.context.ProbeGuard;
+import com.janusguard.core.event.EventDispatcher;
 import com.janusguard.core.event.SecurityEvent;
 import com.janusguard.core.event.SecurityEventType;
-import com.janusguard.core.event.SecurityEventSeverity;
+import com.janusguard.core.monitor.MonitorType;
 
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
 import net.bytebuddy.implementation.bind.annotation.Origin;
@@ -26,16 +30,13 @@ import net.bytebuddy.implementation.bind.annotation.This;
 public class UnsafeInterceptor {
     
     private static final Logger logger = LoggerFactory.getLogger(UnsafeInterceptor.class);
-    private static EventProcessor eventProcessor;
     
-    /**
-     * 设置事件处理器
-     * 
-     * @param processor 事件处理器
-     */
-    public static void setEventProcessor(EventProcessor processor) {
-        eventProcessor = processor;
-    }
+    // 通过重入检查的探针调用次数
+    private static final LongAdder CALLS = AgentMetrics.counter(MonitorType.UNSAFE.getCallsMetric());
+    
+    // 探针自身开销（从进入到返回的耗时减去原始方法）和原始方法耗时的分布，单位纳秒
+    private static final LatencyHistogram OVERHEAD = AgentMetrics.histogram(MonitorType.UNSAFE.getOverheadMetric());
+    private static final LatencyHistogram OPERATION = AgentMetrics.histogram(MonitorType.UNSAFE.getOperationMetric());
     
     /**
      * 拦截方法并记录事件
@@ -48,38 +49,27 @@ public class UnsafeInterceptor {
      * @throws Exception 如果调用出错
      */
     @RuntimeType
-    public static Object intercept(@This Object obj, 
+    public static Object intercept(@This(optional = true) Object obj, 
                                   @Origin Method method,
                                   @AllArguments Object[] args,
                                   @SuperCall Callable<?> callable) throws Exception {
-        String className = obj.getClass().getName();
-        String methodName = method.getName();
-        
-        // 尝试获取堆栈
-        String callStack = LogUtils.getStackTrace(2, 15);
-        
-        // 创建安全事件
-        SecurityEvent event = new SecurityEvent(SecurityEventType.JVM_MEMORY_OPERATION, className, methodName);
-        event.setSeverity(SecurityEventSeverity.HIGH);
-        
-        // 添加Unsafe方法信息
-        event.addData("unsafeMethod", methodName);
-        if (args.length > 0) {
-            event.addData("firstArgType", args[0] != null ? args[0].getClass().getName() : "null");
-            
-            // 检测特定的危险方法
-            if (isDangerousUnsafeMethod(methodName)) {
-                event.addData("dangerousOperation", true);
-                event.addData("reason", "高危Unsafe内存操作");
-                logger.warn("检测到高危Unsafe操作: {}", methodName);
-            }
+        // Agent自有线程或探针重入时不做任何记录，直接执行原始方法
+        if (!ProbeGuard.enter()) {
+            return callable.call();
         }
+        CALLS.increment();
+        long probeStart = System.nanoTime();
         
-        // 添加调用堆栈
-        event.setCallStackTrace(callStack);
+        SecurityEvent event;
+        try {
+            event = createEvent(obj, method, args);
+        } finally {
+            ProbeGuard.exit();
+        }
         
-        // 记录事件前的时间
-        long startTime = System.currentTimeMillis();
+        // 原始方法开始前的探针开销：创建事件和采集堆栈
+        long startTime = System.nanoTime();
+        event.addData(AgentConstants.EventFields.PROBE_OVERHEAD_NS, startTime - probeStart);
         
         // 调用原始方法
         Object result;
@@ -98,32 +88,53 @@ public class UnsafeInterceptor {
             // 重新抛出异常
             throw e;
         } finally {
-            // 添加执行时间
-            long endTime = System.currentTimeMillis();
-            event.addData("executionTime", endTime - startTime);
+            // 添加原始方法执行时间
+            long operationNanos = System.nanoTime() - startTime;
+            event.addData(AgentConstants.EventFields.EXECUTION_TIME_NS, operationNanos);
             
             // 处理事件
-            if (eventProcessor != null) {
+            if (ProbeGuard.enter()) {
                 try {
-                    eventProcessor.processEvent(event);
+                    EventDispatcher.dispatch(event);
                 } catch (Exception e) {
                     logger.error("处理Unsafe操作事件失败", e);
+                } finally {
+                    ProbeGuard.exit();
                 }
             }
+            OPERATION.record(operationNanos);
+            OVERHEAD.record(System.nanoTime() - probeStart - operationNanos);
         }
     }
     
     /**
-     * 判断是否为危险的Unsafe方法
+     * 根据调用信息创建安全事件
      * 
-     * @param methodName 方法名
-     * @return 如果是危险方法则返回true
+     * @param obj 目标对象
+     * @param method 被拦截的方法
+     * @param args 方法参数
+     * @return 安全事件
      */
-    private static boolean isDangerousUnsafeMethod(String methodName) {
-        return methodName.equals("putAddress") || 
-               methodName.equals("putObject") || 
-               methodName.startsWith("defineClass") || 
-               methodName.equals("allocateInstance") ||
-               methodName.equals("defineAnonymousClass");
+    private static SecurityEvent createEvent(Object obj, Method method, Object[] args) {
+        // 静态方法（如Proxy.newProxyInstance、System.load）没有目标对象
+        String className = obj != null ? obj.getClass().getName() : method.getDeclaringClass().getName();
+        String methodName = method.getName();
+        
+        // 采集原始堆栈，格式化和分析在事件处理线程上进行
+        StackTraceElement[] callStack = LogUtils.captureStackTrace(1, 15);
+        
+        // 创建安全事件
+        SecurityEvent event = new SecurityEvent(SecurityEventType.JVM_MEMORY_OPERATION, className, methodName);
+        
+        // 添加Unsafe方法信息
+        event.addData("unsafeMethod", methodName);
+        if (args.length > 0) {
+            event.addData("firstArgType", args[0] != null ? args[0].getClass().getName() : "null");
+        }
+        
+        // 添加调用堆栈
+        event.setRawCallStack(callStack, 0, 15);
+        
+        return event;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.janusguard.transformer.matcher;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+/**
+ * 目标类型匹配器
+ * 按完整类名精确匹配需要植入探针的类型，只做一次哈希查找，不解析类型层次
+ */
+public class TargetTypeMatcher implements ClassMatcher {
+    
+    private final Set<String> targetTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    
+    // 内部名称形式（以/分隔）的目标类型，供ClassFileTransformer直接比较
+    private final Set<String> internalNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    
+    // 目标类型的优先级，数值越小越优先，同一类型多次登记时取最高优先级
+    private final Map<String, Integer> priorities = new ConcurrentHashMap<>();
+    
+    /**
+     * 添加目标类型，使用最低优先级
+     * 
+     * @param className 完整类名
+     */
+    public void add(String className) {
+        add(className, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * 添加目标类型
+     * 
+     * @param className 完整类名
+     * @param priority 优先级，数值越小越优先
+     */
+    public void add(String className, int priority) {
+        targetTypes.add(className);
+        internalNames.add(className.replace('.', '/'));
+        priorities.merge(className, priority, Math::min);
+    }
+    
+    /**
+     * 获取目标类型的优先级
+     * 
+     * @param className 完整类名
+     * @return 优先级，非目标类型返回Integer.MAX_VALUE
+     */
+    public int getPriority(String className) {
+        return priorities.getOrDefault(className, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public boolean matches(String className, ClassLoader classLoader) {
+        return targetTypes.contains(className);
+    }
+    
+    /**
+     * 按JVM内部名称判断是否为目标类型，无需转换名称格式
+     * 
+     * @param internalName 内部名称，如java/lang/Runtime
+     * @return 如果是目标类型则返回true
+     */
+    public boolean matchesInternalName(String internalName) {
+        return internalNames.contains(internalName);
+    }
+    
+    /**
+     * 获取所有目标类型
+     * 
+     * @return 目标类型集合（只读）
+     */
+    public Set<String> getTargetTypes() {
+        return Collections.unmodifiableSet(targetTypes);
+    }
+    
+    /**
+     * 生成ByteBuddy忽略匹配器：不是目标类型的类一律忽略，不再进入转换规则匹配
+     * 
+     * @return 忽略匹配器
+     */
+    public ElementMatcher.Junction<TypeDescription> asIgnoreMatcher() {
+        return new ElementMatcher.Junction.AbstractBase<TypeDescription>() {
+            @Override
+            public boolean matches(TypeDescription target) {
+                return !targetTypes.contains(target.getName());
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.janusguard.transport.queue;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import com.janusguard.core.event.SecurityEvent;
+
+/**
+ * 按通道组织的事件缓冲区接口
+ * 由{@link EventQueue}用作原始队列和已处理队列的存储
+ */
+public interface EventBuffer {
+
+    /**
+     * 提交事件到对应通道
+     *
+     * @param event 事件
+     * @param timeout 等待超时，实现可以选择不等待
+     * @param unit 时间单位
+     * @return 是否成功提交
+     * @throws InterruptedException 如果等待过程中被中断
+     */
+    boolean offer(SecurityEvent event, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 按消费策略获取一个事件
+     *
+     * @param timeout 等待超时
+     * @param unit 时间单位
+     * @return 事件，超时返回null
+     * @throws InterruptedException 如果等待过程中被中断
+     */
+    SecurityEvent poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 按消费策略批量获取事件，不等待
+     *
+     * @param sink 接收事件的集合
+     * @param maxEvents 最多获取的事件数
+     * @return 实际获取的事件数
+     */
+    int drainTo(Collection<? super SecurityEvent> sink, int maxEvents);
+
+    /**
+     * 获取事件所属通道
+     *
+     * @param event 事件
+     * @return 通道
+     */
+    EventLane laneOf(SecurityEvent event);
+
+    /**
+     * 获取所有通道中的事件总数
+     *
+     * @return 事件总数
+     */
+    int size();
+
+    /**
+     * 获取指定通道中的事件数
+     *
+     * @param lane 通道
+     * @return 事件数
+     */
+    int size(EventLane lane);
+
+    /**
+     * 获取指定通道因容量不足丢弃的事件数
+     *
+     * @param lane 通道
+     * @return 丢弃数
+     */
+    long getDroppedCount(EventLane lane);
+
+    /**
+     * 清空所有通道
+     */
+    void clear();
+}
@@ -0,0 +1,67 @@
+package com.janusguard.transport.queue;
+
+import com.janusguard.core.event.SecurityEventSeverity;
+
+/**
+ * 事件优先级通道枚举
+ * 按严重级别划分队列通道，声明顺序即优先级顺序（越靠前越优先）
+ */
+public enum EventLane {
+
+    /**
+     * 严重事件通道
+     */
+    CRITICAL,
+
+    /**
+     * 高优先级事件通道
+     */
+    HIGH,
+
+    /**
+     * 中优先级事件通道
+     */
+    MEDIUM,
+
+    /**
+     * 低优先级事件通道，包含LOW、INFO以及尚未分类的事件
+     */
+    LOW;
+
+    /**
+     * 根据严重级别获取对应的通道
+     *
+     * @param severity 事件严重级别
+     * @return 对应的通道
+     */
+    public static EventLane forSeverity(SecurityEventSeverity severity) {
+        if (severity == null) {
+            return LOW;
+        }
+
+        switch (severity) {
+            case CRITICAL:
+                return CRITICAL;
+            case HIGH:
+                return HIGH;
+            case MEDIUM:
+                return MEDIUM;
+            default:
+                return LOW;
+        }
+    }
+
+    /**
+     * 返回两个通道中优先级更高的一个
+     *
+     * @param a 通道a
+     * @param b 通道b，可以为null
+     * @return 优先级更高的通道
+     */
+    public static EventLane mostUrgent(EventLane a, EventLane b) {
+        if (b == null) {
+            return a;
+        }
+        return a.ordinal() <= b.ordinal() ? a : b;
+    }
+}
@@ -1,31 +1,45 @@
 package com.janusguard.transport.queue;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.janusguard.common.metrics.AgentMetrics;
 import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventType;
 
 /**
  * 事件队列
  * 负责缓存事件并在生产者与消费者之间传递
- * 在后续阶段会使用Disruptor替换实现以提高性能
+ * 原始队列和已处理队列均按严重级别划分为多个通道，见{@link LaneQueue}；
+ * 配置的容量平均分给各通道，每个队列占用的总容量不随通道数增加
  */
 public class EventQueue {
     
     private static final Logger logger = LoggerFactory.getLogger(EventQueue.class);
     
+    // 各阶段的入队、出队计数
+    private static final LongAdder RAW_ENQUEUED = AgentMetrics.counter("pipeline.raw.enqueued");
+    private static final LongAdder RAW_DEQUEUED = AgentMetrics.counter("pipeline.raw.dequeued");
+    private static final LongAdder PROCESSED_ENQUEUED = AgentMetrics.counter("pipeline.processed.enqueued");
+    private static final LongAdder PROCESSED_DEQUEUED = AgentMetrics.counter("pipeline.processed.dequeued");
+    
     // 原始事件队列（从探针到处理器）
-    private final BlockingQueue<SecurityEvent> rawEventQueue;
+    private final EventBuffer rawEventQueue;
     
     // 已处理事件队列（从处理器到上报器）
-    private final BlockingQueue<SecurityEvent> processedEventQueue;
+    private final LaneQueue processedEventQueue;
+    
+    // 通道调度器
+    private final LaneScheduler scheduler;
     
-    // 队列容量
+    // 每个队列的总容量及平分后每个通道的容量
     private final int capacity;
+    private final int laneCapacity;
     
     // 默认等待超时（毫秒）
     private static final long DEFAULT_POLL_TIMEOUT = 1000;
@@ -33,19 +47,49 @@ public class EventQueue {
     /**
      * 构造函数
      * 
-     * @param capacity 队列容量
+     * @param capacity 每个队列的总容量
      */
     public EventQueue(int capacity) {
+        this(capacity, new LaneScheduler(LaneScheduler.DrainPolicy.WEIGHTED, null), null);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param capacity 已处理队列以及共享原始队列的总容量，平分给各通道
+     * @param scheduler 通道调度器
+     * @param rawEventQueue 原始事件缓冲区，为null时使用与已处理队列相同结构的共享队列
+     */
+    public EventQueue(int capacity, LaneScheduler scheduler, EventBuffer rawEventQueue) {
         this.capacity = capacity;
-        this.rawEventQueue = new LinkedBlockingQueue<>(capacity);
-        this.processedEventQueue = new LinkedBlockingQueue<>(capacity);
+        this.laneCapacity = Math.max(1, capacity / EventLane.values().length);
+        this.scheduler = scheduler;
+        this.rawEventQueue = rawEventQueue != null ? rawEventQueue : new LaneQueue(laneCapacity, scheduler);
+        this.processedEventQueue = new LaneQueue(laneCapacity, scheduler);
     }
     
     /**
      * 初始化队列
      */
     public void initialize() {
-        logger.info("Initializing event queue with capacity {}", capacity);
+        AgentMetrics.gauge("pipeline.raw.size", this::getRawQueueSize);
+        AgentMetrics.gauge("pipeline.processed.size", this::getProcessedQueueSize);
+        for (EventLane lane : EventLane.values()) {
+            AgentMetrics.gauge("pipeline.dropped.queue-full." + lane.name().toLowerCase(),
+                    () -> getDroppedCount(lane));
+        }
+        logger.info("Initializing event queue with capacity {} ({} per lane), drain policy {}, raw buffer {}",
+                capacity, laneCapacity, scheduler.getDrainPolicy(), rawEventQueue.getClass().getSimpleName());
+    }
+    
+    /**
+     * 将指定类型的事件至少提升到某个通道
+     * 
+     * @param type 事件类型
+     * @param lane 最低通道
+     */
+    public void promote(SecurityEventType type, EventLane lane) {
+        scheduler.promote(type, lane);
     }
     
     /**
@@ -70,8 +114,11 @@ public class EventQueue {
         
         try {
             boolean result = rawEventQueue.offer(event, 100, TimeUnit.MILLISECONDS);
-            if (!result) {
-                logger.warn("Failed to offer event to raw queue, queue might be full");
+            if (result) {
+                RAW_ENQUEUED.increment();
+            } else {
+                logger.warn("Failed to offer event to raw queue, {} lane might be full",
+                        rawEventQueue.laneOf(event));
             }
             return result;
         } catch (InterruptedException e) {
@@ -94,8 +141,11 @@ public class EventQueue {
         
         try {
             boolean result = processedEventQueue.offer(event, 100, TimeUnit.MILLISECONDS);
-            if (!result) {
-                logger.warn("Failed to offer event to processed queue, queue might be full");
+            if (result) {
+                PROCESSED_ENQUEUED.increment();
+            } else {
+                logger.warn("Failed to offer event to processed queue, {} lane might be full",
+                        processedEventQueue.laneOf(event));
             }
             return result;
         } catch (InterruptedException e) {
@@ -106,23 +156,111 @@ public class EventQueue {
     }
     
     /**
-     * 从原始队列获取事件
+     * 批量提交已处理事件到队列，整批交接给上报器
+     * 
+     * @param events 已处理事件批次
+     * @return 成功提交的事件数
+     */
+    public int offerProcessed(List<SecurityEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            int accepted = processedEventQueue.offerAll(events, 100, TimeUnit.MILLISECONDS);
+            PROCESSED_ENQUEUED.add(accepted);
+            if (accepted < events.size()) {
+                logger.warn("Failed to offer {} of {} events to processed queue, lanes might be full",
+                        events.size() - accepted, events.size());
+            }
+            return accepted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while offering events to processed queue");
+            return 0;
+        }
+    }
+    
+    /**
+     * 从原始队列获取事件，按通道消费策略选择通道
      * 
      * @return 获取的事件，如果队列为空则可能返回null
      * @throws InterruptedException 如果等待过程中被中断
      */
     public SecurityEvent poll() throws InterruptedException {
-        return rawEventQueue.poll(DEFAULT_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+        return counted(rawEventQueue.poll(DEFAULT_POLL_TIMEOUT, TimeUnit.MILLISECONDS), RAW_DEQUEUED);
     }
     
     /**
-     * 从已处理队列获取事件
+     * 从已处理队列获取事件，按通道消费策略选择通道
      * 
      * @return 获取的已处理事件，如果队列为空则可能返回null
      * @throws InterruptedException 如果等待过程中被中断
      */
     public SecurityEvent pollProcessed() throws InterruptedException {
-        return processedEventQueue.poll(DEFAULT_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+        return counted(processedEventQueue.poll(DEFAULT_POLL_TIMEOUT, TimeUnit.MILLISECONDS), PROCESSED_DEQUEUED);
+    }
+    
+    /**
+     * 从原始队列批量获取事件，至多等待到第一个事件到达，之后不再等待
+     * 
+     * @param sink 接收事件的集合
+     * @param maxEvents 最多获取的事件数
+     * @return 实际获取的事件数
+     * @throws InterruptedException 如果等待过程中被中断
+     */
+    public int poll(Collection<? super SecurityEvent> sink, int maxEvents) throws InterruptedException {
+        return pollBatch(rawEventQueue, sink, maxEvents, RAW_DEQUEUED);
+    }
+    
+    /**
+     * 从原始队列批量获取事件，至多等待指定时间到第一个事件到达，之后不再等待
+     * 
+     * @param sink 接收事件的集合
+     * @param maxEvents 最多获取的事件数
+     * @param timeoutMs 最长等待时间，单位毫秒
+     * @return 实际获取的事件数
+     * @throws InterruptedException 如果等待过程中被中断
+     */
+    public int poll(Collection<? super SecurityEvent> sink, int maxEvents, long timeoutMs)
+            throws InterruptedException {
+        return pollBatch(rawEventQueue, sink, maxEvents, timeoutMs, RAW_DEQUEUED);
+    }
+    
+    /**
+     * 从已处理队列批量获取事件，至多等待到第一个事件到达，之后不再等待
+     * 
+     * @param sink 接收事件的集合
+     * @param maxEvents 最多获取的事件数
+     * @return 实际获取的事件数
+     * @throws InterruptedException 如果等待过程中被中断
+     */
+    public int pollProcessed(Collection<? super SecurityEvent> sink, int maxEvents) throws InterruptedException {
+        return pollBatch(processedEventQueue, sink, maxEvents, PROCESSED_DEQUEUED);
+    }
+    
+    private static int pollBatch(EventBuffer buffer, Collection<? super SecurityEvent> sink, int maxEvents,
+                                 LongAdder dequeued) throws InterruptedException {
+        return pollBatch(buffer, sink, maxEvents, DEFAULT_POLL_TIMEOUT, dequeued);
+    }
+    
+    private static int pollBatch(EventBuffer buffer, Collection<? super SecurityEvent> sink, int maxEvents,
+                                 long timeoutMs, LongAdder dequeued) throws InterruptedException {
+        SecurityEvent first = buffer.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return 0;
+        }
+        sink.add(first);
+        int count = 1 + buffer.drainTo(sink, maxEvents - 1);
+        dequeued.add(count);
+        return count;
+    }
+    
+    private static SecurityEvent counted(SecurityEvent event, LongAdder dequeued) {
+        if (event != null) {
+            dequeued.increment();
+        }
+        return event;
     }
     
     /**
@@ -142,4 +280,34 @@ public class EventQueue {
     public int getProcessedQueueSize() {
         return processedEventQueue.size();
     }
+    
+    /**
+     * 获取原始队列指定通道的事件数量
+     * 
+     * @param lane 通道
+     * @return 事件数量
+     */
+    public int getRawQueueSize(EventLane lane) {
+        return rawEventQueue.size(lane);
+    }
+    
+    /**
+     * 获取已处理队列指定通道的事件数量
+     * 
+     * @param lane 通道
+     * @return 事件数量
+     */
+    public int getProcessedQueueSize(EventLane lane) {
+        return processedEventQueue.size(lane);
+    }
+    
+    /**
+     * 获取指定通道累计丢弃的事件数（原始队列与已处理队列之和）
+     * 
+     * @param lane 通道
+     * @return 丢弃数
+     */
+    public long getDroppedCount(EventLane lane) {
+        return rawEventQueue.getDroppedCount(lane) + processedEventQueue.getDroppedCount(lane);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.janusguard.transport.queue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.janusguard.core.event.SecurityEvent;
+
+/**
+ * 多通道优先级队列
+ * 每个{@link EventLane}拥有独立的有界队列，高优先级事件不会排在大量低优先级事件之后，
+ * 也不会因为低优先级事件占满容量而被丢弃
+ */
+public class LaneQueue implements EventBuffer {
+
+    private final BlockingQueue<SecurityEvent>[] lanes;
+
+    // 可用事件许可数，与所有通道中的事件总数保持一致
+    private final Semaphore available = new Semaphore(0);
+
+    private final LaneScheduler scheduler;
+
+    private final LongAdder[] dropped = new LongAdder[LaneScheduler.LANES.length];
+
+    /**
+     * 构造函数
+     *
+     * @param laneCapacity 每个通道的容量
+     * @param scheduler 通道调度器
+     */
+    @SuppressWarnings("unchecked")
+    public LaneQueue(int laneCapacity, LaneScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.lanes = new BlockingQueue[LaneScheduler.LANES.length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new LinkedBlockingQueue<>(laneCapacity);
+            dropped[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public EventLane laneOf(SecurityEvent event) {
+        return scheduler.laneOf(event);
+    }
+
+    @Override
+    public boolean offer(SecurityEvent event, long timeout, TimeUnit unit) throws InterruptedException {
+        int lane = laneOf(event).ordinal();
+        if (lanes[lane].offer(event, timeout, unit)) {
+            available.release();
+            return true;
+        }
+        dropped[lane].increment();
+        return false;
+    }
+
+    /**
+     * 批量提交事件
+     * 整批共用一个截止时间，通道已满时只等待到截止时间，之后的事件不再等待，满则丢弃；
+     * 每个事件入队后立即释放许可，消费者不必等整批提交完
+     *
+     * @param events 事件批次
+     * @param timeout 整批的等待超时
+     * @param unit 时间单位
+     * @return 成功提交的事件数
+     * @throws InterruptedException 如果等待过程中被中断
+     */
+    public int offerAll(List<SecurityEvent> events, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int accepted = 0;
+        for (SecurityEvent event : events) {
+            int lane = laneOf(event).ordinal();
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            if (lanes[lane].offer(event, remaining, TimeUnit.NANOSECONDS)) {
+                available.release();
+                accepted++;
+            } else {
+                dropped[lane].increment();
+            }
+        }
+        return accepted;
+    }
+
+    @Override
+    public SecurityEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!available.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return take();
+    }
+
+    @Override
+    public int drainTo(Collection<? super SecurityEvent> sink, int maxEvents) {
+        int count = 0;
+        while (count < maxEvents && available.tryAcquire()) {
+            SecurityEvent event = take();
+            if (event == null) {
+                break;
+            }
+            sink.add(event);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 在已获得许可的前提下从通道中取出事件
+     */
+    private SecurityEvent take() {
+        SecurityEvent event = lanes[scheduler.firstLane()].poll();
+        if (event != null) {
+            return event;
+        }
+
+        // 选中的通道为空时按优先级回退
+        for (BlockingQueue<SecurityEvent> lane : lanes) {
+            event = lane.poll();
+            if (event != null) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        for (BlockingQueue<SecurityEvent> lane : lanes) {
+            lane.clear();
+        }
+        available.drainPermits();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (BlockingQueue<SecurityEvent> lane : lanes) {
+            size += lane.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int size(EventLane lane) {
+        return lanes[lane.ordinal()].size();
+    }
+
+    @Override
+    public long getDroppedCount(EventLane lane) {
+        return dropped[lane.ordinal()].sum();
+    }
+}
@@ -0,0 +1,142 @@
+package com.janusguard.transport.queue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 通道调度器
+ * 负责决定事件进入哪个通道，以及消费者优先从哪个通道取事件
+ */
+public class LaneScheduler {
+
+    /**
+     * 通道消费策略
+     */
+    public enum DrainPolicy {
+
+        /**
+         * 严格优先级：总是先消费优先级最高的非空通道
+         */
+        STRICT,
+
+        /**
+         * 加权轮询：按通道权重交替消费，避免低优先级通道饥饿
+         */
+        WEIGHTED;
+
+        /**
+         * 解析策略名称，无法识别时返回默认值
+         *
+         * @param name 策略名称
+         * @param defaultPolicy 默认策略
+         * @return 消费策略
+         */
+        public static DrainPolicy fromString(String name, DrainPolicy defaultPolicy) {
+            if (name == null) {
+                return defaultPolicy;
+            }
+            for (DrainPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name.trim())) {
+                    return policy;
+                }
+            }
+            return defaultPolicy;
+        }
+    }
+
+    static final EventLane[] LANES = EventLane.values();
+
+    private final DrainPolicy drainPolicy;
+
+    // 加权轮询调度表，元素为通道序号
+    private final int[] schedule;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    // 按事件类型提升的通道，下标为SecurityEventType序号
+    private final EventLane[] typeLanes = new EventLane[SecurityEventType.values().length];
+
+    /**
+     * 构造函数
+     *
+     * @param drainPolicy 通道消费策略
+     * @param laneWeights 通道权重，顺序与{@link EventLane}一致，仅在加权轮询时使用
+     */
+    public LaneScheduler(DrainPolicy drainPolicy, int[] laneWeights) {
+        this.drainPolicy = drainPolicy;
+        this.schedule = buildSchedule(laneWeights);
+    }
+
+    /**
+     * 将指定类型的事件至少提升到某个通道
+     *
+     * @param type 事件类型
+     * @param lane 最低通道
+     */
+    public void promote(SecurityEventType type, EventLane lane) {
+        typeLanes[type.ordinal()] = lane;
+    }
+
+    /**
+     * 获取事件所属通道
+     *
+     * @param event 事件
+     * @return 通道
+     */
+    public EventLane laneOf(SecurityEvent event) {
+        EventLane lane = EventLane.forSeverity(event.getSeverity());
+        SecurityEventType type = event.getType();
+        return type == null ? lane : EventLane.mostUrgent(lane, typeLanes[type.ordinal()]);
+    }
+
+    /**
+     * 获取本次消费应首先尝试的通道序号
+     * 该通道为空时，消费者应按优先级顺序回退到其他通道
+     *
+     * @return 通道序号
+     */
+    public int firstLane() {
+        if (drainPolicy == DrainPolicy.STRICT) {
+            return 0;
+        }
+        int index = (cursor.getAndIncrement() & Integer.MAX_VALUE) % schedule.length;
+        return schedule[index];
+    }
+
+    /**
+     * 获取消费策略
+     *
+     * @return 消费策略
+     */
+    public DrainPolicy getDrainPolicy() {
+        return drainPolicy;
+    }
+
+    /**
+     * 生成平滑加权轮询调度表
+     */
+    private static int[] buildSchedule(int[] weights) {
+        int[] effective = new int[LANES.length];
+        int total = 0;
+        for (int i = 0; i < LANES.length; i++) {
+            effective[i] = weights != null && i < weights.length ? Math.max(1, weights[i]) : 1;
+            total += effective[i];
+        }
+
+        int[] result = new int[total];
+        int[] current = new int[LANES.length];
+        for (int n = 0; n < total; n++) {
+            int best = 0;
+            for (int i = 0; i < LANES.length; i++) {
+                current[i] += effective[i];
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= total;
+            result[n] = best;
+        }
+        return result;
+    }
+}
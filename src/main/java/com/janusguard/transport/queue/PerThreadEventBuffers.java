@@ -0,0 +1,387 @@
+package com.janusguard.transport.queue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.common.platform.SpinWait;
+import com.janusguard.common.platform.VirtualThreads;
+import com.janusguard.core.event.SecurityEvent;
+
+/**
+ * 按生产者线程划分的事件缓冲区
+ * 每个应用线程在首次提交事件时惰性注册一组{@link SpscRingBuffer}（每个通道一个，按需创建），
+ * 提交过程不加锁、不等待；消费者按通道调度策略轮询扫描所有线程的缓冲区，
+ * 并按固定间隔回收已结束线程的空缓冲区，与负载无关。
+ * 虚拟线程数量没有上限且生命周期很短，不为其单独注册缓冲区，
+ * 而是按线程ID映射到固定数量的共享分段缓冲区，生产者之间用分段锁保持单生产者语义；
+ * 分段锁只尝试一轮，全部被占用时直接丢弃事件并计入pipeline.dropped.shared-contention，同样不等待
+ */
+public class PerThreadEventBuffers implements EventBuffer {
+
+    private static final LongAdder SHARED_CONTENTION = AgentMetrics.counter("pipeline.dropped.shared-contention");
+
+    // 空闲时先让出CPU的次数，之后进入退避休眠
+    private static final int IDLE_YIELDS = 16;
+
+    // 回收已结束线程缓冲区的最小间隔
+    private static final long RECLAIM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LaneScheduler scheduler;
+    private final int ringCapacity;
+    private final long maxParkNanos;
+
+    // 已注册的生产者缓冲区，写时复制
+    private volatile ProducerBuffer[] buffers = new ProducerBuffer[0];
+
+    private final ThreadLocal<ProducerBuffer> localBuffer = new ThreadLocal<ProducerBuffer>() {
+        @Override
+        protected ProducerBuffer initialValue() {
+            return register(new ProducerBuffer(Thread.currentThread(), ringCapacity));
+        }
+    };
+
+    // 虚拟线程共用的分段缓冲区，首个虚拟线程提交事件时创建
+    private volatile ProducerBuffer[] sharedBuffers;
+
+    private final AtomicInteger sweepCursor = new AtomicInteger();
+    private final AtomicLong lastReclaim = new AtomicLong(System.nanoTime());
+    private final LongAdder[] dropped = new LongAdder[LaneScheduler.LANES.length];
+
+    /**
+     * 构造函数
+     *
+     * @param ringCapacity 每个线程每个通道的环形缓冲区容量
+     * @param maxParkMicros 消费者空闲时单次休眠的上限（微秒）
+     * @param scheduler 通道调度器
+     */
+    public PerThreadEventBuffers(int ringCapacity, long maxParkMicros, LaneScheduler scheduler) {
+        this.ringCapacity = ringCapacity;
+        this.maxParkNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1, maxParkMicros));
+        this.scheduler = scheduler;
+        for (int i = 0; i < dropped.length; i++) {
+            dropped[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public EventLane laneOf(SecurityEvent event) {
+        return scheduler.laneOf(event);
+    }
+
+    /**
+     * 提交事件到当前线程的缓冲区，从不等待，timeout参数被忽略
+     */
+    @Override
+    public boolean offer(SecurityEvent event, long timeout, TimeUnit unit) {
+        int lane = laneOf(event).ordinal();
+        Thread thread = Thread.currentThread();
+        boolean offered = VirtualThreads.isVirtual(thread)
+                ? offerShared(thread, lane, event)
+                : localBuffer.get().ring(lane).offer(event);
+        if (offered) {
+            return true;
+        }
+        dropped[lane].increment();
+        return false;
+    }
+
+    /**
+     * 提交虚拟线程的事件到共享分段缓冲区
+     * 从线程对应的分段开始尝试加锁，被占用时换下一个分段；锁内只有一次环形缓冲区写入。
+     * 所有分段都被占用时不自旋等待，返回false由调用方计为丢弃
+     */
+    private boolean offerShared(Thread thread, int lane, SecurityEvent event) {
+        ProducerBuffer[] stripes = sharedBuffers;
+        if (stripes == null) {
+            stripes = createSharedBuffers();
+        }
+
+        int mask = stripes.length - 1;
+        int index = (int) ((thread.getId() * 0x9E3779B97F4A7C15L) >>> 40);
+        for (int i = 0; i < stripes.length; i++) {
+            ProducerBuffer buffer = stripes[(index + i) & mask];
+            if (buffer.producing.compareAndSet(false, true)) {
+                try {
+                    return buffer.ring(lane).offer(event);
+                } finally {
+                    buffer.producing.set(false);
+                }
+            }
+        }
+        SHARED_CONTENTION.increment();
+        return false;
+    }
+
+    /**
+     * 创建共享分段缓冲区，分段数为不小于处理器数的2的幂
+     */
+    private synchronized ProducerBuffer[] createSharedBuffers() {
+        ProducerBuffer[] stripes = sharedBuffers;
+        if (stripes == null) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            int count = processors <= 1 ? 1 : Integer.highestOneBit(processors - 1) << 1;
+            stripes = new ProducerBuffer[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = register(new ProducerBuffer(null, ringCapacity));
+            }
+            sharedBuffers = stripes;
+        }
+        return stripes;
+    }
+
+    @Override
+    public SecurityEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idleCount = 0;
+
+        // 持续有事件时poll不会超时，回收不能只在空闲时进行，否则短命线程的缓冲区会一直累积
+        reclaimDeadBuffers();
+
+        while (true) {
+            SecurityEvent event = pollOnce();
+            if (event != null) {
+                return event;
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+
+            // 空闲退避：先短暂自旋等待，再以指数增长的间隔休眠
+            if (idleCount < IDLE_YIELDS) {
+                SpinWait.onSpinWait();
+            } else {
+                int shift = Math.min(idleCount - IDLE_YIELDS, 20);
+                LockSupport.parkNanos(Math.min(remaining, Math.min(maxParkNanos, 1000L << shift)));
+            }
+            idleCount++;
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super SecurityEvent> sink, int maxEvents) {
+        int count = 0;
+        while (count < maxEvents) {
+            SecurityEvent event = pollOnce();
+            if (event == null) {
+                break;
+            }
+            sink.add(event);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 按通道调度策略扫描一次所有缓冲区
+     */
+    private SecurityEvent pollOnce() {
+        ProducerBuffer[] snapshot = buffers;
+        if (snapshot.length == 0) {
+            return null;
+        }
+
+        int first = scheduler.firstLane();
+        SecurityEvent event = pollLane(snapshot, first);
+        if (event != null) {
+            return event;
+        }
+
+        // 选中的通道为空时按优先级回退
+        for (int lane = 0; lane < LaneScheduler.LANES.length; lane++) {
+            if (lane != first) {
+                event = pollLane(snapshot, lane);
+                if (event != null) {
+                    return event;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从指定通道轮询各线程缓冲区，起点轮转以保证线程间公平
+     */
+    private SecurityEvent pollLane(ProducerBuffer[] snapshot, int lane) {
+        int length = snapshot.length;
+        int start = (sweepCursor.getAndIncrement() & Integer.MAX_VALUE) % length;
+
+        for (int i = 0; i < length; i++) {
+            ProducerBuffer buffer = snapshot[(start + i) % length];
+            SpscRingBuffer<SecurityEvent> ring = buffer.rings.get(lane);
+            if (ring == null || ring.isEmpty()) {
+                continue;
+            }
+
+            // 同一时刻只允许一个消费者读取某个缓冲区，保持单消费者语义
+            if (buffer.consuming.compareAndSet(false, true)) {
+                try {
+                    SecurityEvent event = ring.poll();
+                    if (event != null) {
+                        return event;
+                    }
+                } finally {
+                    buffer.consuming.set(false);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 注册生产者缓冲区
+     */
+    private synchronized ProducerBuffer register(ProducerBuffer buffer) {
+        ProducerBuffer[] current = buffers;
+        ProducerBuffer[] updated = new ProducerBuffer[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = buffer;
+        buffers = updated;
+        return buffer;
+    }
+
+    /**
+     * 回收已结束线程的空缓冲区，按固定间隔限流
+     */
+    private void reclaimDeadBuffers() {
+        long now = System.nanoTime();
+        long last = lastReclaim.get();
+        if (now - last < RECLAIM_INTERVAL_NANOS || !lastReclaim.compareAndSet(last, now)) {
+            return;
+        }
+
+        synchronized (this) {
+            ProducerBuffer[] current = buffers;
+            List<ProducerBuffer> alive = new ArrayList<>(current.length);
+            for (ProducerBuffer buffer : current) {
+                if (!buffer.isReclaimable()) {
+                    alive.add(buffer);
+                }
+            }
+            if (alive.size() != current.length) {
+                buffers = alive.toArray(new ProducerBuffer[0]);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (ProducerBuffer buffer : buffers) {
+            if (buffer.consuming.compareAndSet(false, true)) {
+                try {
+                    for (int lane = 0; lane < LaneScheduler.LANES.length; lane++) {
+                        SpscRingBuffer<SecurityEvent> ring = buffer.rings.get(lane);
+                        while (ring != null && ring.poll() != null) {
+                            // 丢弃剩余事件
+                        }
+                    }
+                } finally {
+                    buffer.consuming.set(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (EventLane lane : LaneScheduler.LANES) {
+            size += size(lane);
+        }
+        return size;
+    }
+
+    @Override
+    public int size(EventLane lane) {
+        int size = 0;
+        for (ProducerBuffer buffer : buffers) {
+            SpscRingBuffer<SecurityEvent> ring = buffer.rings.get(lane.ordinal());
+            if (ring != null) {
+                size += ring.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long getDroppedCount(EventLane lane) {
+        return dropped[lane.ordinal()].sum();
+    }
+
+    /**
+     * 获取已注册的生产者缓冲区数，包括虚拟线程共用的分段缓冲区
+     *
+     * @return 生产者缓冲区数
+     */
+    public int getProducerCount() {
+        return buffers.length;
+    }
+
+    /**
+     * 单个生产者线程的缓冲区，所属线程为null时为虚拟线程共用的分段缓冲区
+     */
+    private static final class ProducerBuffer {
+
+        // 所属平台线程，共用缓冲区为null
+        private final WeakReference<Thread> owner;
+        private final int capacity;
+        private final AtomicReferenceArray<SpscRingBuffer<SecurityEvent>> rings =
+                new AtomicReferenceArray<>(LaneScheduler.LANES.length);
+        private final AtomicBoolean consuming = new AtomicBoolean(false);
+
+        // 共用缓冲区的生产者锁
+        private final AtomicBoolean producing = new AtomicBoolean(false);
+
+        ProducerBuffer(Thread owner, int capacity) {
+            this.owner = owner != null ? new WeakReference<>(owner) : null;
+            this.capacity = capacity;
+        }
+
+        /**
+         * 获取指定通道的环形缓冲区，仅由所属线程或持有生产者锁的虚拟线程调用，首次使用时创建
+         */
+        SpscRingBuffer<SecurityEvent> ring(int lane) {
+            SpscRingBuffer<SecurityEvent> ring = rings.get(lane);
+            if (ring == null) {
+                ring = new SpscRingBuffer<>(capacity);
+                rings.lazySet(lane, ring);
+            }
+            return ring;
+        }
+
+        /**
+         * 所属线程已结束且缓冲区已排空时可以回收
+         */
+        boolean isReclaimable() {
+            if (owner == null) {
+                return false;
+            }
+            Thread thread = owner.get();
+            if (thread != null && thread.isAlive()) {
+                return false;
+            }
+            for (int lane = 0; lane < rings.length(); lane++) {
+                SpscRingBuffer<SecurityEvent> ring = rings.get(lane);
+                if (ring != null && !ring.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
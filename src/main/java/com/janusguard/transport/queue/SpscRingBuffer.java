@@ -0,0 +1,100 @@
+package com.janusguard.transport.queue;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 单生产者单消费者环形缓冲区
+ * 生产者写入是无等待的：只做一次普通数组写入和一次延迟写（release语义），满时直接返回false。
+ * 读写位置保存在带填充的父类字段中，通过字段更新器访问
+ *
+ * @param <E> 元素类型
+ */
+public class SpscRingBuffer<E> extends SpscRingBufferFields {
+
+    private static final AtomicLongFieldUpdater<SpscRingBufferTail> TAIL =
+            AtomicLongFieldUpdater.newUpdater(SpscRingBufferTail.class, "tail");
+    private static final AtomicLongFieldUpdater<SpscRingBufferFields> HEAD =
+            AtomicLongFieldUpdater.newUpdater(SpscRingBufferFields.class, "head");
+
+    private final Object[] buffer;
+    private final int mask;
+
+    /**
+     * 构造函数
+     *
+     * @param capacity 容量，会向上取整为2的幂
+     */
+    public SpscRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 写入元素，只能由所属生产者线程调用
+     *
+     * @param element 元素
+     * @return 是否写入成功，缓冲区满时返回false
+     */
+    public boolean offer(E element) {
+        long currentTail = tail;
+        if (currentTail - headCache >= buffer.length) {
+            headCache = head;
+            if (currentTail - headCache >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) currentTail & mask] = element;
+        TAIL.lazySet(this, currentTail + 1);
+        return true;
+    }
+
+    /**
+     * 读取元素，同一时刻只能有一个消费者调用
+     *
+     * @return 元素，缓冲区为空时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = head;
+        if (currentHead >= tail) {
+            return null;
+        }
+        int index = (int) currentHead & mask;
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        HEAD.lazySet(this, currentHead + 1);
+        return element;
+    }
+
+    /**
+     * 获取当前元素数量（近似值）
+     *
+     * @return 元素数量
+     */
+    public int size() {
+        long size = tail - head;
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    /**
+     * 判断是否为空（近似值）
+     *
+     * @return 为空时返回true
+     */
+    public boolean isEmpty() {
+        return head >= tail;
+    }
+
+    /**
+     * 获取容量
+     *
+     * @return 容量
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,40 @@
+package com.janusguard.transport.queue;
+
+/**
+ * {@link SpscRingBuffer}的字段布局
+ * 读写位置分别放在独立的缓存行中，前后用填充字段隔开，避免生产者和消费者的伪共享。
+ * 各版本的SpscRingBuffer都继承这一布局，只是访问字段的方式不同
+ */
+abstract class SpscRingBufferFields extends SpscRingBufferPad1 {
+    
+    // 下一个读取位置，仅由消费者修改
+    volatile long head;
+    
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
+
+/**
+ * 对象头之后的填充
+ */
+abstract class SpscRingBufferPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+/**
+ * 生产者字段
+ */
+abstract class SpscRingBufferTail extends SpscRingBufferPad0 {
+    
+    // 下一个写入位置，仅由生产者修改
+    volatile long tail;
+    
+    // 生产者缓存的读取位置，减少对head的跨核读取
+    long headCache;
+}
+
+/**
+ * 生产者与消费者字段之间的填充
+ */
+abstract class SpscRingBufferPad1 extends SpscRingBufferTail {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
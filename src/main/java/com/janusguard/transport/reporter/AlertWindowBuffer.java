@@ -0,0 +1,257 @@
+package com.janusguard.transport.reporter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 告警窗口缓冲
+ * 高频低危的事件类型（默认文件操作和反射）不再逐条写出，而是先进入一个按字节数限定容量的内存环形缓冲区，
+ * 被挤出或超出回看时长的事件只累加到按类型的丢弃计数中。
+ * 出现触发事件（达到触发级别、带有内存木马等可疑标记，或属于触发类型如命令执行）时，
+ * 把缓冲区中回看时长内的事件连同触发事件一起写出，并在之后的一段时间内让这些类型的事件照常写出。
+ * 窗口内写出的事件带有alert_window字段，值为触发事件的ID
+ */
+public class AlertWindowBuffer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AlertWindowBuffer.class);
+    
+    private static final LongAdder TRIGGERS = AgentMetrics.counter("pipeline.alert-window.triggers");
+    private static final LongAdder BUFFERED = AgentMetrics.counter("pipeline.alert-window.buffered");
+    private static final LongAdder DUMPED = AgentMetrics.counter("pipeline.alert-window.dumped");
+    
+    // 事件对象头、固定字段以及数据映射本身的估算大小
+    private static final int EVENT_OVERHEAD_BYTES = 160;
+    
+    // 数据映射每个条目的估算大小，不含键和值
+    private static final int ENTRY_OVERHEAD_BYTES = 48;
+    
+    // 可能出现在数据中的可疑标记
+    private static final String[] SUSPICIOUS_FLAGS = {
+            AgentConstants.EventFields.MEMORY_TROJAN_SUSPICIOUS,
+            AgentConstants.EventFields.DANGEROUS_OPERATION,
+            AgentConstants.EventFields.SUSPICIOUS_JNI,
+            AgentConstants.EventFields.SUSPICIOUS_PROXY
+    };
+    
+    private final Set<SecurityEventType> bufferedTypes;
+    private final Set<SecurityEventType> triggerTypes;
+    private final SecurityEventSeverity triggerSeverity;
+    private final long beforeMs;
+    private final long afterMs;
+    private final long maxBytes;
+    
+    // 按类型的丢弃计数，即缓冲区平时保留的聚合信息
+    private final Map<SecurityEventType, LongAdder> discarded = new EnumMap<>(SecurityEventType.class);
+    
+    private final ArrayDeque<Entry> ring = new ArrayDeque<>();
+    private long ringBytes;
+    
+    // 每批过滤结束时发布的缓冲区占用，供指标读取而不必持锁
+    private volatile long publishedBytes;
+    private volatile int publishedEvents;
+    
+    // 当前告警窗口的结束时间和触发事件ID，窗口关闭时为0和null
+    private long windowEnd;
+    private String windowTrigger;
+    
+    /**
+     * 构造函数
+     *
+     * @param config Agent配置
+     */
+    public AlertWindowBuffer(AgentConfig config) {
+        this.bufferedTypes = parseTypes(config.getStringList("reporting.alert-window.buffered-types",
+                Arrays.asList("FILE_OPERATION", "REFLECTION")));
+        this.triggerTypes = parseTypes(config.getStringList("reporting.alert-window.trigger-types",
+                Collections.singletonList("COMMAND_EXECUTION")));
+        this.triggerSeverity = parseSeverity(config.getString("reporting.alert-window.trigger-severity", "CRITICAL"));
+        this.beforeMs = Math.max(0, config.getInt("reporting.alert-window.before-ms", 5000));
+        this.afterMs = Math.max(0, config.getInt("reporting.alert-window.after-ms", 5000));
+        this.maxBytes = Math.max(1, config.getInt("reporting.alert-window.max-kb", 8192)) * 1024L;
+        
+        for (SecurityEventType type : bufferedTypes) {
+            discarded.put(type, AgentMetrics.counter("pipeline.alert-window.discarded." + type.name().toLowerCase()));
+        }
+        AgentMetrics.gauge("pipeline.alert-window.bytes", this::getBufferedBytes);
+        AgentMetrics.gauge("pipeline.alert-window.events", this::getBufferedEvents);
+    }
+    
+    /**
+     * 过滤一批已处理事件
+     * 缓冲类型的事件在告警窗口外进入缓冲区；触发事件会先带出缓冲区中回看时长内的事件
+     *
+     * @param events 已处理事件
+     * @return 需要写出的事件，按写出顺序排列
+     */
+    public synchronized List<SecurityEvent> filter(List<SecurityEvent> events) {
+        List<SecurityEvent> output = new ArrayList<>(events.size());
+        for (SecurityEvent event : events) {
+            long timestamp = event.getTimestamp();
+            if (isTrigger(event)) {
+                TRIGGERS.increment();
+                dump(event, output);
+                windowEnd = Math.max(windowEnd, timestamp + afterMs);
+                windowTrigger = event.getId();
+                output.add(event);
+            } else if (!bufferedTypes.contains(event.getType())) {
+                output.add(event);
+            } else if (windowTrigger != null && timestamp <= windowEnd) {
+                event.addData(AgentConstants.EventFields.ALERT_WINDOW, windowTrigger);
+                output.add(event);
+            } else {
+                windowTrigger = null;
+                buffer(event);
+            }
+        }
+        publishedBytes = ringBytes;
+        publishedEvents = ring.size();
+        return output;
+    }
+    
+    /**
+     * 获取缓冲区当前估算占用的字节数
+     *
+     * @return 字节数
+     */
+    public long getBufferedBytes() {
+        return publishedBytes;
+    }
+    
+    /**
+     * 获取缓冲区当前的事件数
+     *
+     * @return 事件数
+     */
+    public long getBufferedEvents() {
+        return publishedEvents;
+    }
+    
+    private boolean isTrigger(SecurityEvent event) {
+        if (triggerTypes.contains(event.getType())) {
+            return true;
+        }
+        SecurityEventSeverity severity = event.getSeverity();
+        if (severity != null && severity.isAtLeast(triggerSeverity)) {
+            return true;
+        }
+        Map<String, Object> data = event.getData();
+        for (String flag : SUSPICIOUS_FLAGS) {
+            if (Boolean.TRUE.equals(data.get(flag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void buffer(SecurityEvent event) {
+        long bytes = estimateSize(event);
+        ring.addLast(new Entry(event, bytes));
+        ringBytes += bytes;
+        BUFFERED.increment();
+        
+        // 超出容量或回看时长的事件只保留计数
+        long oldest = event.getTimestamp() - beforeMs;
+        Entry head;
+        while ((head = ring.peekFirst()) != null && (ringBytes > maxBytes || head.event.getTimestamp() < oldest)) {
+            discard(ring.pollFirst());
+        }
+    }
+    
+    /**
+     * 写出缓冲区中回看时长内的事件，其余丢弃
+     */
+    private void dump(SecurityEvent trigger, List<SecurityEvent> output) {
+        long oldest = trigger.getTimestamp() - beforeMs;
+        int dumped = 0;
+        Entry entry;
+        while ((entry = ring.pollFirst()) != null) {
+            if (entry.event.getTimestamp() < oldest) {
+                discard(entry);
+                continue;
+            }
+            ringBytes -= entry.bytes;
+            entry.event.addData(AgentConstants.EventFields.ALERT_WINDOW, trigger.getId());
+            output.add(entry.event);
+            dumped++;
+        }
+        DUMPED.add(dumped);
+        logger.debug("Alert window opened by {} event {}, {} buffered events written",
+                trigger.getType(), trigger.getId(), dumped);
+    }
+    
+    private void discard(Entry entry) {
+        ringBytes -= entry.bytes;
+        LongAdder counter = discarded.get(entry.event.getType());
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+    
+    /**
+     * 估算事件占用的堆内存，字符串按UTF-16计算
+     */
+    static long estimateSize(SecurityEvent event) {
+        long size = EVENT_OVERHEAD_BYTES;
+        size += sizeOf(event.getClassName()) + sizeOf(event.getMethodName()) + sizeOf(event.getThreadName());
+        size += sizeOf(event.getCallStackTrace());
+        for (Map.Entry<String, Object> entry : event.getData().entrySet()) {
+            size += ENTRY_OVERHEAD_BYTES + sizeOf(entry.getKey());
+            Object value = entry.getValue();
+            size += value instanceof String ? sizeOf((String) value) : 16;
+        }
+        return size;
+    }
+    
+    private static long sizeOf(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+    
+    private static Set<SecurityEventType> parseTypes(List<String> names) {
+        Set<SecurityEventType> types = EnumSet.noneOf(SecurityEventType.class);
+        for (String name : names) {
+            try {
+                types.add(SecurityEventType.valueOf(name.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid alert window event type: {}", name);
+            }
+        }
+        return types;
+    }
+    
+    private static SecurityEventSeverity parseSeverity(String value) {
+        try {
+            return SecurityEventSeverity.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid alert window trigger severity: {}, falling back to HIGH", value);
+            return SecurityEventSeverity.HIGH;
+        }
+    }
+    
+    private static final class Entry {
+        final SecurityEvent event;
+        final long bytes;
+        
+        Entry(SecurityEvent event, long bytes) {
+            this.event = event;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -1,47 +1,104 @@
 package com.janusguard.transport.reporter;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.common.metrics.LatencyHistogram;
+import com.janusguard.core.context.AgentExecutors;
 import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
 import com.janusguard.transport.queue.EventQueue;
 
 /**
  * 数据上报器
  * 负责将安全事件数据上报到外部系统或文件
+ * 分级流水线（staged）下由独立的上报线程从已处理队列批量取事件；
+ * 融合流水线（fused）下由事件处理线程在规则评估后直接调用{@link #report(List)}，省去一次队列交接。
+ * 写出执行方式（reporting.executor）为virtual且输出端支持虚拟线程时，队列消费仍在平台线程上进行，
+ * 批次按交换缓冲区的顺序排队，由一个虚拟线程依次写出，调用线程不等待写出完成
  */
 public class DataReporter {
     
     private static final Logger logger = LoggerFactory.getLogger(DataReporter.class);
     
+    // 端到端指标：已上报事件数及其从产生到写出的累计耗时
+    private static final LongAdder EVENTS_REPORTED = AgentMetrics.counter("pipeline.events-reported");
+    private static final LongAdder REPORT_LATENCY_MS = AgentMetrics.counter("pipeline.report-latency-ms-total");
+    private static final LongAdder BATCHES_FLUSHED = AgentMetrics.counter("pipeline.batches-flushed");
+    private static final LongAdder BATCHES_FAILED = AgentMetrics.counter("pipeline.batches-failed");
+    private static final LongAdder EVENTS_FAILED = AgentMetrics.counter("pipeline.dropped.sink-error");
+    private static final LongAdder SINK_WRITE_NS = AgentMetrics.counter("pipeline.sink.write-time-ns-total");
+    private static final AtomicLong SINK_WRITE_NS_MAX = new AtomicLong();
+    private static final AtomicLong BATCH_SIZE_MAX = new AtomicLong();
+    
+    // 输出端健康状况：单批写出耗时分布和连续失败的批次数，写出成功时清零
+    private static final LatencyHistogram SINK_WRITE_LATENCY = AgentMetrics.histogram("pipeline.sink.write-latency-ns");
+    private static final AtomicLong CONSECUTIVE_FAILURES = new AtomicLong();
+    
+    static {
+        AgentMetrics.gauge("pipeline.sink.write-time-ns-max", SINK_WRITE_NS_MAX::get);
+        AgentMetrics.gauge("pipeline.batch-size-max", BATCH_SIZE_MAX::get);
+        AgentMetrics.gauge("pipeline.sink.consecutive-failures", CONSECUTIVE_FAILURES::get);
+    }
+    
     private final AgentConfig config;
     private final EventQueue eventQueue;
     private final ObjectMapper objectMapper;
     private ExecutorService reporterThread;
     private ScheduledExecutorService flushScheduler;
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private final List<SecurityEvent> eventBuffer = new ArrayList<>();
-    private PrintWriter fileWriter;
+    private List<SecurityEvent> eventBuffer = new ArrayList<>();
+    private final Object bufferLock = new Object();
+    private volatile EventSink eventSink;
+    
+    // 批次写出执行器，为null时在调用线程上同步写出
+    private ExecutorService sinkExecutor;
+    
+    // 限制排队等待写出的批次数量，写出跟不上时对调用线程形成背压
+    private Semaphore inFlightBatches;
+    
+    // 等待写出的批次，按交换缓冲区的顺序排列，由bufferLock保护
+    private final ArrayDeque<List<SecurityEvent>> pendingBatches = new ArrayDeque<>();
+    
+    // 是否已有虚拟线程在依次写出排队的批次，由bufferLock保护
+    private boolean draining;
+    
+    // 批处理大小
+    private final int batchSize;
+    
+    // 是否为融合流水线
+    private final boolean fused;
+    
+    // 快速通道：达到该级别的事件立即刷新，为null时表示禁用
+    private final SecurityEventSeverity expressSeverity;
+    
+    // 是否在虚拟线程上写出批次
+    private final boolean virtualSinkThreads;
+    
+    // 最大在途批次数
+    private final int maxInFlightBatches;
+    
+    // 告警窗口缓冲，未启用时为null
+    private final AlertWindowBuffer alertWindow;
+    
+    // 重复事件去重，未启用时为null
+    private final EventDeduplicator deduplicator;
     
     /**
      * 构造函数
@@ -53,6 +110,58 @@ public class DataReporter {
         this.config = config;
         this.eventQueue = eventQueue;
         this.objectMapper = new ObjectMapper();
+        this.batchSize = config.getInt("event-processing.batch-size", 100);
+        this.fused = isFusedPipeline(config);
+        
+        String name = config.getString("event-processing.express-flush.min-severity", "CRITICAL");
+        SecurityEventSeverity severity;
+        try {
+            severity = SecurityEventSeverity.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid express flush severity: {}, falling back to CRITICAL", name);
+            severity = SecurityEventSeverity.CRITICAL;
+        }
+        this.expressSeverity = config.getBoolean("event-processing.express-flush.enabled", true) ? severity : null;
+        
+        this.virtualSinkThreads = useVirtualSinkThreads(config.getString("reporting.executor", "platform"));
+        this.maxInFlightBatches = Math.max(1, config.getInt("reporting.max-in-flight-batches", 64));
+        this.alertWindow = config.getBoolean("reporting.alert-window.enabled", false)
+                ? new AlertWindowBuffer(config) : null;
+        this.deduplicator = config.getBoolean("reporting.dedup.enabled", false)
+                ? new EventDeduplicator(config, severity) : null;
+    }
+    
+    /**
+     * 解析写出执行方式：platform在调用线程上同步写出，virtual在虚拟线程上写出，
+     * auto在当前JDK支持虚拟线程时使用virtual
+     */
+    private static boolean useVirtualSinkThreads(String mode) {
+        String normalized = mode.trim().toLowerCase();
+        if ("auto".equals(normalized)) {
+            return AgentExecutors.supportsVirtualThreads();
+        }
+        if ("virtual".equals(normalized)) {
+            if (AgentExecutors.supportsVirtualThreads()) {
+                return true;
+            }
+            logger.warn("Virtual threads are not supported on Java {}, sink writes stay on platform threads",
+                    System.getProperty("java.version"));
+            return false;
+        }
+        if (!"platform".equals(normalized)) {
+            logger.warn("Invalid reporting executor: {}, falling back to platform", mode);
+        }
+        return false;
+    }
+    
+    /**
+     * 判断配置是否使用融合流水线
+     * 
+     * @param config Agent配置
+     * @return 使用融合流水线时返回true
+     */
+    public static boolean isFusedPipeline(AgentConfig config) {
+        return "fused".equalsIgnoreCase(config.getString("event-processing.pipeline", "fused").trim());
     }
     
     /**
@@ -70,41 +179,52 @@ public class DataReporter {
             // 初始化数据上报模式
             String reportingMode = config.getString("reporting.mode", "file");
             
-            // 初始化文件写入器（如果需要）
-            if ("file".equals(reportingMode)) {
-                initFileWriter();
-            }
-            
-            // 创建上报线程
-            reporterThread = Executors.newSingleThreadExecutor(new ThreadFactory() {
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread thread = new Thread(r, "janusguard-reporter");
-                    thread.setDaemon(true);
-                    return thread;
-                }
-            });
+            // 初始化输出端
+            eventSink = createEventSink(reportingMode);
+            AgentMetrics.gauge("pipeline.sink.up", () -> running.get() && eventSink != null ? 1 : 0);
             
             // 创建定时刷新调度器
             int flushInterval = config.getInt("event-processing.flush-interval-ms", 5000);
-            flushScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread thread = new Thread(r, "janusguard-flush-scheduler");
-                    thread.setDaemon(true);
-                    return thread;
-                }
-            });
+            flushScheduler = AgentExecutors.newSingleThreadScheduledExecutor("janusguard-flush-scheduler");
+            
+            // 批次写出交给虚拟线程，消费线程和刷新调度器仍为平台线程；
+            // 文件等写出时会占住载体线程的输出端仍在平台线程上写出
+            boolean virtual = virtualSinkThreads && eventSink.supportsVirtualThreads();
+            if (virtualSinkThreads && !virtual) {
+                logger.warn("Sink for reporting mode {} may pin carrier threads, sink writes stay on platform threads",
+                        reportingMode);
+            }
+            if (virtual) {
+                sinkExecutor = AgentExecutors.newVirtualThreadExecutor("janusguard-sink");
+                inFlightBatches = new Semaphore(maxInFlightBatches);
+                Semaphore permits = inFlightBatches;
+                AgentMetrics.gauge("pipeline.sink-in-flight-batches",
+                        () -> maxInFlightBatches - permits.availablePermits());
+            }
             
-            // 启动上报线程
-            reporterThread.submit(new ReporterWorker());
+            running.set(true);
+            
+            // 分级流水线需要独立的上报线程，融合流水线由处理线程直接上报
+            if (!fused) {
+                reporterThread = AgentExecutors.newSingleThreadExecutor("janusguard-reporter");
+                reporterThread.submit(new ReporterWorker());
+            }
             
             // 启动定时刷新
             flushScheduler.scheduleAtFixedRate(this::flushBuffer, 
                     flushInterval, flushInterval, TimeUnit.MILLISECONDS);
             
-            running.set(true);
-            logger.info("Data reporter started with mode: {}", reportingMode);
+            // 定时写出不再重复的指纹在到期窗口内的汇总
+            if (deduplicator != null) {
+                long window = deduplicator.getWindowMs();
+                flushScheduler.scheduleAtFixedRate(
+                        () -> buffer(deduplicator.expire(System.currentTimeMillis())),
+                        window, window, TimeUnit.MILLISECONDS);
+            }
+            
+            logger.info("Data reporter started with mode: {}, pipeline: {}, sink executor: {}", reportingMode,
+                    fused ? "fused" : "staged",
+                    virtual ? "virtual (max " + maxInFlightBatches + " queued batches)" : "platform");
         } catch (Exception e) {
             logger.error("Failed to start data reporter", e);
             throw new RuntimeException("Data reporter start failed", e);
@@ -125,9 +245,6 @@ public class DataReporter {
         running.set(false);
         
         try {
-            // 刷新剩余事件
-            flushBuffer();
-            
             // 关闭调度器
             if (flushScheduler != null) {
                 flushScheduler.shutdown();
@@ -154,8 +271,30 @@ public class DataReporter {
                 }
             }
             
-            // 关闭文件写入器
-            closeFileWriter();
+            // 写出所有未结束窗口的去重汇总，然后刷新剩余事件
+            if (deduplicator != null) {
+                buffer(deduplicator.expire(Long.MAX_VALUE));
+            }
+            flushBuffer();
+            
+            // 等待在途批次写完
+            if (sinkExecutor != null) {
+                sinkExecutor.shutdown();
+                try {
+                    if (!sinkExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                        logger.warn("Timed out waiting for in-flight sink writes");
+                        sinkExecutor.shutdownNow();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    sinkExecutor.shutdownNow();
+                }
+            }
+            
+            // 关闭输出端
+            if (eventSink != null) {
+                eventSink.close();
+            }
             
             logger.info("Data reporter stopped");
         } catch (Exception e) {
@@ -165,80 +304,221 @@ public class DataReporter {
     }
     
     /**
-     * 初始化文件写入器
+     * 按上报模式创建输出端
+     */
+    private EventSink createEventSink(String reportingMode) throws IOException {
+        if ("file".equals(reportingMode)) {
+            String logPath = config.getString("reporting.file.path", "./logs/janusguard-events.log");
+            return new FileEventSink(logPath, objectMapper);
+        } else if ("jfr".equals(reportingMode)) {
+            if (JfrEventRecorder.isSupported()) {
+                return new JfrEventSink();
+            }
+            logger.warn("JFR reporting requires JDK 11 or later, falling back to file reporting");
+            String logPath = config.getString("reporting.file.path", "./logs/janusguard-events.log");
+            return new FileEventSink(logPath, objectMapper);
+        } else if ("http".equals(reportingMode)) {
+            // 将来会实现HTTP上报
+            return new LoggingEventSink("HTTP");
+        } else if ("grpc".equals(reportingMode)) {
+            // 将来会实现gRPC上报
+            return new LoggingEventSink("gRPC");
+        }
+        logger.warn("Unknown reporting mode: {}, events will be logged only", reportingMode);
+        return new LoggingEventSink(reportingMode);
+    }
+    
+    /**
+     * 上报一批已处理事件
+     * 达到批处理大小或批次中包含快速通道事件时立即刷新，否则等待定时刷新；
+     * 启用去重时重复事件先由{@link EventDeduplicator}抑制，不进入缓冲区也不参与编码；
+     * 去重汇总直接进入缓冲区，不经过告警窗口
+     * 
+     * @param events 已处理事件批次
+     */
+    public void report(List<SecurityEvent> events) {
+        if (deduplicator != null) {
+            List<SecurityEvent> summaries = new ArrayList<>();
+            events = deduplicator.filter(events, summaries);
+            buffer(summaries);
+        }
+        enqueue(events);
+    }
+    
+    /**
+     * 把事件放入写出缓冲区，启用告警窗口时先经过{@link AlertWindowBuffer}过滤
+     */
+    private void enqueue(List<SecurityEvent> events) {
+        if (alertWindow != null && !events.isEmpty()) {
+            events = alertWindow.filter(events);
+        }
+        buffer(events);
+    }
+    
+    /**
+     * 把事件直接放入写出缓冲区，达到批处理大小或包含快速通道事件时立即刷新
      */
-    private void initFileWriter() throws IOException {
-        String logPath = config.getString("reporting.file.path", "./logs/janusguard-events.log");
+    private void buffer(List<SecurityEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
         
-        // 确保目录存在
-        Path logDir = Paths.get(logPath).getParent();
-        if (logDir != null) {
-            Files.createDirectories(logDir);
+        boolean flushNow = false;
+        synchronized (bufferLock) {
+            for (SecurityEvent event : events) {
+                eventBuffer.add(event);
+                flushNow |= isExpress(event);
+            }
+            flushNow |= eventBuffer.size() >= batchSize;
         }
         
-        // 创建文件写入器
-        fileWriter = new PrintWriter(new FileWriter(logPath, true));
-        logger.info("File writer initialized for path: {}", logPath);
+        if (flushNow) {
+            flushBuffer();
+        }
     }
     
     /**
-     * 关闭文件写入器
+     * 立即写出缓冲区中的事件，供管理接口调用
      */
-    private void closeFileWriter() {
-        if (fileWriter != null) {
-            try {
-                fileWriter.flush();
-                fileWriter.close();
-                logger.info("File writer closed");
-            } catch (Exception e) {
-                logger.error("Error closing file writer", e);
-            }
+    public void flush() {
+        if (running.get()) {
+            flushBuffer();
         }
     }
     
     /**
      * 刷新缓冲区中的事件
+     * 只在交换缓冲区时持锁；编码和写出在调用线程上进行，或在启用虚拟线程时排队交给写出执行器
      */
-    private synchronized void flushBuffer() {
-        if (eventBuffer.isEmpty()) {
+    private void flushBuffer() {
+        EventSink sink = eventSink;
+        ExecutorService executor = sinkExecutor;
+        if (executor != null) {
+            submitBatch(executor, sink);
             return;
         }
         
-        String reportingMode = config.getString("reporting.mode", "file");
-        
+        List<SecurityEvent> batch;
+        synchronized (bufferLock) {
+            if (eventBuffer.isEmpty() || sink == null) {
+                return;
+            }
+            batch = eventBuffer;
+            eventBuffer = new ArrayList<>(batchSize);
+        }
+        writeBatch(sink, batch);
+    }
+    
+    /**
+     * 把缓冲区作为一个批次排入写出队列，排队的批次已满时阻塞等待
+     * 入队与交换缓冲区在同一把锁内完成，批次按交换顺序写出；没有虚拟线程在写出时启动一个，
+     * 同一时刻只有一个批次写入输出端
+     */
+    private void submitBatch(ExecutorService executor, EventSink sink) {
+        Semaphore permits = inFlightBatches;
         try {
-            if ("file".equals(reportingMode)) {
-                // 将事件写入文件
-                for (SecurityEvent event : eventBuffer) {
-                    if (fileWriter != null) {
-                        fileWriter.println(objectMapper.writeValueAsString(event));
-                    }
-                }
-                
-                if (fileWriter != null) {
-                    fileWriter.flush();
-                }
-            } else if ("http".equals(reportingMode)) {
-                // 将来会实现HTTP上报
-                logger.info("HTTP reporting not implemented yet, events will be logged only");
-                for (SecurityEvent event : eventBuffer) {
-                    logger.info("Event for HTTP reporting: {}", event);
-                }
-            } else if ("grpc".equals(reportingMode)) {
-                // 将来会实现gRPC上报
-                logger.info("gRPC reporting not implemented yet, events will be logged only");
-                for (SecurityEvent event : eventBuffer) {
-                    logger.info("Event for gRPC reporting: {}", event);
+            permits.acquire();
+        } catch (InterruptedException e) {
+            // 事件留在缓冲区中，由下一次刷新写出
+            Thread.currentThread().interrupt();
+            return;
+        }
+        
+        boolean startDrain;
+        synchronized (bufferLock) {
+            if (eventBuffer.isEmpty() || sink == null) {
+                permits.release();
+                return;
+            }
+            pendingBatches.addLast(eventBuffer);
+            eventBuffer = new ArrayList<>(batchSize);
+            startDrain = !draining;
+            draining = true;
+        }
+        
+        if (startDrain) {
+            try {
+                executor.execute(() -> drainBatches(sink));
+            } catch (RejectedExecutionException e) {
+                // 执行器已关闭，在调用线程上写出
+                drainBatches(sink);
+            }
+        }
+    }
+    
+    /**
+     * 依次写出排队的批次，队列为空时结束
+     */
+    private void drainBatches(EventSink sink) {
+        while (true) {
+            List<SecurityEvent> batch;
+            synchronized (bufferLock) {
+                batch = pendingBatches.pollFirst();
+                if (batch == null) {
+                    draining = false;
+                    return;
                 }
             }
+            try {
+                writeBatch(sink, batch);
+            } finally {
+                inFlightBatches.release();
+            }
+        }
+    }
+    
+    /**
+     * 写出一个批次并记录上报指标
+     */
+    private void writeBatch(EventSink sink, List<SecurityEvent> batch) {
+        try {
+            long start = System.nanoTime();
+            sink.write(batch);
+            long elapsed = System.nanoTime() - start;
+            SINK_WRITE_NS.add(elapsed);
+            SINK_WRITE_LATENCY.record(elapsed);
+            updateMax(SINK_WRITE_NS_MAX, elapsed);
+            updateMax(BATCH_SIZE_MAX, batch.size());
+            
+            long now = System.currentTimeMillis();
+            long latency = 0;
+            for (SecurityEvent event : batch) {
+                latency += now - event.getTimestamp();
+            }
+            EVENTS_REPORTED.add(batch.size());
+            REPORT_LATENCY_MS.add(latency);
+            BATCHES_FLUSHED.increment();
+            CONSECUTIVE_FAILURES.set(0);
             
-            logger.debug("Flushed {} events", eventBuffer.size());
-            eventBuffer.clear();
+            logger.debug("Flushed {} events", batch.size());
         } catch (Exception e) {
+            BATCHES_FAILED.increment();
+            CONSECUTIVE_FAILURES.incrementAndGet();
+            EVENTS_FAILED.add(batch.size());
             logger.error("Error flushing event buffer", e);
         }
     }
     
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * 判断事件是否应走快速通道立即刷新
+     * 
+     * @param event 事件
+     * @return 如果应立即刷新则返回true
+     */
+    private boolean isExpress(SecurityEvent event) {
+        return expressSeverity != null && event.getSeverity() != null
+                && event.getSeverity().isAtLeast(expressSeverity);
+    }
+    
     /**
      * 上报工作线程
      */
@@ -247,22 +527,14 @@ public class DataReporter {
         public void run() {
             logger.info("Reporter worker thread started");
             
-            int batchSize = config.getInt("event-processing.batch-size", 100);
+            List<SecurityEvent> batch = new ArrayList<>(batchSize);
             
             while (running.get() || eventQueue.getProcessedQueueSize() > 0) {
                 try {
-                    // 从队列获取已处理事件
-                    SecurityEvent event = eventQueue.pollProcessed();
-                    
-                    if (event != null) {
-                        synchronized (DataReporter.this) {
-                            eventBuffer.add(event);
-                            
-                            // 达到批处理大小时刷新
-                            if (eventBuffer.size() >= batchSize) {
-                                flushBuffer();
-                            }
-                        }
+                    // 从队列批量获取已处理事件
+                    batch.clear();
+                    if (eventQueue.pollProcessed(batch, batchSize) > 0) {
+                        report(batch);
                     }
                 } catch (InterruptedException e) {
                     logger.info("Reporter worker thread interrupted");
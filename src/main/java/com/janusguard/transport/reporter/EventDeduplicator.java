@@ -0,0 +1,244 @@
+package com.janusguard.transport.reporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
+
+/**
+ * 重复事件去重
+ * 热循环中反复打开同一文件、反复调用同一反射方法会产生类型、类、方法、关键数据和调用堆栈都相同的事件。
+ * 按这些内容计算的指纹在一个时间窗口内只写出第一次出现的事件，其余只计数；
+ * 窗口结束时把最后一次出现的事件作为汇总写出，带有repeat_count（被抑制的次数，含该事件）
+ * 和repeat_of（窗口内第一个事件的ID）字段。
+ * 级别不同的事件指纹不同；达到指定级别的事件不参与去重，每次都写出，以免高危事件被计入汇总而延迟到窗口结束。
+ *
+ * 指纹表是固定容量的开放寻址表，每个指纹最多探测{@value #PROBES}个位置；
+ * 都被占用时淘汰其中窗口最早结束的条目，被淘汰条目的汇总提前写出
+ */
+public class EventDeduplicator {
+    
+    private static final LongAdder SUPPRESSED = AgentMetrics.counter("pipeline.dedup.suppressed");
+    private static final LongAdder SUMMARIES = AgentMetrics.counter("pipeline.dedup.summaries");
+    private static final LongAdder EVICTIONS = AgentMetrics.counter("pipeline.dedup.evictions");
+    
+    private static final int PROBES = 8;
+    
+    private final long windowMs;
+    
+    // 达到该级别的事件不参与去重
+    private final SecurityEventSeverity bypassSeverity;
+    
+    // 指纹表，指纹为0表示空闲
+    private final long[] fingerprints;
+    private final long[] windowEnds;
+    private final int[] repeats;
+    private final String[] firstIds;
+    private final SecurityEvent[] lastRepeats;
+    private int size;
+    
+    // 每次过滤结束时发布的条目数，供指标读取而不必持锁
+    private volatile int publishedSize;
+    
+    /**
+     * 构造函数
+     *
+     * @param config Agent配置
+     * @param bypassSeverity 不参与去重的最低级别，为null时所有事件都参与去重
+     */
+    public EventDeduplicator(AgentConfig config, SecurityEventSeverity bypassSeverity) {
+        this.bypassSeverity = bypassSeverity;
+        this.windowMs = Math.max(1, config.getInt("reporting.dedup.window-ms", 1000));
+        int maxKeys = Math.max(PROBES, config.getInt("reporting.dedup.max-keys", 4096));
+        int capacity = Integer.highestOneBit(maxKeys - 1) << 1;
+        this.fingerprints = new long[capacity];
+        this.windowEnds = new long[capacity];
+        this.repeats = new int[capacity];
+        this.firstIds = new String[capacity];
+        this.lastRepeats = new SecurityEvent[capacity];
+        AgentMetrics.gauge("pipeline.dedup.keys", this::getTrackedKeys);
+    }
+    
+    /**
+     * 获取去重窗口时长
+     *
+     * @return 窗口时长，单位毫秒
+     */
+    public long getWindowMs() {
+        return windowMs;
+    }
+    
+    /**
+     * 获取当前跟踪的指纹数
+     *
+     * @return 指纹数
+     */
+    public long getTrackedKeys() {
+        return publishedSize;
+    }
+    
+    /**
+     * 过滤一批已处理事件
+     * 窗口内的重复事件被抑制；同一指纹在窗口结束后再次出现或条目被淘汰时，上一窗口的汇总放入summaries
+     *
+     * @param events 已处理事件
+     * @param summaries 接收本次产生的汇总事件
+     * @return 需要写出的事件
+     */
+    public synchronized List<SecurityEvent> filter(List<SecurityEvent> events, List<SecurityEvent> summaries) {
+        List<SecurityEvent> output = new ArrayList<>(events.size());
+        for (SecurityEvent event : events) {
+            if (bypasses(event)) {
+                output.add(event);
+                continue;
+            }
+            long fingerprint = fingerprint(event);
+            int slot = find(fingerprint);
+            if (slot >= 0 && event.getTimestamp() < windowEnds[slot]) {
+                repeats[slot]++;
+                lastRepeats[slot] = event;
+                SUPPRESSED.increment();
+                continue;
+            }
+            if (slot >= 0) {
+                summarize(slot, summaries);
+            } else {
+                slot = claim(fingerprint, summaries);
+            }
+            windowEnds[slot] = event.getTimestamp() + windowMs;
+            firstIds[slot] = event.getId();
+            output.add(event);
+        }
+        publishedSize = size;
+        return output;
+    }
+    
+    /**
+     * 结束已到期的窗口并释放其条目
+     *
+     * @param now 当前时间，传入{@link Long#MAX_VALUE}时结束所有窗口
+     * @return 到期窗口的汇总事件，没有时为空列表
+     */
+    public synchronized List<SecurityEvent> expire(long now) {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<SecurityEvent> output = new ArrayList<>();
+        for (int slot = 0; slot < fingerprints.length; slot++) {
+            if (fingerprints[slot] != 0 && windowEnds[slot] <= now) {
+                summarize(slot, output);
+                release(slot);
+            }
+        }
+        publishedSize = size;
+        return output;
+    }
+    
+    private boolean bypasses(SecurityEvent event) {
+        return bypassSeverity != null && event.getSeverity() != null
+                && event.getSeverity().isAtLeast(bypassSeverity);
+    }
+    
+    private int find(long fingerprint) {
+        int mask = fingerprints.length - 1;
+        int start = (int) fingerprint & mask;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (fingerprints[slot] == fingerprint) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 为新指纹占用位置，探测范围内没有空闲位置时淘汰窗口最早结束的条目
+     */
+    private int claim(long fingerprint, List<SecurityEvent> output) {
+        int mask = fingerprints.length - 1;
+        int start = (int) fingerprint & mask;
+        int victim = start;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (fingerprints[slot] == 0) {
+                victim = slot;
+                break;
+            }
+            if (windowEnds[slot] < windowEnds[victim]) {
+                victim = slot;
+            }
+        }
+        if (fingerprints[victim] != 0) {
+            EVICTIONS.increment();
+            summarize(victim, output);
+            release(victim);
+        }
+        fingerprints[victim] = fingerprint;
+        size++;
+        return victim;
+    }
+    
+    private void summarize(int slot, List<SecurityEvent> output) {
+        SecurityEvent last = lastRepeats[slot];
+        if (last != null) {
+            last.addData(AgentConstants.EventFields.REPEAT_COUNT, repeats[slot]);
+            last.addData(AgentConstants.EventFields.REPEAT_OF, firstIds[slot]);
+            output.add(last);
+            SUMMARIES.increment();
+        }
+        repeats[slot] = 0;
+        lastRepeats[slot] = null;
+    }
+    
+    private void release(int slot) {
+        fingerprints[slot] = 0;
+        firstIds[slot] = null;
+        size--;
+    }
+    
+    /**
+     * 计算事件指纹：类型、级别、类名、方法名、调用堆栈以及非数值数据的哈希
+     * 数值数据多为耗时等每次都不同的度量，不参与指纹；数据条目的哈希按加法合并，与遍历顺序无关
+     */
+    static long fingerprint(SecurityEvent event) {
+        long hash = mix(event.getType() == null ? 0 : event.getType().ordinal() + 1);
+        hash = mix(hash ^ (event.getSeverity() == null ? 0 : event.getSeverity().ordinal() + 1));
+        hash = mix(hash ^ hashOf(event.getClassName()));
+        hash = mix(hash ^ hashOf(event.getMethodName()));
+        hash = mix(hash ^ hashOf(event.getCallStackTrace()));
+        
+        long dataHash = 0;
+        for (Map.Entry<String, Object> entry : event.getData().entrySet()) {
+            Object value = entry.getValue();
+            if (!(value instanceof Number)) {
+                dataHash += mix(((long) entry.getKey().hashCode() << 32) ^ hashOf(value));
+            }
+        }
+        hash = mix(hash ^ dataHash);
+        return hash == 0 ? 1 : hash;
+    }
+    
+    private static long hashOf(Object value) {
+        return value == null ? 0 : value.hashCode() & 0xFFFFFFFFL;
+    }
+    
+    /**
+     * 64位混合函数（MurmurHash3的fmix64）
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
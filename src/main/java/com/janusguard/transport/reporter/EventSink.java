@@ -0,0 +1,38 @@
+package com.janusguard.transport.reporter;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.janusguard.core.event.SecurityEvent;
+
+/**
+ * 事件输出端接口
+ * 由{@link DataReporter}按批次调用。platform写出方式下多个线程可能同时调用write，实现需保证线程安全；
+ * virtual写出方式下同一输出端同一时刻只有一个批次在写出
+ */
+public interface EventSink {
+    
+    /**
+     * 写出一批事件
+     * 
+     * @param events 事件批次
+     * @throws IOException 如果写出失败
+     */
+    void write(List<SecurityEvent> events) throws IOException;
+    
+    /**
+     * 是否可以在虚拟线程上写出
+     * 只有写出时不在synchronized块中阻塞、也不做文件I/O的输出端才应返回true，
+     * 否则写出会占住载体线程，虚拟线程反而不如平台线程
+     * 
+     * @return 默认返回false，批次在平台线程上写出
+     */
+    default boolean supportsVirtualThreads() {
+        return false;
+    }
+    
+    /**
+     * 关闭输出端并释放资源
+     */
+    void close();
+}
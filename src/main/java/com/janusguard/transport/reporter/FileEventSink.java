@@ -0,0 +1,85 @@
+package com.janusguard.transport.reporter;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janusguard.common.metrics.AgentMetrics;
+import com.janusguard.core.event.SecurityEvent;
+
+/**
+ * 文件输出端
+ * 每个事件编码为一行UTF-8 JSON追加到日志文件。编码在调用线程上完成，只有写文件时持有锁
+ */
+public class FileEventSink implements EventSink {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FileEventSink.class);
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    
+    private static final LongAdder BYTES_WRITTEN = AgentMetrics.counter("pipeline.sink.bytes-written");
+    
+    private final ObjectMapper objectMapper;
+    private final OutputStream fileOutput;
+    
+    /**
+     * 构造函数
+     * 
+     * @param logPath 日志文件路径
+     * @param objectMapper JSON编码器
+     * @throws IOException 如果无法创建文件
+     */
+    public FileEventSink(String logPath, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        
+        // 确保目录存在
+        Path logDir = Paths.get(logPath).getParent();
+        if (logDir != null) {
+            Files.createDirectories(logDir);
+        }
+        
+        // 创建文件输出流
+        this.fileOutput = new BufferedOutputStream(new FileOutputStream(logPath, true));
+        logger.info("File writer initialized for path: {}", logPath);
+    }
+    
+    @Override
+    public void write(List<SecurityEvent> events) throws IOException {
+        // 先在锁外完成编码
+        StringBuilder encoded = new StringBuilder(events.size() * 512);
+        for (SecurityEvent event : events) {
+            encoded.append(objectMapper.writeValueAsString(event)).append(LINE_SEPARATOR);
+        }
+        
+        byte[] bytes = encoded.toString().getBytes(StandardCharsets.UTF_8);
+        
+        synchronized (fileOutput) {
+            fileOutput.write(bytes);
+            fileOutput.flush();
+        }
+        BYTES_WRITTEN.add(bytes.length);
+    }
+    
+    @Override
+    public void close() {
+        try {
+            synchronized (fileOutput) {
+                fileOutput.flush();
+                fileOutput.close();
+            }
+            logger.info("File writer closed");
+        } catch (Exception e) {
+            logger.error("Error closing file writer", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.janusguard.transport.reporter;
+
+import com.janusguard.core.event.SecurityEvent;
+
+/**
+ * JFR事件写入
+ * 把已评估的安全事件作为自定义JFR事件提交，由{@link JfrEventSink}在上报线程上调用。
+ * JDK 8基线没有可用的jdk.jfr API，本实现不做任何事情；
+ * 多版本jar中META-INF/versions/11下的同名类提供实际实现
+ */
+public final class JfrEventRecorder {
+    
+    // 禁止实例化
+    private JfrEventRecorder() {
+    }
+    
+    /**
+     * 当前运行时是否支持写入JFR事件
+     * 
+     * @return 是否支持
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+    
+    /**
+     * 提交一个JFR事件，未在录制或事件类型被禁用时直接返回
+     * 
+     * @param event 安全事件
+     */
+    public static void record(SecurityEvent event) {
+        // JDK 8上不支持
+    }
+}
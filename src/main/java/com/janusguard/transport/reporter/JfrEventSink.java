@@ -0,0 +1,24 @@
+package com.janusguard.transport.reporter;
+
+import java.util.List;
+
+import com.janusguard.core.event.SecurityEvent;
+
+/**
+ * JFR输出端
+ * 事件与其他输出端一样经过规则评估、关联、去重和告警窗口之后到达这里，逐个写入JFR
+ */
+public class JfrEventSink implements EventSink {
+    
+    @Override
+    public void write(List<SecurityEvent> events) {
+        for (SecurityEvent event : events) {
+            JfrEventRecorder.record(event);
+        }
+    }
+    
+    @Override
+    public void close() {
+        // 事件由JFR自身持久化，无需释放资源
+    }
+}
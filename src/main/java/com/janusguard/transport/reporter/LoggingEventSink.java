@@ -0,0 +1,41 @@
+package com.janusguard.transport.reporter;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.janusguard.core.event.SecurityEvent;
+
+/**
+ * 日志输出端
+ * 尚未实现的上报模式（http、grpc）暂时只将事件记录到日志
+ */
+public class LoggingEventSink implements EventSink {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoggingEventSink.class);
+    
+    private final String mode;
+    
+    /**
+     * 构造函数
+     * 
+     * @param mode 上报模式名称
+     */
+    public LoggingEventSink(String mode) {
+        this.mode = mode;
+    }
+    
+    @Override
+    public void write(List<SecurityEvent> events) {
+        logger.info("{} reporting not implemented yet, events will be logged only", mode);
+        for (SecurityEvent event : events) {
+            logger.info("Event for {} reporting: {}", mode, event);
+        }
+    }
+    
+    @Override
+    public void close() {
+        // 无需释放资源
+    }
+}
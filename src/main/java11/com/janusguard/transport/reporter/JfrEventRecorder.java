@@ -0,0 +1,153 @@
+package com.janusguard.transport.reporter;
+
+import java.util.Map;
+
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+/**
+ * JFR事件写入（JDK 11及以上）
+ * 每个已评估的安全事件提交为一个com.janusguard.SecurityEvent类型的JFR事件，字段按类型展开。
+ * 提交发生在上报线程上，JFR自身记录的线程和堆栈没有意义，因此不记录；
+ * 探针线程、事件产生时间和探针采集的调用堆栈作为字段写入，规则评估和关联的结果同样写入
+ */
+public final class JfrEventRecorder {
+    
+    // 禁止实例化
+    private JfrEventRecorder() {
+    }
+    
+    /**
+     * 当前运行时是否支持写入JFR事件
+     * 
+     * @return 是否支持
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+    
+    /**
+     * 提交一个JFR事件，未在录制或事件类型被禁用时直接返回
+     * 
+     * @param event 安全事件
+     */
+    public static void record(SecurityEvent event) {
+        SecurityJfrEvent jfrEvent = new SecurityJfrEvent();
+        if (!jfrEvent.shouldCommit()) {
+            return;
+        }
+        
+        SecurityEventSeverity severity = event.getSeverity();
+        Map<String, Object> data = event.getData();
+        jfrEvent.eventId = event.getId();
+        jfrEvent.eventTime = event.getTimestamp();
+        jfrEvent.threadName = event.getThreadName();
+        jfrEvent.type = event.getType() != null ? event.getType().name() : null;
+        jfrEvent.severity = severity != null ? severity.name() : null;
+        jfrEvent.className = event.getClassName();
+        jfrEvent.methodName = event.getMethodName();
+        jfrEvent.target = target(data);
+        jfrEvent.path = string(data, AgentConstants.EventFields.FILE_PATH, "libraryPath");
+        jfrEvent.command = string(data, AgentConstants.EventFields.COMMAND);
+        jfrEvent.success = Boolean.TRUE.equals(data.get("success"));
+        jfrEvent.executionTime = number(data, AgentConstants.EventFields.EXECUTION_TIME_NS);
+        jfrEvent.probeOverhead = number(data, AgentConstants.EventFields.PROBE_OVERHEAD_NS);
+        jfrEvent.reason = string(data, AgentConstants.MemoryTrojanDetection.REASON);
+        jfrEvent.correlationPattern = string(data, AgentConstants.EventFields.CORRELATION_PATTERN);
+        jfrEvent.callStack = event.getCallStackTrace();
+        jfrEvent.commit();
+    }
+    
+    private static String target(Map<String, Object> data) {
+        String targetClass = string(data, AgentConstants.EventFields.TARGET_CLASS);
+        if (targetClass != null) {
+            String targetMethod = string(data, AgentConstants.EventFields.TARGET_METHOD);
+            return targetMethod != null ? targetClass + "." + targetMethod : targetClass;
+        }
+        return string(data, "loadedClassName", "proxyClass", AgentConstants.EventFields.UNSAFE_METHOD);
+    }
+    
+    private static String string(Map<String, Object> data, String... keys) {
+        for (String key : keys) {
+            Object value = data.get(key);
+            if (value != null) {
+                return value.toString();
+            }
+        }
+        return null;
+    }
+    
+    private static long number(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+    
+    @Name("com.janusguard.SecurityEvent")
+    @Label("Security Event")
+    @Description("Security-sensitive operation intercepted by JanusGuard")
+    @Category("JanusGuard")
+    @StackTrace(false)
+    static final class SecurityJfrEvent extends Event {
+        
+        @Label("Event ID")
+        String eventId;
+        
+        @Label("Event Time")
+        @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+        long eventTime;
+        
+        @Label("Probe Thread")
+        String threadName;
+        
+        @Label("Type")
+        String type;
+        
+        @Label("Severity")
+        String severity;
+        
+        @Label("Class")
+        String className;
+        
+        @Label("Method")
+        String methodName;
+        
+        @Label("Target")
+        String target;
+        
+        @Label("Path")
+        String path;
+        
+        @Label("Command")
+        String command;
+        
+        @Label("Success")
+        boolean success;
+        
+        @Label("Execution Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long executionTime;
+        
+        @Label("Probe Overhead")
+        @Timespan(Timespan.NANOSECONDS)
+        long probeOverhead;
+        
+        @Label("Detection Reason")
+        String reason;
+        
+        @Label("Correlation Pattern")
+        String correlationPattern;
+        
+        @Label("Call Stack")
+        String callStack;
+    }
+}
@@ -0,0 +1,37 @@
+package com.janusguard.common.platform;
+
+/**
+ * 虚拟线程信息（JDK 21及以上）
+ */
+public final class VirtualThreads {
+    
+    // 禁止实例化
+    private VirtualThreads() {
+    }
+    
+    /**
+     * 判断线程是否为虚拟线程
+     * 
+     * @param thread 线程
+     * @return 是否为虚拟线程
+     */
+    public static boolean isVirtual(Thread thread) {
+        return thread.isVirtual();
+    }
+    
+    /**
+     * 获取当前线程所挂载的载体线程名
+     * 没有公开API获取载体线程，已挂载的虚拟线程的toString()以"@载体线程名"结尾
+     * 
+     * @return 载体线程名，当前线程不是虚拟线程时返回null
+     */
+    public static String currentCarrierName() {
+        Thread thread = Thread.currentThread();
+        if (!thread.isVirtual()) {
+            return null;
+        }
+        String description = thread.toString();
+        int at = description.lastIndexOf('@');
+        return at >= 0 ? description.substring(at + 1) : null;
+    }
+}
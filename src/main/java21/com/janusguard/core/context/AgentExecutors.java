@@ -0,0 +1,67 @@
+package com.janusguard.core.context;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Agent执行器工厂（JDK 21及以上）
+ * 虚拟线程不能继承{@link AgentThread}，因此在任务执行期间进入{@link ProbeGuard}，
+ * 使其中的I/O同样不会触发探针
+ */
+public final class AgentExecutors {
+    
+    // 禁止实例化
+    private AgentExecutors() {
+    }
+    
+    /**
+     * 当前JDK是否支持虚拟线程
+     * 
+     * @return 是否支持
+     */
+    public static boolean supportsVirtualThreads() {
+        return true;
+    }
+    
+    /**
+     * 创建单线程执行器，线程为{@link AgentThread}
+     * 
+     * @param name 线程名
+     * @return 执行器
+     */
+    public static ExecutorService newSingleThreadExecutor(String name) {
+        return Executors.newSingleThreadExecutor(new AgentThreadFactory(name));
+    }
+    
+    /**
+     * 创建单线程定时执行器，线程为{@link AgentThread}
+     * 
+     * @param name 线程名
+     * @return 执行器
+     */
+    public static ScheduledExecutorService newSingleThreadScheduledExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(new AgentThreadFactory(name));
+    }
+    
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     * 
+     * @param name 线程名前缀
+     * @return 执行器
+     */
+    public static ExecutorService newVirtualThreadExecutor(String name) {
+        ThreadFactory virtualThreads = Thread.ofVirtual().name(name + "-", 0).factory();
+        return Executors.newThreadPerTaskExecutor(task -> virtualThreads.newThread(() -> {
+            boolean guarded = ProbeGuard.enter();
+            try {
+                task.run();
+            } finally {
+                if (guarded) {
+                    ProbeGuard.exit();
+                }
+            }
+        }));
+    }
+}
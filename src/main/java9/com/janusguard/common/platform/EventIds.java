@@ -0,0 +1,27 @@
+package com.janusguard.common.platform;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 事件ID生成（JDK 9及以上）
+ * UUID.toString()在JDK 9及以上由JDK内部的快速实现完成格式化
+ */
+public final class EventIds {
+    
+    // 禁止实例化
+    private EventIds() {
+    }
+    
+    /**
+     * 生成新的事件ID
+     * 
+     * @return 形如xxxxxxxx-xxxx-4xxx-yxxx-xxxxxxxxxxxx的ID
+     */
+    public static String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+}
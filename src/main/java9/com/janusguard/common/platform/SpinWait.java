@@ -0,0 +1,18 @@
+package com.janusguard.common.platform;
+
+/**
+ * 自旋等待提示（JDK 9及以上）
+ */
+public final class SpinWait {
+    
+    // 禁止实例化
+    private SpinWait() {
+    }
+    
+    /**
+     * 在忙等待循环的每次迭代中调用
+     */
+    public static void onSpinWait() {
+        Thread.onSpinWait();
+    }
+}
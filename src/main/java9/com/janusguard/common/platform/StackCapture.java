@@ -0,0 +1,30 @@
+package com.janusguard.common.platform;
+
+/**
+ * 栈帧采集（JDK 9及以上）
+ * 使用StackWalker按需遍历，只为保留的栈帧创建StackTraceElement
+ */
+public final class StackCapture {
+    
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    
+    // 禁止实例化
+    private StackCapture() {
+    }
+    
+    /**
+     * 采集当前线程的栈帧
+     * 
+     * @param skipDepth 从调用方开始要跳过的栈帧数，0表示从调用方开始
+     * @param maxDepth 最多采集的栈帧数
+     * @return 栈帧
+     */
+    public static StackTraceElement[] capture(int skipDepth, int maxDepth) {
+        // 第一帧为本方法
+        return WALKER.walk(frames -> frames
+                .skip(skipDepth + 1L)
+                .limit(maxDepth)
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .toArray(StackTraceElement[]::new));
+    }
+}
@@ -0,0 +1,110 @@
+package com.janusguard.transport.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 单生产者单消费者环形缓冲区（JDK 9及以上）
+ * 与基础实现共用带填充的读写位置字段，改用VarHandle以plain/acquire/release语义访问，
+ * 生产者读取自己的写入位置时不再需要volatile读
+ *
+ * @param <E> 元素类型
+ */
+public class SpscRingBuffer<E> extends SpscRingBufferFields {
+
+    private static final VarHandle TAIL;
+    private static final VarHandle HEAD;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(SpscRingBufferTail.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(SpscRingBufferFields.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] buffer;
+    private final int mask;
+
+    /**
+     * 构造函数
+     *
+     * @param capacity 容量，会向上取整为2的幂
+     */
+    public SpscRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 写入元素，只能由所属生产者线程调用
+     *
+     * @param element 元素
+     * @return 是否写入成功，缓冲区满时返回false
+     */
+    public boolean offer(E element) {
+        // tail只由生产者修改，普通读取即可
+        long currentTail = (long) TAIL.get(this);
+        if (currentTail - headCache >= buffer.length) {
+            headCache = (long) HEAD.getAcquire(this);
+            if (currentTail - headCache >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) currentTail & mask] = element;
+        TAIL.setRelease(this, currentTail + 1);
+        return true;
+    }
+
+    /**
+     * 读取元素，同一时刻只能有一个消费者调用
+     *
+     * @return 元素，缓冲区为空时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = (long) HEAD.getAcquire(this);
+        if (currentHead >= (long) TAIL.getAcquire(this)) {
+            return null;
+        }
+        int index = (int) currentHead & mask;
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        HEAD.setRelease(this, currentHead + 1);
+        return element;
+    }
+
+    /**
+     * 获取当前元素数量（近似值）
+     *
+     * @return 元素数量
+     */
+    public int size() {
+        long size = (long) TAIL.getAcquire(this) - (long) HEAD.getAcquire(this);
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    /**
+     * 判断是否为空（近似值）
+     *
+     * @return 为空时返回true
+     */
+    public boolean isEmpty() {
+        return (long) HEAD.getAcquire(this) >= (long) TAIL.getAcquire(this);
+    }
+
+    /**
+     * 获取容量
+     *
+     * @return 容量
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+}
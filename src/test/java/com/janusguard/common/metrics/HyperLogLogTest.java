@@ -0,0 +1,53 @@
+package com.janusguard.common.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * HyperLogLog基数估计测试
+ */
+class HyperLogLogTest {
+    
+    @Test
+    void smallCardinalityIsNearlyExact() {
+        HyperLogLog hll = new HyperLogLog(12);
+        for (int i = 0; i < 100; i++) {
+            hll.offer("value-" + i);
+            hll.offer("value-" + i);
+        }
+        assertEquals(100, hll.estimate(), 2);
+    }
+    
+    @Test
+    void largeCardinalityIsWithinStandardError() {
+        HyperLogLog hll = new HyperLogLog(12);
+        int distinct = 200000;
+        for (int i = 0; i < distinct; i++) {
+            hll.offer("value-" + i);
+        }
+        // 标准误差约1.6%，取三倍
+        assertEquals(distinct, hll.estimate(), distinct * 0.05);
+    }
+    
+    @Test
+    void mergeEstimatesUnion() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (int i = 0; i < 60000; i++) {
+            first.offer("value-" + i);
+        }
+        for (int i = 40000; i < 100000; i++) {
+            second.offer("value-" + i);
+        }
+        
+        first.merge(second);
+        assertEquals(100000, first.estimate(), 100000 * 0.05);
+    }
+    
+    @Test
+    void mergeRejectsDifferentPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+}
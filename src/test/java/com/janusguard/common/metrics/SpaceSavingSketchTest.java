@@ -0,0 +1,100 @@
+package com.janusguard.common.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Space-Saving高频项草图测试
+ */
+class SpaceSavingSketchTest {
+    
+    @Test
+    void countsAreExactBelowCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+        offer(sketch, "a", 3);
+        offer(sketch, "b", 2);
+        offer(sketch, "c", 1);
+        
+        List<SpaceSavingSketch.Item> top = sketch.top(2);
+        assertEquals(2, top.size());
+        assertItem(top.get(0), "a", 3, 0);
+        assertItem(top.get(1), "b", 2, 0);
+        assertEquals(6, sketch.getTotal());
+    }
+    
+    @Test
+    void mergeAddsMinimumCountForUntrackedKeys() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        offer(sketch, "a", 5);
+        offer(sketch, "b", 1);
+        SpaceSavingSketch other = new SpaceSavingSketch(2);
+        offer(other, "c", 4);
+        offer(other, "d", 3);
+        
+        // a在对方最多出现3次，c在本方最多出现1次
+        sketch.merge(other);
+        List<SpaceSavingSketch.Item> top = sketch.top(2);
+        assertItem(top.get(0), "a", 8, 3);
+        assertItem(top.get(1), "c", 5, 1);
+        assertEquals(13, sketch.getTotal());
+    }
+    
+    @Test
+    void mergedSketchBoundsTrueCounts() {
+        int capacity = 32;
+        Map<String, Long> exact = new HashMap<>();
+        SpaceSavingSketch merged = new SpaceSavingSketch(capacity);
+        Random random = new Random(42);
+        for (int part = 0; part < 4; part++) {
+            SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+            for (int i = 0; i < 20000; i++) {
+                // 每个分片的分布不同，少数值在所有分片中都很频繁
+                String key = random.nextInt(4) == 0 ? "hot" + random.nextInt(4)
+                        : "k" + (int) Math.abs(random.nextGaussian() * 50) + "-" + part % 2;
+                sketch.offer(key);
+                exact.merge(key, 1L, Long::sum);
+            }
+            merged.merge(sketch);
+        }
+        
+        long total = 0;
+        for (long count : exact.values()) {
+            total += count;
+        }
+        assertEquals(total, merged.getTotal());
+        
+        Set<String> tracked = new HashSet<>();
+        for (SpaceSavingSketch.Item item : merged.top(capacity)) {
+            long trueCount = exact.get(item.getKey());
+            assertTrue(item.getCount() >= trueCount, item.getKey() + " underestimated");
+            assertTrue(item.getCount() - item.getError() <= trueCount, item.getKey() + " error too small");
+            tracked.add(item.getKey());
+        }
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            if (entry.getValue() > total / capacity) {
+                assertTrue(tracked.contains(entry.getKey()), entry.getKey() + " is frequent but not tracked");
+            }
+        }
+    }
+    
+    private static void offer(SpaceSavingSketch sketch, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.offer(key);
+        }
+    }
+    
+    private static void assertItem(SpaceSavingSketch.Item item, String key, long count, long error) {
+        assertEquals(key, item.getKey());
+        assertEquals(count, item.getCount());
+        assertEquals(error, item.getError());
+    }
+}
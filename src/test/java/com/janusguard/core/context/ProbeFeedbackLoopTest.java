@@ -0,0 +1,208 @@
+package com.janusguard.core.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.core.event.EventDispatcher;
+import com.janusguard.core.event.EventProcessor;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
+import com.janusguard.core.event.SecurityEventType;
+import com.janusguard.transformer.BootstrapBridge;
+import com.janusguard.transformer.ClassTransformer;
+import com.janusguard.transport.queue.EventQueue;
+import com.janusguard.transport.reporter.DataReporter;
+
+import net.bytebuddy.agent.ByteBuddyAgent;
+
+/**
+ * 探针反馈循环回归测试
+ * 植入全部探针后让文件、日志输出端和DataReporter在多个Agent线程上持续写出事件，
+ * 期间分发的事件不应来自Agent自有线程，探针逻辑内部产生的I/O也不应再次分发事件
+ */
+class ProbeFeedbackLoopTest {
+    
+    private static final int REPORTER_THREADS = 4;
+    private static final int BATCHES_PER_THREAD = 200;
+    private static final int BATCH_SIZE = 50;
+    
+    private static Instrumentation instrumentation;
+    private static ClassTransformer transformer;
+    
+    @TempDir
+    Path tempDir;
+    
+    // 每次分发事件时的线程
+    private final List<Thread> dispatchThreads = new CopyOnWriteArrayList<>();
+    
+    // 在一次分发之中又触发的分发次数
+    private final AtomicInteger nestedDispatches = new AtomicInteger();
+    private final ThreadLocal<boolean[]> inDispatch = ThreadLocal.withInitial(() -> new boolean[1]);
+    
+    @BeforeAll
+    static void installProbes() {
+        instrumentation = ByteBuddyAgent.install();
+        assertTrue(BootstrapBridge.install(instrumentation), "Probe dispatcher should be installed");
+        
+        AgentConfig config = new AgentConfig();
+        config.initialize(null);
+        transformer = new ClassTransformer(config, instrumentation);
+        instrumentation.addTransformer(transformer, true);
+        assertTrue(transformer.retransformLoadedTargets() > 0, "Loaded target classes should be instrumented");
+    }
+    
+    @AfterAll
+    static void removeProbes() {
+        EventDispatcher.detach();
+        if (transformer != null) {
+            // 移除转换器后重新转换，目标类恢复为原始字节码
+            instrumentation.removeTransformer(transformer);
+            transformer.retransformLoadedTargets();
+        }
+    }
+    
+    @BeforeEach
+    void attachRecorder() {
+        EventProcessor recorder = mock(EventProcessor.class);
+        doAnswer(invocation -> {
+            boolean[] nested = inDispatch.get();
+            if (nested[0]) {
+                nestedDispatches.incrementAndGet();
+            }
+            dispatchThreads.add(Thread.currentThread());
+            
+            // 与真实处理器一样在分发过程中产生I/O，被探针拦截后不应再次分发
+            nested[0] = true;
+            try (FileOutputStream out = new FileOutputStream(tempDir.resolve("dispatch.tmp").toFile())) {
+                out.write(1);
+            } finally {
+                nested[0] = false;
+            }
+            return null;
+        }).when(recorder).processEvent(any(SecurityEvent.class));
+        EventDispatcher.attach(recorder);
+    }
+    
+    @Test
+    void fileSinkProducesNoEvents() throws Exception {
+        Path log = tempDir.resolve("events.log");
+        runUnderLoad("reporting.mode=file,reporting.file.path=" + log + ",event-processing.pipeline=fused");
+        assertTrue(Files.size(log) > 0, "File sink should have written events");
+    }
+    
+    @Test
+    void loggingSinkProducesNoEvents() throws Exception {
+        runUnderLoad("reporting.mode=http,event-processing.pipeline=fused");
+    }
+    
+    @Test
+    void stagedReporterProducesNoEvents() throws Exception {
+        Path log = tempDir.resolve("staged.log");
+        runUnderLoad("reporting.mode=file,reporting.file.path=" + log + ",event-processing.pipeline=staged");
+        assertTrue(Files.size(log) > 0, "Reporter thread should have written events");
+    }
+    
+    /**
+     * 按配置启动上报器，由多个Agent线程像处理线程一样上报事件，结束后检查分发记录
+     */
+    private void runUnderLoad(String agentArgs) throws Exception {
+        AgentConfig config = new AgentConfig();
+        EventQueue eventQueue;
+        DataReporter reporter;
+        
+        // 与AgentManager一样，应用线程上的启动过程在保护范围内进行
+        boolean guarded = ProbeGuard.enter();
+        try {
+            config.initialize(agentArgs);
+            eventQueue = new EventQueue(config.getInt("event-processing.queue-size", 10000));
+            eventQueue.initialize();
+            reporter = new DataReporter(config, eventQueue);
+            reporter.start();
+        } finally {
+            if (guarded) {
+                ProbeGuard.exit();
+            }
+        }
+        
+        boolean fused = DataReporter.isFusedPipeline(config);
+        AgentThreadFactory threadFactory = new AgentThreadFactory("janusguard-test-worker", true);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < REPORTER_THREADS; i++) {
+            Thread worker = threadFactory.newThread(() -> {
+                for (int batch = 0; batch < BATCHES_PER_THREAD; batch++) {
+                    List<SecurityEvent> events = newBatch();
+                    if (fused) {
+                        reporter.report(events);
+                    } else {
+                        eventQueue.offerProcessed(events);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        guarded = ProbeGuard.enter();
+        try {
+            reporter.stop();
+            eventQueue.shutdown();
+        } finally {
+            if (guarded) {
+                ProbeGuard.exit();
+            }
+        }
+        
+        // 应用线程上的文件操作仍然产生事件，说明探针在整个过程中确实生效
+        writeApplicationFile();
+        assertTrue(dispatchThreads.contains(Thread.currentThread()),
+                "File operation on the application thread should be reported");
+        
+        for (Thread thread : dispatchThreads) {
+            assertFalse(thread instanceof AgentThread, "Event dispatched from agent thread " + thread.getName());
+        }
+        assertEquals(0, nestedDispatches.get(), "Probe logic should not dispatch nested events");
+    }
+    
+    private List<SecurityEvent> newBatch() {
+        List<SecurityEvent> events = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            SecurityEvent event = new SecurityEvent(SecurityEventType.FILE_OPERATION,
+                    "java.io.FileOutputStream", "write");
+            event.setSeverity(i % 10 == 0 ? SecurityEventSeverity.HIGH : SecurityEventSeverity.LOW);
+            event.addData(AgentConstants.EventFields.FILE_PATH, "/tmp/load-" + i);
+            events.add(event);
+        }
+        return events;
+    }
+    
+    private void writeApplicationFile() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(tempDir.resolve("application.txt").toFile())) {
+            out.write(1);
+        }
+    }
+}
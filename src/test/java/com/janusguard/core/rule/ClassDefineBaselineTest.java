@@ -0,0 +1,133 @@
+package com.janusguard.core.rule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.janusguard.agent.AgentConfig;
+
+/**
+ * defineClass基线测试
+ */
+class ClassDefineBaselineTest {
+    
+    private static final StackTraceElement[] CALL_STACK = {
+            new StackTraceElement("java.lang.ClassLoader", "defineClass", "ClassLoader.java", 1),
+            new StackTraceElement("com.example.Framework", "generate", "Framework.java", 42)
+    };
+    
+    private static final StackTraceElement[] OTHER_CALL_STACK = {
+            new StackTraceElement("java.lang.ClassLoader", "defineClass", "ClassLoader.java", 1),
+            new StackTraceElement("com.example.Upload", "handle", "Upload.java", 7)
+    };
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void randomSuffixesAreNormalized() {
+        assertEquals("Foo$$EnhancerBySpringCGLIB$$#",
+                ClassDefineBaseline.nameShape("Foo$$EnhancerBySpringCGLIB$$1a2b3c4d"));
+        assertEquals("jdk.proxy#.$Proxy#", ClassDefineBaseline.nameShape("jdk.proxy2.$Proxy15"));
+        assertEquals("Lambda$#/#", ClassDefineBaseline.nameShape("Lambda$14/0x0000000800c01234"));
+    }
+    
+    @Test
+    void nestedClassNamesAreKept() {
+        // 只有字母的8位内部类名不是随机后缀
+        assertEquals("com.example.Outer$Listener", ClassDefineBaseline.nameShape("com.example.Outer$Listener"));
+        assertEquals("com.example.Outer$Handlers", ClassDefineBaseline.nameShape("com.example.Outer$Handlers"));
+    }
+    
+    @Test
+    void concurrentLearningKeepsEveryTuple() throws Exception {
+        ClassDefineBaseline baseline = new ClassDefineBaseline(newConfig());
+        
+        int threads = 8;
+        int perThread = 256;
+        List<Thread> learners = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            Thread learner = new Thread(() -> {
+                // 每个三元组都被两次学习，重复的不计入
+                for (int round = 0; round < 2; round++) {
+                    for (int i = 0; i < perThread; i++) {
+                        assertFalse(baseline.covers("com.example.Loader" + (offset + i), CALL_STACK, "Generated"));
+                    }
+                }
+            });
+            learners.add(learner);
+            learner.start();
+        }
+        for (Thread learner : learners) {
+            learner.join();
+        }
+        
+        assertEquals(threads * perThread, baseline.size());
+    }
+    
+    @Test
+    void learnedTuplesAreCoveredAfterLearning() {
+        ClassDefineBaseline baseline = new ClassDefineBaseline(newConfig());
+        assertFalse(baseline.covers("com.example.Loader", CALL_STACK, "com.example.Generated$1a2b3c4d"));
+        baseline.finishLearning();
+        
+        // 同一调用方定义同一形态的类不产生事件，其他调用方仍然产生
+        assertTrue(baseline.isEnforcing());
+        assertTrue(baseline.covers("com.example.Loader", CALL_STACK, "com.example.Generated$9f8e7d6c"));
+        assertFalse(baseline.covers("com.example.Loader", OTHER_CALL_STACK, "com.example.Generated$9f8e7d6c"));
+    }
+    
+    @Test
+    void savedBaselineIsEnforcedOnRestart() {
+        ClassDefineBaseline learned = new ClassDefineBaseline(newConfig());
+        learned.covers("com.example.Loader", CALL_STACK, "com.example.Generated");
+        learned.finishLearning();
+        assertTrue(Files.isRegularFile(tempDir.resolve("baseline.bin")));
+        
+        ClassDefineBaseline restarted = new ClassDefineBaseline(newConfig());
+        restarted.start();
+        try {
+            assertTrue(restarted.isEnforcing());
+            assertEquals(1, restarted.size());
+            assertTrue(restarted.covers("com.example.Loader", CALL_STACK, "com.example.Generated"));
+        } finally {
+            restarted.stop();
+        }
+    }
+    
+    @Test
+    void loadStopsAtMaxEntries() {
+        ClassDefineBaseline learned = new ClassDefineBaseline(newConfig());
+        for (int i = 0; i < 20; i++) {
+            learned.covers("com.example.Loader" + i, CALL_STACK, "com.example.Generated");
+        }
+        learned.finishLearning();
+        
+        ClassDefineBaseline restarted = new ClassDefineBaseline(newConfig(",rules.class-define-baseline.max-entries=16"));
+        restarted.start();
+        try {
+            assertEquals(16, restarted.size());
+        } finally {
+            restarted.stop();
+        }
+    }
+    
+    private AgentConfig newConfig() {
+        return newConfig("");
+    }
+    
+    private AgentConfig newConfig(String extraArgs) {
+        AgentConfig config = new AgentConfig();
+        config.initialize("rules.class-define-baseline.path=" + tempDir.resolve("baseline.bin") + extraArgs);
+        return config;
+    }
+}
@@ -0,0 +1,190 @@
+package com.janusguard.core.rule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.core.event.EventProcessor;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventType;
+import com.janusguard.transport.queue.EventQueue;
+import com.janusguard.transport.queue.LaneScheduler;
+
+/**
+ * 攻击链关联测试
+ * 默认的memory-shell模式：同一线程依次出现反射、defineClass和命令执行
+ */
+class CorrelationEngineTest {
+    
+    @Test
+    void interleavedLanesRaiseOneAlert() throws Exception {
+        AgentConfig config = new AgentConfig();
+        config.initialize("event-processing.processor-threads=1");
+        
+        // 严格调度总是先取高优先级通道：defineClass和命令执行在HIGH通道，先产生的反射在LOW通道
+        EventQueue eventQueue = new EventQueue(1000,
+                new LaneScheduler(LaneScheduler.DrainPolicy.STRICT, null), null);
+        eventQueue.initialize();
+        for (SecurityEvent event : memoryShellChain()) {
+            event.setSeverity(RuleEvaluator.baseSeverity(event.getType()));
+            assertTrue(eventQueue.offer(event));
+        }
+        
+        // 事件全部入队后再启动处理器，使三个事件落在同一批次中且按通道顺序取出
+        EventProcessor processor = new EventProcessor(config, eventQueue);
+        processor.start();
+        List<SecurityEvent> processed = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 5000;
+        try {
+            while (processed.size() < 3 && System.currentTimeMillis() < deadline) {
+                eventQueue.pollProcessed(processed, 10);
+            }
+        } finally {
+            processor.stop();
+            eventQueue.shutdown();
+        }
+        
+        assertEquals(3, processed.size());
+        assertEquals(1, countAlerts(processed));
+        for (SecurityEvent event : processed) {
+            if (event.getType() == SecurityEventType.COMMAND_EXECUTION) {
+                assertEquals("memory-shell", event.getData(AgentConstants.EventFields.CORRELATION_PATTERN));
+            }
+        }
+    }
+    
+    @Test
+    void chainAcrossWorkersRaisesOneAlert() throws Exception {
+        // 每批一个事件、两个处理线程：三个事件由不同线程在不同批次中取出
+        AgentConfig config = new AgentConfig();
+        config.initialize("event-processing.processor-threads=2,event-processing.batch-size=1");
+        
+        EventQueue eventQueue = new EventQueue(1000,
+                new LaneScheduler(LaneScheduler.DrainPolicy.STRICT, null), null);
+        eventQueue.initialize();
+        EventProcessor processor = new EventProcessor(config, eventQueue);
+        processor.start();
+        List<SecurityEvent> processed = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 5000;
+        try {
+            // 同一线程依次产生，高优先级通道的defineClass和命令执行先于反射被取出
+            for (SecurityEvent event : memoryShellChain()) {
+                event.setSeverity(RuleEvaluator.baseSeverity(event.getType()));
+                assertTrue(eventQueue.offer(event));
+            }
+            while (processed.size() < 3 && System.currentTimeMillis() < deadline) {
+                eventQueue.pollProcessed(processed, 10);
+            }
+        } finally {
+            processor.stop();
+            eventQueue.shutdown();
+        }
+        
+        assertEquals(3, processed.size());
+        assertEquals(1, countAlerts(processed));
+    }
+    
+    @Test
+    void chainInOrderRaisesAlert() {
+        CorrelationEngine engine = newEngine();
+        SecurityEvent reflection = event(SecurityEventType.REFLECTION, "invoke", 1_000_000L);
+        SecurityEvent defineClass = event(SecurityEventType.CLASS_LOADING, "defineClass", 1_004_000L);
+        SecurityEvent command = event(SecurityEventType.COMMAND_EXECUTION, "exec", 1_010_000L);
+        engine.evaluate(reflection);
+        engine.evaluate(defineClass);
+        engine.evaluate(command);
+        
+        assertEquals("memory-shell", command.getData(AgentConstants.EventFields.CORRELATION_PATTERN));
+        assertEquals(reflection.getId(), command.getData(AgentConstants.EventFields.CORRELATION_START_EVENT));
+    }
+    
+    @Test
+    void chainOutsideWindowRaisesNoAlert() {
+        CorrelationEngine engine = newEngine();
+        engine.evaluate(event(SecurityEventType.REFLECTION, "invoke", 1_000_000L));
+        engine.evaluate(event(SecurityEventType.CLASS_LOADING, "defineClass", 1_004_000L));
+        SecurityEvent command = event(SecurityEventType.COMMAND_EXECUTION, "exec", 1_010_001L);
+        engine.evaluate(command);
+        
+        assertNull(command.getData(AgentConstants.EventFields.CORRELATION_PATTERN));
+    }
+    
+    @Test
+    void laterFirstStepRestartsStaleChain() {
+        // 早先的无害反射不应占住窗口，之后开始的完整攻击链仍然告警
+        CorrelationEngine engine = newEngine();
+        engine.evaluate(event(SecurityEventType.REFLECTION, "invoke", 1_000_000L));
+        SecurityEvent reflection = event(SecurityEventType.REFLECTION, "invoke", 1_008_000L);
+        engine.evaluate(reflection);
+        engine.evaluate(event(SecurityEventType.CLASS_LOADING, "defineClass", 1_009_000L));
+        SecurityEvent command = event(SecurityEventType.COMMAND_EXECUTION, "exec", 1_012_000L);
+        engine.evaluate(command);
+        
+        assertEquals("memory-shell", command.getData(AgentConstants.EventFields.CORRELATION_PATTERN));
+        assertEquals(reflection.getId(), command.getData(AgentConstants.EventFields.CORRELATION_START_EVENT));
+    }
+    
+    @Test
+    void laterFirstStepKeepsAdvancedChain() {
+        // defineClass之后再次反射调用内存马中的方法，已推进的链不被新链覆盖
+        CorrelationEngine engine = newEngine();
+        SecurityEvent reflection = event(SecurityEventType.REFLECTION, "invoke", 1_000_000L);
+        engine.evaluate(reflection);
+        engine.evaluate(event(SecurityEventType.CLASS_LOADING, "defineClass", 1_001_000L));
+        engine.evaluate(event(SecurityEventType.REFLECTION, "invoke", 1_002_000L));
+        SecurityEvent command = event(SecurityEventType.COMMAND_EXECUTION, "exec", 1_003_000L);
+        engine.evaluate(command);
+        
+        assertEquals(reflection.getId(), command.getData(AgentConstants.EventFields.CORRELATION_START_EVENT));
+        
+        // 同一条链不再重复告警
+        SecurityEvent again = event(SecurityEventType.COMMAND_EXECUTION, "exec", 1_004_000L);
+        engine.evaluate(again);
+        assertNull(again.getData(AgentConstants.EventFields.CORRELATION_PATTERN));
+    }
+    
+    private static int countAlerts(List<SecurityEvent> events) {
+        int alerts = 0;
+        for (SecurityEvent event : events) {
+            if (event.getData(AgentConstants.EventFields.CORRELATION_PATTERN) != null) {
+                alerts++;
+            }
+        }
+        return alerts;
+    }
+    
+    private static CorrelationEngine newEngine() {
+        AgentConfig config = new AgentConfig();
+        config.initialize("rules.correlation.window-ms=10000");
+        return new CorrelationEngine(config);
+    }
+    
+    private static List<SecurityEvent> memoryShellChain() {
+        List<SecurityEvent> chain = new ArrayList<>();
+        chain.add(new SecurityEvent(SecurityEventType.REFLECTION, "java.lang.reflect.Method", "invoke"));
+        chain.add(new SecurityEvent(SecurityEventType.CLASS_LOADING, "java.lang.ClassLoader", "defineClass"));
+        chain.add(new SecurityEvent(SecurityEventType.COMMAND_EXECUTION, "java.lang.Runtime", "exec"));
+        return chain;
+    }
+    
+    /**
+     * 创建时间戳固定的事件，用于精确控制与窗口的距离
+     */
+    private static SecurityEvent event(SecurityEventType type, String methodName, long timestamp) {
+        return new SecurityEvent(type, "com.example.Target", methodName) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public long getTimestamp() {
+                return timestamp;
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.janusguard.transport.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 多通道优先级队列测试
+ */
+class LaneQueueTest {
+    
+    @Test
+    void offerAllWaitsOnceForWholeBatch() throws Exception {
+        LaneQueue queue = new LaneQueue(1, new LaneScheduler(LaneScheduler.DrainPolicy.STRICT, null));
+        List<SecurityEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            events.add(newEvent());
+        }
+        
+        // 通道容量为1，其余4个事件共用一个200ms的截止时间，而不是各等200ms
+        long start = System.nanoTime();
+        assertEquals(1, queue.offerAll(events, 200, TimeUnit.MILLISECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs < 600, "offerAll waited " + elapsedMs + "ms");
+        
+        assertNotNull(queue.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+    
+    private static SecurityEvent newEvent() {
+        return new SecurityEvent(SecurityEventType.FILE_OPERATION, "java.io.FileInputStream", "open");
+    }
+}
@@ -0,0 +1,45 @@
+package com.janusguard.transport.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 按生产者线程划分的事件缓冲区测试
+ */
+class PerThreadEventBuffersTest {
+    
+    @Test
+    void deadThreadBuffersAreReclaimedUnderLoad() throws Exception {
+        PerThreadEventBuffers buffers = new PerThreadEventBuffers(64, 1000,
+                new LaneScheduler(LaneScheduler.DrainPolicy.STRICT, null));
+        
+        // 短命线程各提交一个事件后结束
+        for (int i = 0; i < 8; i++) {
+            Thread producer = new Thread(() -> assertTrue(buffers.offer(newEvent(), 0, TimeUnit.MILLISECONDS)));
+            producer.start();
+            producer.join();
+        }
+        assertEquals(8, buffers.getProducerCount());
+        
+        // 当前线程持续提交，消费者每次都能立即取到事件，poll从不超时
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (buffers.getProducerCount() > 1 && System.nanoTime() < deadline) {
+            assertTrue(buffers.offer(newEvent(), 0, TimeUnit.MILLISECONDS));
+            assertNotNull(buffers.poll(1, TimeUnit.SECONDS));
+        }
+        
+        assertEquals(1, buffers.getProducerCount());
+    }
+    
+    private static SecurityEvent newEvent() {
+        return new SecurityEvent(SecurityEventType.FILE_OPERATION, "java.io.FileInputStream", "open");
+    }
+}
@@ -0,0 +1,55 @@
+package com.janusguard.transport.reporter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 告警窗口测试
+ */
+class AlertWindowBufferTest {
+    
+    @Test
+    void baseHighEventsDoNotTrigger() {
+        AlertWindowBuffer buffer = new AlertWindowBuffer(newConfig());
+        SecurityEvent read = event(SecurityEventType.FILE_OPERATION, SecurityEventSeverity.LOW);
+        SecurityEvent unsafe = event(SecurityEventType.JVM_MEMORY_OPERATION, SecurityEventSeverity.HIGH);
+        
+        // Unsafe调用的基础级别是HIGH，默认不带出缓冲的文件事件
+        List<SecurityEvent> output = buffer.filter(Arrays.asList(read, unsafe));
+        assertEquals(1, output.size());
+        assertSame(unsafe, output.get(0));
+        assertEquals(1, buffer.getBufferedEvents());
+    }
+    
+    @Test
+    void criticalEventsDumpBufferedEvents() {
+        AlertWindowBuffer buffer = new AlertWindowBuffer(newConfig());
+        SecurityEvent read = event(SecurityEventType.FILE_OPERATION, SecurityEventSeverity.LOW);
+        SecurityEvent critical = event(SecurityEventType.JVM_MEMORY_OPERATION, SecurityEventSeverity.CRITICAL);
+        
+        assertEquals(Arrays.asList(read, critical), buffer.filter(Arrays.asList(read, critical)));
+        assertEquals(0, buffer.getBufferedEvents());
+    }
+    
+    private static AgentConfig newConfig() {
+        AgentConfig config = new AgentConfig();
+        config.initialize("reporting.alert-window.enabled=true");
+        return config;
+    }
+    
+    private static SecurityEvent event(SecurityEventType type, SecurityEventSeverity severity) {
+        SecurityEvent event = new SecurityEvent(type, "java.io.FileInputStream", "open");
+        event.setSeverity(severity);
+        return event;
+    }
+}
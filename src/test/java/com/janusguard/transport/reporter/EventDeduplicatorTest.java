@@ -0,0 +1,82 @@
+package com.janusguard.transport.reporter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.janusguard.agent.AgentConfig;
+import com.janusguard.common.constants.AgentConstants;
+import com.janusguard.core.event.SecurityEvent;
+import com.janusguard.core.event.SecurityEventSeverity;
+import com.janusguard.core.event.SecurityEventType;
+
+/**
+ * 重复事件去重测试
+ */
+class EventDeduplicatorTest {
+    
+    @Test
+    void repeatsAreSummarizedSeparately() {
+        EventDeduplicator deduplicator = newDeduplicator();
+        SecurityEvent first = event(SecurityEventSeverity.LOW);
+        SecurityEvent second = event(SecurityEventSeverity.LOW);
+        SecurityEvent third = event(SecurityEventSeverity.LOW);
+        
+        List<SecurityEvent> summaries = new ArrayList<>();
+        List<SecurityEvent> output = deduplicator.filter(Arrays.asList(first, second, third), summaries);
+        assertEquals(1, output.size());
+        assertSame(first, output.get(0));
+        assertTrue(summaries.isEmpty());
+        
+        List<SecurityEvent> expired = deduplicator.expire(Long.MAX_VALUE);
+        assertEquals(1, expired.size());
+        assertSame(third, expired.get(0));
+        assertEquals(2, third.getData(AgentConstants.EventFields.REPEAT_COUNT));
+        assertEquals(first.getId(), third.getData(AgentConstants.EventFields.REPEAT_OF));
+    }
+    
+    @Test
+    void severeEventsBypassDedup() {
+        EventDeduplicator deduplicator = newDeduplicator();
+        List<SecurityEvent> events = Arrays.asList(event(SecurityEventSeverity.HIGH),
+                event(SecurityEventSeverity.CRITICAL), event(SecurityEventSeverity.HIGH));
+        
+        List<SecurityEvent> summaries = new ArrayList<>();
+        assertEquals(events, deduplicator.filter(events, summaries));
+        assertTrue(summaries.isEmpty());
+        assertEquals(0, deduplicator.getTrackedKeys());
+    }
+    
+    @Test
+    void severityIsPartOfFingerprint() {
+        EventDeduplicator deduplicator = new EventDeduplicator(newConfig(), null);
+        SecurityEvent low = event(SecurityEventSeverity.LOW);
+        SecurityEvent high = event(SecurityEventSeverity.HIGH);
+        
+        List<SecurityEvent> output = deduplicator.filter(Arrays.asList(low, high), new ArrayList<>());
+        assertEquals(Arrays.asList(low, high), output);
+    }
+    
+    private static EventDeduplicator newDeduplicator() {
+        return new EventDeduplicator(newConfig(), SecurityEventSeverity.HIGH);
+    }
+    
+    private static AgentConfig newConfig() {
+        AgentConfig config = new AgentConfig();
+        config.initialize("reporting.dedup.window-ms=60000");
+        return config;
+    }
+    
+    private static SecurityEvent event(SecurityEventSeverity severity) {
+        SecurityEvent event = new SecurityEvent(SecurityEventType.FILE_OPERATION, "java.io.FileInputStream", "open");
+        event.setSeverity(severity);
+        event.addData(AgentConstants.EventFields.FILE_PATH, "/tmp/hot-loop");
+        return event;
+    }
+}